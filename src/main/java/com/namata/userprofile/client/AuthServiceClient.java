@@ -0,0 +1,19 @@
+package com.namata.userprofile.client;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Consulta ao auth-service sobre a existência de usuários.
+ */
+public interface AuthServiceClient {
+
+    CompletableFuture<Boolean> userExists(UUID userId, String bearerToken);
+
+    /**
+     * Valida vários usuários em uma única chamada; o mapa contém todos os IDs informados.
+     */
+    CompletableFuture<Map<UUID, Boolean>> usersExist(Collection<UUID> userIds, String bearerToken);
+}
@@ -0,0 +1,153 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.util.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache de existência de usuários na frente do auth-service.
+ * Respostas positivas e negativas ficam em cache com prazos distintos; consultas simultâneas pelo mesmo
+ * usuário compartilham a mesma chamada. Com o circuito aberto, ou quando o auth-service falha ou demora,
+ * é servida a última resposta conhecida, mesmo expirada; sem resposta conhecida o resultado é {@code null}
+ * (desconhecido), cabendo ao chamador decidir. O cache guarda no máximo {@code maxEntries} usuários; acima disso
+ * sai a resposta gravada há mais tempo, que deixa de servir também como última resposta conhecida.
+ */
+@Slf4j
+public class CachingAuthServiceClient implements AuthServiceClient {
+
+    private final AuthServiceClient delegate;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final long callTimeoutMillis;
+
+    private final ExpiringCache<UUID, Boolean> cache;
+    private final Map<UUID, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+
+    public CachingAuthServiceClient(AuthServiceClient delegate, CircuitBreaker circuitBreaker, int maxEntries,
+                                    Duration positiveTtl, Duration negativeTtl, Duration callTimeout) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.callTimeoutMillis = callTimeout.toMillis();
+        this.cache = new ExpiringCache<>(maxEntries);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> userExists(UUID userId, String bearerToken) {
+        Boolean cached = cache.get(userId);
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+        CompletableFuture<Boolean> existing = inFlight.get(userId);
+        if (existing != null) {
+            return existing;
+        }
+        if (!circuitBreaker.allowRequest()) {
+            return CompletableFuture.completedFuture(lastKnown(userId));
+        }
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        existing = inFlight.putIfAbsent(userId, future);
+        if (existing != null) {
+            return existing;
+        }
+        delegate.userExists(userId, bearerToken)
+                .orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((exists, error) -> {
+                    if (error == null) {
+                        circuitBreaker.recordSuccess();
+                        put(userId, exists);
+                        complete(userId, future, exists);
+                    } else {
+                        circuitBreaker.recordFailure();
+                        log.warn("Falha ao validar usuário {} no auth-service: {}", userId, error.getMessage());
+                        complete(userId, future, lastKnown(userId));
+                    }
+                });
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, Boolean>> usersExist(Collection<UUID> userIds, String bearerToken) {
+        Map<UUID, CompletableFuture<Boolean>> results = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<Boolean>> owned = new LinkedHashMap<>();
+
+        for (UUID userId : new LinkedHashSet<>(userIds)) {
+            Boolean cached = cache.get(userId);
+            if (cached != null) {
+                results.put(userId, CompletableFuture.completedFuture(cached));
+                continue;
+            }
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            CompletableFuture<Boolean> existing = inFlight.putIfAbsent(userId, future);
+            results.put(userId, existing != null ? existing : future);
+            if (existing == null) {
+                owned.put(userId, future);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            if (circuitBreaker.allowRequest()) {
+                fetchBatch(owned, bearerToken);
+            } else {
+                owned.forEach((userId, future) -> complete(userId, future, lastKnown(userId)));
+            }
+        }
+
+        return CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<UUID, Boolean> existence = new LinkedHashMap<>();
+                    results.forEach((userId, future) -> existence.put(userId, future.join()));
+                    return existence;
+                });
+    }
+
+    private void fetchBatch(Map<UUID, CompletableFuture<Boolean>> owned, String bearerToken) {
+        List<UUID> userIds = new ArrayList<>(owned.keySet());
+        delegate.usersExist(userIds, bearerToken)
+                .orTimeout(callTimeoutMillis, TimeUnit.MILLISECONDS)
+                .whenComplete((existence, error) -> {
+                    if (error == null) {
+                        circuitBreaker.recordSuccess();
+                        owned.forEach((userId, future) -> {
+                            Boolean exists = existence.get(userId);
+                            if (exists != null) {
+                                put(userId, exists);
+                            }
+                            complete(userId, future, exists != null ? exists : lastKnown(userId));
+                        });
+                    } else {
+                        circuitBreaker.recordFailure();
+                        log.warn("Falha ao validar {} usuários no auth-service: {}", userIds.size(), error.getMessage());
+                        owned.forEach((userId, future) -> complete(userId, future, lastKnown(userId)));
+                    }
+                });
+    }
+
+    // Sai de inFlight antes de completar: quem chega depois consulta o cache em vez de reaproveitar a resposta
+    private void complete(UUID userId, CompletableFuture<Boolean> future, Boolean exists) {
+        inFlight.remove(userId, future);
+        future.complete(exists);
+    }
+
+    private Boolean lastKnown(UUID userId) {
+        return cache.getIncludingExpired(userId);
+    }
+
+    private void put(UUID userId, boolean exists) {
+        cache.put(userId, exists, exists ? positiveTtl : negativeTtl);
+    }
+}
@@ -0,0 +1,118 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.dto.TrailSummaryDTO;
+import com.namata.userprofile.util.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cache local do catálogo de trilhas, limitado por tamanho e com expiração.
+ * IDs ausentes do cache são buscados em uma única chamada em lote; buscas simultâneas pelo mesmo ID
+ * aguardam a chamada já em andamento. Falhas do serviço remoto nunca propagam: as trilhas afetadas
+ * simplesmente ficam sem detalhes.
+ */
+@Slf4j
+public class CachingTrailCatalogClient implements TrailCatalogClient {
+
+    private final TrailCatalogClient delegate;
+    private final int batchSize;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final long waitTimeoutMillis;
+
+    // Optional vazio: trilha inexistente no catálogo (cache negativo)
+    private final ExpiringCache<UUID, Optional<TrailSummaryDTO>> cache;
+    private final Map<UUID, CompletableFuture<TrailSummaryDTO>> inFlight = new ConcurrentHashMap<>();
+
+    public CachingTrailCatalogClient(TrailCatalogClient delegate, int maxEntries, int batchSize,
+                                     Duration ttl, Duration negativeTtl, Duration waitTimeout) {
+        this.delegate = delegate;
+        this.batchSize = batchSize;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.waitTimeoutMillis = waitTimeout.toMillis();
+        this.cache = new ExpiringCache<>(maxEntries);
+    }
+
+    @Override
+    public Map<UUID, TrailSummaryDTO> getTrails(Collection<UUID> trailIds) {
+        Map<UUID, TrailSummaryDTO> result = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<TrailSummaryDTO>> awaited = new LinkedHashMap<>();
+        Map<UUID, CompletableFuture<TrailSummaryDTO>> owned = new LinkedHashMap<>();
+
+        for (UUID trailId : new LinkedHashSet<>(trailIds)) {
+            Optional<TrailSummaryDTO> cached = cache.get(trailId);
+            if (cached != null) {
+                cached.ifPresent(trail -> result.put(trailId, trail));
+                continue;
+            }
+            CompletableFuture<TrailSummaryDTO> future = new CompletableFuture<>();
+            CompletableFuture<TrailSummaryDTO> existing = inFlight.putIfAbsent(trailId, future);
+            if (existing != null) {
+                awaited.put(trailId, existing);
+            } else {
+                owned.put(trailId, future);
+            }
+        }
+
+        if (!owned.isEmpty()) {
+            fetch(owned);
+        }
+        owned.forEach((trailId, future) -> collect(result, trailId, future));
+        awaited.forEach((trailId, future) -> collect(result, trailId, future));
+        return result;
+    }
+
+    public void invalidate(UUID trailId) {
+        cache.remove(trailId);
+    }
+
+    private void fetch(Map<UUID, CompletableFuture<TrailSummaryDTO>> owned) {
+        List<UUID> ids = new ArrayList<>(owned.keySet());
+        try {
+            for (int start = 0; start < ids.size(); start += batchSize) {
+                List<UUID> batch = ids.subList(start, Math.min(start + batchSize, ids.size()));
+                Map<UUID, TrailSummaryDTO> fetched = delegate.getTrails(batch);
+                for (UUID trailId : batch) {
+                    TrailSummaryDTO trail = fetched.get(trailId);
+                    cache.put(trailId, Optional.ofNullable(trail), trail != null ? ttl : negativeTtl);
+                    owned.get(trailId).complete(trail);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Erro ao buscar trilhas no trail-service: {}", e.getMessage());
+        } finally {
+            // IDs não resolvidos (falha) não vão para o cache: a próxima busca tenta de novo
+            owned.forEach((trailId, future) -> {
+                future.complete(null);
+                inFlight.remove(trailId, future);
+            });
+        }
+    }
+
+    private void collect(Map<UUID, TrailSummaryDTO> result, UUID trailId, CompletableFuture<TrailSummaryDTO> future) {
+        try {
+            TrailSummaryDTO trail = future.get(waitTimeoutMillis, TimeUnit.MILLISECONDS);
+            if (trail != null) {
+                result.put(trailId, trail);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.debug("Trilha {} não resolvida a tempo: {}", trailId, e.getMessage());
+        }
+    }
+
+}
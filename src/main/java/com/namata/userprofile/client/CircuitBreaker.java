@@ -0,0 +1,61 @@
+package com.namata.userprofile.client;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Circuit breaker simples: abre após {@code failureThreshold} falhas consecutivas e, depois de
+ * {@code openDuration}, libera uma chamada de teste por intervalo (meio-aberto) até uma delas ter sucesso.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openDurationNanos;
+
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedAt = new AtomicLong();
+    private volatile boolean open;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+    }
+
+    public boolean allowRequest() {
+        if (!open) {
+            return true;
+        }
+        long opened = openedAt.get();
+        long now = System.nanoTime();
+        // Meio-aberto: a primeira chamada após o intervalo passa e adia as demais por mais um intervalo
+        return now - opened >= openDurationNanos && openedAt.compareAndSet(opened, now);
+    }
+
+    public void recordSuccess() {
+        consecutiveFailures.set(0);
+        if (open) {
+            open = false;
+            log.info("Circuito {} fechado", name);
+        }
+    }
+
+    public void recordFailure() {
+        if (consecutiveFailures.incrementAndGet() >= failureThreshold || open) {
+            if (!open) {
+                log.warn("Circuito {} aberto após {} falhas consecutivas", name, consecutiveFailures.get());
+            }
+            openedAt.set(System.nanoTime());
+            open = true;
+        }
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+}
@@ -0,0 +1,110 @@
+package com.namata.userprofile.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cliente HTTP não bloqueante do auth-service (java.net.http com {@code sendAsync}).
+ */
+@Slf4j
+public class HttpAuthServiceClient implements AuthServiceClient {
+
+    private static final TypeReference<Map<UUID, Boolean>> EXISTENCE_MAP = new TypeReference<>() {};
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final Duration requestTimeout;
+
+    public HttpAuthServiceClient(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl, Duration requestTimeout) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUri = URI.create(baseUrl.endsWith("/") ? baseUrl : baseUrl + "/");
+        this.requestTimeout = requestTimeout;
+    }
+
+    @Override
+    public CompletableFuture<Boolean> userExists(UUID userId, String bearerToken) {
+        HttpRequest request = requestBuilder("api/v1/users/" + userId + "/exists", bearerToken)
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApply(response -> {
+                    if (response.statusCode() == 404) {
+                        return false;
+                    }
+                    checkStatus(response);
+                    return Boolean.parseBoolean(response.body().trim());
+                });
+    }
+
+    @Override
+    public CompletableFuture<Map<UUID, Boolean>> usersExist(Collection<UUID> userIds, String bearerToken) {
+        HttpRequest request;
+        try {
+            request = requestBuilder("api/v1/users/exists", bearerToken)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(Map.of("ids", userIds))))
+                    .build();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .thenApply(response -> {
+                    checkStatus(response);
+                    try {
+                        Map<UUID, Boolean> body = objectMapper.readValue(response.body(), EXISTENCE_MAP);
+                        Map<UUID, Boolean> result = new LinkedHashMap<>();
+                        for (UUID userId : userIds) {
+                            result.put(userId, Boolean.TRUE.equals(body.get(userId)));
+                        }
+                        return result;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+    }
+
+    private HttpRequest.Builder requestBuilder(String path, String bearerToken) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json");
+        if (bearerToken != null) {
+            builder.header("Authorization", "Bearer " + bearerToken);
+        }
+        return builder;
+    }
+
+    private static void checkStatus(HttpResponse<?> response) {
+        switch (response.statusCode() / 100) {
+            case 2:
+                return;
+            case 4:
+                if (response.statusCode() == 401) {
+                    throw new RuntimeException("Token inválido ou expirado");
+                }
+                if (response.statusCode() == 403) {
+                    throw new RuntimeException("Acesso negado");
+                }
+                throw new RuntimeException("Requisição rejeitada pelo serviço de autenticação: " + response.statusCode());
+            default:
+                throw new RuntimeException("Erro interno do serviço de autenticação: " + response.statusCode());
+        }
+    }
+}
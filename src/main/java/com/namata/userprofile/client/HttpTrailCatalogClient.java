@@ -0,0 +1,46 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.dto.TrailSummaryDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.web.client.RestClient;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Cliente REST do trail-service; busca as trilhas em lote com {@code POST /api/v1/trails/batch}.
+ */
+@Slf4j
+public class HttpTrailCatalogClient implements TrailCatalogClient {
+
+    private static final ParameterizedTypeReference<List<TrailSummaryDTO>> TRAIL_LIST =
+            new ParameterizedTypeReference<>() {};
+
+    private final RestClient restClient;
+
+    public HttpTrailCatalogClient(RestClient restClient) {
+        this.restClient = restClient;
+    }
+
+    @Override
+    public Map<UUID, TrailSummaryDTO> getTrails(Collection<UUID> trailIds) {
+        Map<UUID, TrailSummaryDTO> result = new LinkedHashMap<>();
+        if (trailIds.isEmpty()) {
+            return result;
+        }
+        List<TrailSummaryDTO> trails = restClient.post()
+                .uri("/api/v1/trails/batch")
+                .body(Map.of("ids", trailIds))
+                .retrieve()
+                .body(TRAIL_LIST);
+        if (trails != null) {
+            trails.forEach(trail -> result.put(trail.getId(), trail));
+        }
+        log.debug("trail-service retornou {} de {} trilhas", result.size(), trailIds.size());
+        return result;
+    }
+}
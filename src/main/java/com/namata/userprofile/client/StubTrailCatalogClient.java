@@ -0,0 +1,48 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.dto.TrailSummaryDTO;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Implementação em memória do catálogo de trilhas, para testes e desenvolvimento local sem o trail-service.
+ */
+public class StubTrailCatalogClient implements TrailCatalogClient {
+
+    private final Map<UUID, TrailSummaryDTO> trails = new ConcurrentHashMap<>();
+    private final AtomicLong calls = new AtomicLong();
+
+    public void register(TrailSummaryDTO trail) {
+        trails.put(trail.getId(), trail);
+    }
+
+    public void clear() {
+        trails.clear();
+        calls.set(0);
+    }
+
+    /**
+     * Número de chamadas recebidas, para verificar o efeito do cache e do agrupamento de requisições.
+     */
+    public long getCallCount() {
+        return calls.get();
+    }
+
+    @Override
+    public Map<UUID, TrailSummaryDTO> getTrails(Collection<UUID> trailIds) {
+        calls.incrementAndGet();
+        Map<UUID, TrailSummaryDTO> result = new LinkedHashMap<>();
+        for (UUID trailId : trailIds) {
+            TrailSummaryDTO trail = trails.get(trailId);
+            if (trail != null) {
+                result.put(trailId, trail);
+            }
+        }
+        return result;
+    }
+}
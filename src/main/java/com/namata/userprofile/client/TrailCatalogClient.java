@@ -0,0 +1,24 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.dto.TrailSummaryDTO;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Acesso aos dados das trilhas mantidos pelo trail-service.
+ */
+public interface TrailCatalogClient {
+
+    /**
+     * Busca várias trilhas de uma vez; IDs inexistentes ficam fora do mapa.
+     */
+    Map<UUID, TrailSummaryDTO> getTrails(Collection<UUID> trailIds);
+
+    default Optional<TrailSummaryDTO> getTrail(UUID trailId) {
+        return Optional.ofNullable(getTrails(List.of(trailId)).get(trailId));
+    }
+}
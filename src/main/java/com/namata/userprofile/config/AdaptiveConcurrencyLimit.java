@@ -0,0 +1,119 @@
+package com.namata.userprofile.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite de concorrência ajustado pela latência observada (gradiente), com recuo multiplicativo (AIMD) em falhas.
+ * A latência de longo prazo é a referência sem fila; quando a de curto prazo sobe acima dela, o limite encolhe
+ * na proporção; enquanto as duas se mantêm próximas, o limite cresce de {@code sqrt(limite)} por amostra.
+ * Requisições acima do limite são recusadas na hora, sem fila.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile int limit;
+
+    // Protegidos por this
+    private double estimatedLimit;
+    private double shortRttNanos;
+    private double longRttNanos;
+    private long samples;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * Reserva uma vaga, ou devolve null se o limite foi atingido.
+     */
+    public Permit tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return null;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return new Permit(current + 1);
+            }
+        }
+    }
+
+    private void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        synchronized (this) {
+            if (dropped) {
+                estimatedLimit = Math.max(minLimit, estimatedLimit * BACKOFF_RATIO);
+            } else {
+                sample(rttNanos, inFlightAtStart);
+            }
+            limit = (int) estimatedLimit;
+        }
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void sample(long rttNanos, int inFlightAtStart) {
+        samples++;
+        if (samples == 1) {
+            shortRttNanos = rttNanos;
+            longRttNanos = rttNanos;
+            return;
+        }
+        shortRttNanos += (rttNanos - shortRttNanos) / Math.min(samples, SHORT_WINDOW);
+        longRttNanos += (rttNanos - longRttNanos) / Math.min(samples, LONG_WINDOW);
+
+        // Depois de um pico a referência fica alta demais: deixa-a convergir mais rápido para a latência atual
+        if (longRttNanos / shortRttNanos > 2) {
+            longRttNanos *= 0.95;
+        }
+
+        // Com menos da metade das vagas em uso a latência não diz nada sobre o limite
+        if (inFlightAtStart < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRttNanos));
+        double target = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit,
+                estimatedLimit * (1 - SMOOTHING) + target * SMOOTHING));
+    }
+
+    /**
+     * Vaga reservada por {@link #tryAcquire()}. Guarda quantas requisições estavam em andamento quando ela
+     * começou: é essa concorrência que explica a latência medida, não a do momento da liberação.
+     */
+    public final class Permit {
+
+        private final int inFlightAtStart;
+
+        private Permit(int inFlightAtStart) {
+            this.inFlightAtStart = inFlightAtStart;
+        }
+
+        /**
+         * Libera a vaga e alimenta o ajuste do limite. {@code dropped} indica falha por sobrecarga (timeout ou
+         * pool esgotado): o limite recua na hora, sem usar a latência da amostra.
+         */
+        public void release(long rttNanos, boolean dropped) {
+            AdaptiveConcurrencyLimit.this.release(rttNanos, inFlightAtStart, dropped);
+        }
+    }
+}
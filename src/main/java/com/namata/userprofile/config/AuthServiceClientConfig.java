@@ -0,0 +1,58 @@
+package com.namata.userprofile.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namata.userprofile.client.AuthServiceClient;
+import com.namata.userprofile.client.CachingAuthServiceClient;
+import com.namata.userprofile.client.CircuitBreaker;
+import com.namata.userprofile.client.HttpAuthServiceClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+@Configuration
+public class AuthServiceClientConfig {
+
+    @Value("${app.services.auth-service.url:http://localhost:8082}")
+    private String authServiceUrl;
+
+    @Value("${app.services.auth-service.connect-timeout-ms:1000}")
+    private long connectTimeoutMs;
+
+    // Acima deste tempo a chamada conta como falha para o circuit breaker e a resposta em cache é usada
+    @Value("${app.services.auth-service.call-timeout-ms:800}")
+    private long callTimeoutMs;
+
+    @Value("${app.services.auth-service.cache.max-entries:100000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.services.auth-service.cache.positive-ttl-minutes:60}")
+    private long positiveTtlMinutes;
+
+    @Value("${app.services.auth-service.cache.negative-ttl-seconds:30}")
+    private long negativeTtlSeconds;
+
+    @Value("${app.services.auth-service.circuit-breaker.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${app.services.auth-service.circuit-breaker.open-seconds:30}")
+    private long openSeconds;
+
+    @Bean
+    public AuthServiceClient authServiceClient(ObjectMapper objectMapper) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        HttpAuthServiceClient delegate = new HttpAuthServiceClient(httpClient, objectMapper, authServiceUrl,
+                Duration.ofMillis(callTimeoutMs));
+        return new CachingAuthServiceClient(delegate,
+                new CircuitBreaker("auth-service", failureThreshold, Duration.ofSeconds(openSeconds)),
+                cacheMaxEntries,
+                Duration.ofMinutes(positiveTtlMinutes),
+                Duration.ofSeconds(negativeTtlSeconds),
+                Duration.ofMillis(callTimeoutMs));
+    }
+}
@@ -0,0 +1,69 @@
+package com.namata.userprofile.config;
+
+import com.namata.userprofile.util.ExpiringCache;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Cache de tokens já verificados na frente de outro {@link JwtDecoder}.
+ * A chave é o SHA-256 do token; cada entrada vale até o {@code exp} do token (limitado a {@code maxTtl}).
+ * Apenas tokens decodificados com sucesso entram no cache, e o tamanho é limitado: acima de {@code maxEntries}
+ * sai o token verificado há mais tempo, mesmo que continue em uso (ele volta na próxima verificação).
+ */
+public class CachingJwtDecoder implements JwtDecoder {
+
+    private final JwtDecoder delegate;
+    private final Duration maxTtl;
+    private final ExpiringCache<TokenKey, Jwt> cache;
+
+    public CachingJwtDecoder(JwtDecoder delegate, int maxEntries, Duration maxTtl) {
+        this.delegate = delegate;
+        this.maxTtl = maxTtl;
+        this.cache = new ExpiringCache<>(maxEntries);
+    }
+
+    @Override
+    public Jwt decode(String token) throws JwtException {
+        TokenKey key = TokenKey.of(token);
+        Jwt cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        Jwt jwt = delegate.decode(token);
+        // Prazo medido depois da verificação: o tempo gasto nela não pode estender a entrada além do exp
+        Duration ttl = maxTtl;
+        if (jwt.getExpiresAt() != null) {
+            Duration untilExpiry = Duration.between(Instant.now(), jwt.getExpiresAt());
+            if (untilExpiry.compareTo(ttl) < 0) {
+                ttl = untilExpiry;
+            }
+        }
+        if (ttl.isPositive()) {
+            cache.put(key, jwt, ttl);
+        }
+        return jwt;
+    }
+
+    // SHA-256 do token em quatro longs: evita guardar o token em si como chave
+    private record TokenKey(long a, long b, long c, long d) {
+
+        static TokenKey of(String token) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+                ByteBuffer buffer = ByteBuffer.wrap(digest);
+                return new TokenKey(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 indisponível", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.namata.userprofile.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Limites de concorrência adaptativos por grupo de endpoints, expostos em
+ * {@code http.server.concurrency.limit}, {@code http.server.concurrency.in-flight} e
+ * {@code http.server.concurrency.rejected} (tag {@code group}).
+ * O teto de cada grupo é uma fração do pool de conexões ({@link DatabaseConfig#MAXIMUM_POOL_SIZE}), e não um
+ * número solto: ranking e busca juntos não passam da metade do pool, e as leituras simples sempre encontram
+ * conexão livre mesmo com os dois grupos pesados saturados.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    @Value("${app.concurrency-limit.min-limit:2}")
+    private int minLimit;
+
+    @Value("${app.concurrency-limit.retry-after-seconds:1}")
+    private int retryAfterSeconds;
+
+    @Value("${app.concurrency-limit.ranking.initial-limit:4}")
+    private int rankingInitialLimit;
+
+    @Value("${app.concurrency-limit.ranking.pool-share:0.25}")
+    private double rankingPoolShare;
+
+    @Value("${app.concurrency-limit.search.initial-limit:4}")
+    private int searchInitialLimit;
+
+    @Value("${app.concurrency-limit.search.pool-share:0.25}")
+    private double searchPoolShare;
+
+    @Value("${app.concurrency-limit.writes.initial-limit:8}")
+    private int writesInitialLimit;
+
+    @Value("${app.concurrency-limit.writes.pool-share:0.5}")
+    private double writesPoolShare;
+
+    @Value("${app.concurrency-limit.reads.initial-limit:10}")
+    private int readsInitialLimit;
+
+    @Value("${app.concurrency-limit.reads.pool-share:1.0}")
+    private double readsPoolShare;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(MeterRegistry meterRegistry) {
+        if (rankingPoolShare + searchPoolShare >= 1) {
+            throw new IllegalStateException("Ranking e busca juntos não podem ocupar o pool inteiro: frações "
+                    + rankingPoolShare + " + " + searchPoolShare);
+        }
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(
+                group("ranking", rankingInitialLimit, maxLimit(rankingPoolShare), meterRegistry),
+                group("search", searchInitialLimit, maxLimit(searchPoolShare), meterRegistry),
+                group("writes", writesInitialLimit, maxLimit(writesPoolShare), meterRegistry),
+                group("reads", readsInitialLimit, maxLimit(readsPoolShare), meterRegistry),
+                retryAfterSeconds);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        // Antes da cadeia de segurança: requisições recusadas não chegam a validar o token
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER - 1);
+        return registration;
+    }
+
+    // Arredonda para baixo: a soma dos tetos de ranking e busca não pode passar da soma das frações
+    private int maxLimit(double poolShare) {
+        return Math.max(minLimit, (int) (DatabaseConfig.MAXIMUM_POOL_SIZE * poolShare));
+    }
+
+    private ConcurrencyLimitFilter.LimitGroup group(String name, int initialLimit, int maxLimit,
+                                                    MeterRegistry meterRegistry) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        Gauge.builder("http.server.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .tag("group", name)
+                .description("Limite de concorrência atual do grupo")
+                .register(meterRegistry);
+        Gauge.builder("http.server.concurrency.in-flight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .tag("group", name)
+                .description("Requisições em andamento no grupo")
+                .register(meterRegistry);
+        Counter rejected = Counter.builder("http.server.concurrency.rejected")
+                .tag("group", name)
+                .description("Requisições recusadas por limite de concorrência")
+                .register(meterRegistry);
+        return new ConcurrencyLimitFilter.LimitGroup(name, limit, rejected);
+    }
+}
@@ -0,0 +1,157 @@
+package com.namata.userprofile.config;
+
+import io.micrometer.core.instrument.Counter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Aplica um {@link AdaptiveConcurrencyLimit} por grupo de endpoints (ranking, busca, escrita, leitura).
+ * Acima do limite a requisição é recusada imediatamente com 503 e {@code Retry-After}, em vez de esperar
+ * por uma conexão do pool até o timeout; assim um pico de ranking não derruba as leituras simples.
+ * Só conta como sobrecarga a falha causada por timeout ou pool esgotado; um 500 por bug ou dado inválido
+ * não diz nada sobre a capacidade e não encolhe o limite.
+ */
+@Slf4j
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    // SQLState do PostgreSQL para consulta cancelada (statement_timeout)
+    private static final String QUERY_CANCELED = "57014";
+
+    // Rotas do ranking: agregações sobre todos os perfis
+    private static final List<String> RANKING_PATHS = List.of(
+            "/api/v1/profiles/ranking/**",
+            "/api/v1/statistics/ranking/**",
+            "/api/v1/statistics/averages/**",
+            "/api/v1/statistics/max/**");
+
+    private static final List<String> SEARCH_PATHS = List.of(
+            "/api/v1/profiles/search",
+            "/api/v1/profiles/search/slice",
+            "/api/v1/profiles/autocomplete",
+            "/api/v1/profiles/location/**",
+            "/api/v1/profiles/experience/**");
+
+    // Transferências longas (exportação e envio de fotos) distorceriam a latência medida
+    private static final List<String> EXCLUDED_PATHS = List.of(
+            "/api/v1/activities/user/*/export",
+            "/api/v1/profiles/*/profile-picture",
+            "/api/v1/profiles/*/profile-picture/**");
+
+    private final LimitGroup ranking;
+    private final LimitGroup search;
+    private final LimitGroup writes;
+    private final LimitGroup reads;
+    private final int retryAfterSeconds;
+
+    public ConcurrencyLimitFilter(LimitGroup ranking, LimitGroup search, LimitGroup writes, LimitGroup reads,
+                                  int retryAfterSeconds) {
+        this.ranking = ranking;
+        this.search = search;
+        this.writes = writes;
+        this.reads = reads;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.startsWith("/api/")
+                || HttpMethod.OPTIONS.matches(request.getMethod())
+                || matchesAny(EXCLUDED_PATHS, path);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        LimitGroup group = groupOf(request);
+        AdaptiveConcurrencyLimit.Permit permit = group.limit().tryAcquire();
+        if (permit == null) {
+            group.rejected().increment();
+            log.debug("Requisição {} {} recusada: limite de concorrência do grupo {} atingido ({})",
+                    request.getMethod(), request.getRequestURI(), group.name(), group.limit().getLimit());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("Serviço sobrecarregado, tente novamente em instantes");
+            return;
+        }
+
+        long start = System.nanoTime();
+        Throwable failure = null;
+        try {
+            filterChain.doFilter(request, response);
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (failure == null) {
+                // Exceções tratadas por um @ExceptionHandler não chegam aqui, mas ficam expostas na requisição
+                failure = (Throwable) request.getAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE);
+            }
+            permit.release(System.nanoTime() - start, isOverload(failure));
+        }
+    }
+
+    /**
+     * Indica se a falha, em qualquer ponto da cadeia de causas, é um timeout ou a falta de conexão no pool.
+     */
+    static boolean isOverload(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause() == cause ? null : cause.getCause()) {
+            if (cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLTimeoutException
+                    || cause instanceof TimeoutException
+                    || cause instanceof org.springframework.dao.QueryTimeoutException
+                    || cause instanceof jakarta.persistence.QueryTimeoutException
+                    || cause instanceof SQLException sqlException && QUERY_CANCELED.equals(sqlException.getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private LimitGroup groupOf(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!HttpMethod.GET.matches(method) && !HttpMethod.HEAD.matches(method)) {
+            return writes;
+        }
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (matchesAny(RANKING_PATHS, path)) {
+            return ranking;
+        }
+        if (matchesAny(SEARCH_PATHS, path)) {
+            return search;
+        }
+        return reads;
+    }
+
+    private static boolean matchesAny(List<String> patterns, String path) {
+        for (String pattern : patterns) {
+            if (PATH_MATCHER.match(pattern, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public record LimitGroup(String name, AdaptiveConcurrencyLimit limit, Counter rejected) {
+    }
+}
@@ -2,11 +2,13 @@ package com.namata.userprofile.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
@@ -14,6 +16,10 @@ import org.springframework.transaction.PlatformTransactionManager;
 
 import jakarta.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 
 @Configuration
@@ -32,7 +38,7 @@ public class DatabaseConfig {
     @Value("${spring.datasource.driver-class-name}")
     private String databaseDriverClassName;
 
-    @Value("${spring.jpa.hibernate.ddl-auto:update}")
+    @Value("${spring.jpa.hibernate.ddl-auto:validate}")
     private String hibernateDdlAuto;
 
     @Value("${spring.jpa.show-sql:false}")
@@ -41,20 +47,82 @@ public class DatabaseConfig {
     @Value("${spring.jpa.properties.hibernate.format_sql:false}")
     private boolean formatSql;
 
+    // Modo de execução em threads virtuais (Tomcat e @Async); ativa também o limitador de conexões
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreadsEnabled;
+
+    // URLs JDBC das réplicas de leitura, separadas por vírgula; vazio desliga o roteamento
+    @Value("${app.datasource.replicas.urls:}")
+    private List<String> replicaUrls;
+
+    @Value("${app.datasource.replicas.max-lag-ms:2000}")
+    private long replicaMaxLagMs;
+
+    @Value("${app.datasource.replicas.lag-check-interval-ms:5000}")
+    private long replicaLagCheckIntervalMs;
+
+    @Value("${app.datasource.replicas.read-your-writes-window-ms:5000}")
+    private long readYourWritesWindowMs;
+
+    // Também define o teto de cada grupo do limite de concorrência (ConcurrencyLimitConfig)
+    static final int MAXIMUM_POOL_SIZE = 20;
+    private static final long CONNECTION_TIMEOUT_MS = 30000;
+
+    // O bean exposto é o proxy preguiçoso, que não tem close(): os pools roteados são encerrados aqui
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
     @Bean
     @Primary
     public DataSource dataSource() {
+        List<String> urls = replicaUrls.stream().filter(url -> !url.isBlank()).toList();
+        if (urls.isEmpty()) {
+            return createPool(databaseUrl, "primary", false);
+        }
+
+        // O proxy adia a obtenção da conexão até o primeiro comando, quando já se sabe se a transação é somente leitura
+        LazyConnectionDataSourceProxy lazyDataSource = new LazyConnectionDataSourceProxy();
+        readWriteRoutingDataSource = readWriteRoutingDataSource(urls);
+        lazyDataSource.setTargetDataSource(readWriteRoutingDataSource);
+        lazyDataSource.setDefaultAutoCommit(false);
+        lazyDataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        lazyDataSource.afterPropertiesSet();
+        return lazyDataSource;
+    }
+
+    @PreDestroy
+    public void closeRoutedPools() throws Exception {
+        if (readWriteRoutingDataSource != null) {
+            readWriteRoutingDataSource.close();
+        }
+    }
+
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource(List<String> urls) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            replicas.add(createPool(urls.get(i).trim(), "replica-" + i, true));
+        }
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(
+                createPool(databaseUrl, "primary", false), replicas,
+                Duration.ofMillis(replicaMaxLagMs), Duration.ofMillis(replicaLagCheckIntervalMs),
+                Duration.ofMillis(readYourWritesWindowMs));
+        routingDataSource.afterPropertiesSet();
+        return routingDataSource;
+    }
+
+    private DataSource createPool(String jdbcUrl, String poolName, boolean readOnly) {
         HikariConfig config = new HikariConfig();
-        config.setJdbcUrl(databaseUrl);
+        config.setPoolName(poolName);
+        config.setJdbcUrl(jdbcUrl);
+        config.setReadOnly(readOnly);
         config.setUsername(databaseUsername);
         config.setPassword(databasePassword);
         config.setDriverClassName(databaseDriverClassName);
         config.setAutoCommit(false);
         
         // Configurações de pool de conexões
-        config.setMaximumPoolSize(20);
+        config.setMaximumPoolSize(MAXIMUM_POOL_SIZE);
         config.setMinimumIdle(5);
-        config.setConnectionTimeout(30000);
+        config.setConnectionTimeout(CONNECTION_TIMEOUT_MS);
         config.setIdleTimeout(600000);
         config.setMaxLifetime(1800000);
         config.setLeakDetectionThreshold(60000);
@@ -63,7 +131,12 @@ public class DatabaseConfig {
         config.setConnectionTestQuery("SELECT 1");
         config.setValidationTimeout(5000);
         
-        return new HikariDataSource(config);
+        HikariDataSource hikariDataSource = new HikariDataSource(config);
+        if (!virtualThreadsEnabled) {
+            return hikariDataSource;
+        }
+        // Threads virtuais não limitam a concorrência: no máximo uma thread por conexão do pool
+        return new ConnectionLimitingDataSource(hikariDataSource, MAXIMUM_POOL_SIZE, Duration.ofMillis(CONNECTION_TIMEOUT_MS));
     }
 
     @Bean
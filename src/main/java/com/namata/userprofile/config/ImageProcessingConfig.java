@@ -0,0 +1,33 @@
+package com.namata.userprofile.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class ImageProcessingConfig {
+
+    @Value("${app.upload.profile-pictures.processing.threads:2}")
+    private int processingThreads;
+
+    @Value("${app.upload.profile-pictures.processing.queue-capacity:50}")
+    private int queueCapacity;
+
+    @Bean(name = "imageProcessingExecutor")
+    public ThreadPoolTaskExecutor imageProcessingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(processingThreads);
+        executor.setMaxPoolSize(processingThreads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("image-processing-");
+        // Fila cheia: rejeita em vez de decodificar na thread da requisição; a miniatura é gerada na próxima leitura
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,233 @@
+package com.namata.userprofile.config;
+
+import com.namata.userprofile.util.ExpiringCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+/**
+ * Envia transações somente leitura para as réplicas e as demais para o primário.
+ * Uma réplica só recebe leituras se a última verificação de atraso (lag) ficou abaixo do limite; sem réplica
+ * disponível a leitura vai para o primário. Depois de uma escrita confirmada, as leituras do mesmo usuário
+ * (sujeito autenticado) ficam no primário durante a janela de read-your-writes.
+ * Deve ficar atrás de um {@code LazyConnectionDataSourceProxy}: a rota só é decidida no primeiro comando,
+ * quando o marcador de somente leitura da transação já está definido.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private static final String PRIMARY = "primary";
+    // Acima disso sai a janela aberta há mais tempo: esse usuário pode voltar a ler da réplica antes do prazo
+    private static final int MAX_TRACKED_WRITERS = 100_000;
+
+    private static final String PRIMARY_LSN_QUERY = "SELECT pg_current_wal_lsn()";
+
+    // Sem atraso só quando a réplica já aplicou tudo o que o primário tinha gravado no início da verificação.
+    // Comparar com o que a própria réplica recebeu não basta: com o receptor de WAL desconectado não chega nada
+    // novo, recebido e aplicado ficam iguais e a réplica pareceria em dia para sempre. Sem a posição do primário
+    // (parâmetro nulo) vale o tempo desde a última transação aplicada. Um primário (fora de recuperação) conta como zero.
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_wal_lsn_diff(pg_last_wal_replay_lsn(), CAST(? AS pg_lsn)) >= 0 THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final long maxLagMillis;
+    private final long lagCheckIntervalMillis;
+    private final Duration readYourWritesWindow;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final ExpiringCache<String, Boolean> recentWriters = new ExpiringCache<>(MAX_TRACKED_WRITERS);
+    private final ScheduledExecutorService lagMonitor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-lag-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicaDataSources, Duration maxLag,
+                                      Duration lagCheckInterval, Duration readYourWritesWindow) {
+        this.primary = primary;
+        this.replicas = IntStream.range(0, replicaDataSources.size())
+                .mapToObj(i -> new Replica("replica-" + i, replicaDataSources.get(i)))
+                .toList();
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagCheckIntervalMillis = lagCheckInterval.toMillis();
+        this.readYourWritesWindow = readYourWritesWindow;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        replicas.forEach(replica -> targets.put(replica.name, replica.dataSource));
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        super.afterPropertiesSet();
+        lagMonitor.scheduleWithFixedDelay(this::checkReplicaLag, 0, lagCheckIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String subject = currentSubject();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            recordWriteOnCommit(subject);
+            return PRIMARY;
+        }
+        if (subject != null && isWithinReadYourWritesWindow(subject)) {
+            return PRIMARY;
+        }
+        Replica replica = selectReplica();
+        return replica != null ? replica.name : PRIMARY;
+    }
+
+    /**
+     * Encerra o monitor de atraso e os pools do primário e das réplicas.
+     */
+    @Override
+    public void close() throws Exception {
+        lagMonitor.shutdownNow();
+        closeIfPossible(primary);
+        for (Replica replica : replicas) {
+            closeIfPossible(replica.dataSource);
+        }
+    }
+
+    /**
+     * Round-robin entre as réplicas saudáveis e com atraso dentro do limite.
+     */
+    private Replica selectReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        log.debug("Nenhuma réplica disponível, leitura enviada ao primário");
+        return null;
+    }
+
+    private void checkReplicaLag() {
+        String primaryLsn = primaryLsn();
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try (Connection connection = replica.dataSource.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(LAG_QUERY)) {
+                statement.setQueryTimeout(queryTimeoutSeconds());
+                statement.setString(1, primaryLsn);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    replica.lagMillis = resultSet.getLong(1);
+                }
+                connection.rollback();
+                replica.available = replica.lagMillis <= maxLagMillis;
+            } catch (Exception e) {
+                replica.available = false;
+                log.warn("Falha ao verificar atraso da réplica {}: {}", replica.name, e.getMessage());
+            }
+            if (wasAvailable != replica.available) {
+                log.info("Réplica {} {} (atraso: {} ms)", replica.name,
+                        replica.available ? "disponível para leituras" : "retirada das leituras", replica.lagMillis);
+            }
+        }
+    }
+
+    /**
+     * Posição atual do WAL no primário, ou null se o primário não responder (as réplicas passam a ser avaliadas
+     * só pelo tempo desde a última transação aplicada).
+     */
+    private String primaryLsn() {
+        try (Connection connection = primary.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.setQueryTimeout(queryTimeoutSeconds());
+            String lsn;
+            try (ResultSet resultSet = statement.executeQuery(PRIMARY_LSN_QUERY)) {
+                resultSet.next();
+                lsn = resultSet.getString(1);
+            }
+            connection.rollback();
+            return lsn;
+        } catch (Exception e) {
+            log.warn("Falha ao consultar a posição do WAL no primário: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private int queryTimeoutSeconds() {
+        return (int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(lagCheckIntervalMillis));
+    }
+
+    /**
+     * Registra a escrita do usuário após o commit, abrindo a janela de read-your-writes.
+     */
+    private void recordWriteOnCommit(String subject) {
+        if (subject == null || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                recentWriters.put(subject, Boolean.TRUE, readYourWritesWindow);
+            }
+        });
+    }
+
+    private boolean isWithinReadYourWritesWindow(String subject) {
+        return recentWriters.get(subject) != null;
+    }
+
+    private static String currentSubject() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+
+    private static void closeIfPossible(DataSource dataSource) throws Exception {
+        if (dataSource instanceof DelegatingDataSource delegating) {
+            dataSource = delegating.getTargetDataSource();
+        }
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean available;
+        volatile long lagMillis;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import java.time.Duration;
 import java.util.Arrays;
 
 @Configuration
@@ -26,6 +27,12 @@ public class SecurityConfig {
     @Value("${app.auth.jwt.secret}")
     private String jwtSecret;
 
+    @Value("${app.auth.jwt.cache.max-entries:50000}")
+    private int jwtCacheMaxEntries;
+
+    @Value("${app.auth.jwt.cache.max-ttl-seconds:900}")
+    private long jwtCacheMaxTtlSeconds;
+
     @Bean
     @Order(1)
     public SecurityFilterChain actuatorFilterChain(HttpSecurity http) throws Exception {
@@ -67,10 +74,12 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/api/v1/statistics/max/**").permitAll()
                         // Endpoints de ranking e busca pública de perfis
                         .requestMatchers(HttpMethod.GET, "/api/v1/profiles/ranking/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/v1/profiles/search").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/profiles/search", "/api/v1/profiles/search/slice").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/v1/profiles/autocomplete").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/profiles/location/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/profiles/experience/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/v1/profiles/active").permitAll()
+                        .requestMatchers("/api/v1/saved-trails/popular/**", "/api/v1/saved-trails/popular").permitAll()
 
                         // Endpoints que requerem autenticação
                         .requestMatchers("/api/v1/profiles/**").authenticated()
@@ -96,9 +105,11 @@ public class SecurityConfig {
         try {
             // Usar o mesmo método que o auth-service para garantir compatibilidade
             byte[] keyBytes = jwtSecret.getBytes();
-            return NimbusJwtDecoder.withSecretKey(new javax.crypto.spec.SecretKeySpec(keyBytes, "HmacSHA256"))
+            NimbusJwtDecoder decoder = NimbusJwtDecoder.withSecretKey(new javax.crypto.spec.SecretKeySpec(keyBytes, "HmacSHA256"))
                     .macAlgorithm(org.springframework.security.oauth2.jose.jws.MacAlgorithm.HS256)
                     .build();
+            // Clientes móveis reutilizam o mesmo token em muitas chamadas: verificação e parse feitos uma vez
+            return new CachingJwtDecoder(decoder, jwtCacheMaxEntries, Duration.ofSeconds(jwtCacheMaxTtlSeconds));
         } catch (Exception e) {
             // Fallback para evitar falha na inicialização
             System.err.println("Erro ao configurar JWT Decoder: " + e.getMessage());
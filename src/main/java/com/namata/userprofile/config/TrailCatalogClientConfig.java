@@ -0,0 +1,61 @@
+package com.namata.userprofile.config;
+
+import com.namata.userprofile.client.CachingTrailCatalogClient;
+import com.namata.userprofile.client.HttpTrailCatalogClient;
+import com.namata.userprofile.client.StubTrailCatalogClient;
+import com.namata.userprofile.client.TrailCatalogClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+
+@Configuration
+public class TrailCatalogClientConfig {
+
+    @Value("${app.services.trail-service.url:http://localhost:8085}")
+    private String trailServiceUrl;
+
+    // http: chama o trail-service; stub: catálogo em memória (testes e desenvolvimento local)
+    @Value("${app.services.trail-service.mode:http}")
+    private String mode;
+
+    @Value("${app.services.trail-service.connect-timeout-ms:2000}")
+    private int connectTimeoutMs;
+
+    @Value("${app.services.trail-service.read-timeout-ms:3000}")
+    private int readTimeoutMs;
+
+    @Value("${app.services.trail-service.cache.max-entries:50000}")
+    private int cacheMaxEntries;
+
+    @Value("${app.services.trail-service.cache.ttl-minutes:30}")
+    private long cacheTtlMinutes;
+
+    @Value("${app.services.trail-service.cache.negative-ttl-minutes:2}")
+    private long cacheNegativeTtlMinutes;
+
+    @Value("${app.services.trail-service.batch-size:200}")
+    private int batchSize;
+
+    @Bean
+    public TrailCatalogClient trailCatalogClient(RestClient.Builder restClientBuilder) {
+        TrailCatalogClient delegate;
+        if ("stub".equalsIgnoreCase(mode)) {
+            delegate = new StubTrailCatalogClient();
+        } else {
+            SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+            requestFactory.setConnectTimeout(connectTimeoutMs);
+            requestFactory.setReadTimeout(readTimeoutMs);
+            delegate = new HttpTrailCatalogClient(restClientBuilder
+                    .baseUrl(trailServiceUrl)
+                    .requestFactory(requestFactory)
+                    .build());
+        }
+        return new CachingTrailCatalogClient(delegate, cacheMaxEntries, batchSize,
+                Duration.ofMinutes(cacheTtlMinutes), Duration.ofMinutes(cacheNegativeTtlMinutes),
+                Duration.ofMillis(connectTimeoutMs + readTimeoutMs));
+    }
+}
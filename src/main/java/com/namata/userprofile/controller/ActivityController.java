@@ -14,12 +14,17 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/v1/activities")
@@ -81,6 +86,48 @@ public class ActivityController {
         }
     }
 
+    @GetMapping("/user/{userId}/export")
+    @Operation(summary = "Exportar atividades do usuário", description = "Exporta todo o histórico de atividades do usuário em NDJSON, opcionalmente compactado com gzip")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Histórico de atividades em NDJSON"),
+        @ApiResponse(responseCode = "403", description = "Exportação de outro usuário"),
+        @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    public ResponseEntity<StreamingResponseBody> exportUserActivities(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "Compactar a resposta com gzip") @RequestParam(defaultValue = "false") boolean gzip,
+            Authentication authentication) {
+        log.info("Exportando atividades do usuário ID: {} (gzip: {})", userId, gzip);
+
+        if (!isOwnerOrAdmin(authentication, userId)) {
+            log.warn("Exportação das atividades do usuário ID: {} negada para {}", userId,
+                    authentication != null ? authentication.getName() : null);
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+        if (!activityService.userProfileExists(userId)) {
+            return ResponseEntity.notFound().build();
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            if (gzip) {
+                GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, 8192);
+                activityService.exportUserActivities(userId, gzipOutputStream);
+                gzipOutputStream.finish();
+            } else {
+                activityService.exportUserActivities(userId, outputStream);
+            }
+        };
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"activities-" + userId + ".ndjson\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+
     @GetMapping("/user/{userId}/type/{type}")
     @Operation(summary = "Listar atividades por tipo", description = "Retorna atividades de um usuário filtradas por tipo")
     @ApiResponse(responseCode = "200", description = "Lista de atividades por tipo")
@@ -272,4 +319,11 @@ public class ActivityController {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                 .body("Erro interno do servidor");
     }
-}
\ No newline at end of file
+
+    // O histórico inclui atividades privadas: só o próprio usuário (sub do token) ou um administrador exporta
+    private static boolean isOwnerOrAdmin(Authentication authentication, UUID userId) {
+        return authentication != null && (userId.toString().equals(authentication.getName())
+                || authentication.getAuthorities().stream()
+                        .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority())));
+    }
+}
@@ -1,31 +1,47 @@
 package com.namata.userprofile.controller;
 
+import com.namata.userprofile.dto.BatchProfileRequest;
 import com.namata.userprofile.dto.CreateUserProfileRequest;
+import com.namata.userprofile.dto.InitiateUploadRequest;
+import com.namata.userprofile.dto.ProfilePageDTO;
+import com.namata.userprofile.dto.ProfileSuggestionDTO;
+import com.namata.userprofile.dto.ProfileSummaryDTO;
+import com.namata.userprofile.dto.ResumableUploadDTO;
+import com.namata.userprofile.dto.SimilarProfileDTO;
 import com.namata.userprofile.dto.UpdateUserProfileRequest;
 import com.namata.userprofile.dto.UserProfileDTO;
 import com.namata.userprofile.entity.Achievement;
 import com.namata.userprofile.entity.UserProfile;
 import com.namata.userprofile.service.AchievementService;
+import com.namata.userprofile.service.DisplayNameIndex;
+import com.namata.userprofile.service.ProfilePageService;
+import com.namata.userprofile.service.ResumableUploadService;
 import com.namata.userprofile.service.UserProfileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/profiles")
@@ -36,6 +52,9 @@ public class UserProfileController {
 
     private final UserProfileService userProfileService;
     private final AchievementService achievementService;
+    private final DisplayNameIndex displayNameIndex;
+    private final ResumableUploadService resumableUploadService;
+    private final ProfilePageService profilePageService;
 
     @PostMapping
     @Operation(summary = "Criar perfil de usuário", description = "Cria um novo perfil de usuário")
@@ -52,6 +71,26 @@ public class UserProfileController {
         return ResponseEntity.status(HttpStatus.CREATED).body(profile);
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Buscar perfis em lote", description = "Retorna resumos de até 1000 perfis em uma única consulta, com projeção opcional de campos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Resumos dos perfis encontrados"),
+        @ApiResponse(responseCode = "400", description = "Lista inválida ou campo desconhecido")
+    })
+    public ResponseEntity<List<ProfileSummaryDTO>> getProfilesBatch(
+            @Valid @RequestBody BatchProfileRequest request,
+            @Parameter(description = "Campos a retornar, separados por vírgula (ex.: displayName)") @RequestParam(required = false) String fields) {
+        log.info("Buscando {} perfis em lote (fields: {})", request.getUserIds().size(), fields);
+
+        Set<String> requestedFields = fields == null ? Set.of() : Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+
+        List<ProfileSummaryDTO> profiles = userProfileService.getProfileSummaries(request.getUserIds(), requestedFields);
+        return ResponseEntity.ok(profiles);
+    }
+
     @GetMapping("/user/{userId}")
     @Operation(summary = "Buscar perfil por ID do usuário", description = "Retorna o perfil de um usuário específico")
     @ApiResponses(value = {
@@ -67,6 +106,39 @@ public class UserProfileController {
                      .orElse(ResponseEntity.notFound().build());
     }
 
+    @GetMapping("/user/{userId}/page")
+    @Operation(summary = "Página de perfil", description = "Retorna em um único documento o perfil, estatísticas formatadas, conquistas, atividades recentes, total de trilhas salvas e badges. Seções indisponíveis vêm nulas e listadas em unavailableSections")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Página de perfil, possivelmente parcial"),
+        @ApiResponse(responseCode = "404", description = "Perfil não encontrado")
+    })
+    public ResponseEntity<ProfilePageDTO> getProfilePage(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId) {
+        log.info("Buscando página de perfil do usuário ID: {}", userId);
+
+        return profilePageService.getProfilePage(userId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/user/{userId}/similar")
+    @Operation(summary = "Trilheiros semelhantes", description = "Retorna perfis com experiência, interesses, tipo de exploração, localização e estatísticas parecidos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Perfis semelhantes, do mais para o menos parecido"),
+        @ApiResponse(responseCode = "404", description = "Perfil não encontrado ou inativo")
+    })
+    public ResponseEntity<List<SimilarProfileDTO>> getSimilarProfiles(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "Limite de resultados") @RequestParam(defaultValue = "10") int limit) {
+        log.info("Buscando perfis semelhantes ao usuário ID: {}", userId);
+
+        try {
+            return ResponseEntity.ok(userProfileService.getSimilarProfiles(userId, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/ranking/points")
     @Operation(summary = "Ranking por pontos", description = "Retorna o ranking de usuários ordenado por pontos totais")
     @ApiResponse(responseCode = "200", description = "Ranking por pontos")
@@ -210,12 +282,41 @@ public class UserProfileController {
             @Parameter(description = "Nome de exibição") @RequestParam(required = false) String displayName,
             @Parameter(description = "Localização") @RequestParam(required = false) String location,
             @Parameter(description = "Nível de experiência") @RequestParam(required = false) UserProfile.ExperienceLevel experienceLevel,
+            @Parameter(description = "Interesses, separados por vírgula") @RequestParam(required = false) List<UserProfile.Interest> interests,
+            @Parameter(description = "Combinação dos interesses: any ou all") @RequestParam(defaultValue = "any") String match,
             @PageableDefault(size = 20) Pageable pageable) {
         log.info("Pesquisando perfis com filtros - displayName: {}, location: {}, experienceLevel: {}", 
                 displayName, location, experienceLevel);
         
         Page<UserProfileDTO> profiles = userProfileService.searchProfiles(
-                displayName, location, experienceLevel, pageable);
+                displayName, location, experienceLevel, interests, isMatchAll(match), pageable);
+        return ResponseEntity.ok(profiles);
+    }
+
+    @GetMapping("/autocomplete")
+    @Operation(summary = "Autocomplete de nomes", description = "Sugere perfis ativos cujo nome de exibição começa com o prefixo, ordenados por pontos, a partir do índice em memória")
+    @ApiResponse(responseCode = "200", description = "Sugestões de perfis")
+    public ResponseEntity<List<ProfileSuggestionDTO>> autocomplete(
+            @Parameter(description = "Prefixo do nome de exibição") @RequestParam String prefix,
+            @Parameter(description = "Limite de resultados") @RequestParam(defaultValue = "10") int limit) {
+        return ResponseEntity.ok(displayNameIndex.suggest(prefix, limit));
+    }
+
+    @GetMapping("/search/slice")
+    @Operation(summary = "Pesquisar perfis sem contagem", description = "Pesquisa perfis com filtros retornando apenas a página atual e se há próxima, sem calcular o total")
+    @ApiResponse(responseCode = "200", description = "Resultados da pesquisa")
+    public ResponseEntity<Slice<UserProfileDTO>> searchProfilesSlice(
+            @Parameter(description = "Nome de exibição") @RequestParam(required = false) String displayName,
+            @Parameter(description = "Localização") @RequestParam(required = false) String location,
+            @Parameter(description = "Nível de experiência") @RequestParam(required = false) UserProfile.ExperienceLevel experienceLevel,
+            @Parameter(description = "Interesses, separados por vírgula") @RequestParam(required = false) List<UserProfile.Interest> interests,
+            @Parameter(description = "Combinação dos interesses: any ou all") @RequestParam(defaultValue = "any") String match,
+            @PageableDefault(size = 20) Pageable pageable) {
+        log.info("Pesquisando perfis (slice) com filtros - displayName: {}, location: {}, experienceLevel: {}",
+                displayName, location, experienceLevel);
+
+        Slice<UserProfileDTO> profiles = userProfileService.searchProfilesSlice(
+                displayName, location, experienceLevel, interests, isMatchAll(match), pageable);
         return ResponseEntity.ok(profiles);
     }
 
@@ -291,6 +392,119 @@ public class UserProfileController {
         }
     }
 
+    @PostMapping("/{userId}/profile-picture/uploads")
+    @Operation(summary = "Iniciar upload retomável", description = "Inicia um upload de foto de perfil enviado em trechos")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "201", description = "Upload iniciado"),
+        @ApiResponse(responseCode = "400", description = "Dados inválidos ou usuário não encontrado")
+    })
+    public ResponseEntity<ResumableUploadDTO> initiateProfilePictureUpload(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Valid @RequestBody InitiateUploadRequest request) {
+        log.info("Recebida solicitação para iniciar upload retomável para usuário ID: {}", userId);
+        
+        try {
+            ResumableUploadDTO upload = resumableUploadService.initiateUpload(userId, request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(upload);
+        } catch (IllegalArgumentException e) {
+            log.warn("Upload retomável rejeitado: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/{userId}/profile-picture/uploads/{uploadId}")
+    @Operation(summary = "Consultar upload retomável", description = "Retorna o progresso confirmado de um upload retomável")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Progresso retornado"),
+        @ApiResponse(responseCode = "404", description = "Upload não encontrado")
+    })
+    public ResponseEntity<ResumableUploadDTO> getProfilePictureUpload(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "ID do upload") @PathVariable UUID uploadId) {
+        try {
+            return ResponseEntity.ok(resumableUploadService.getUpload(userId, uploadId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    @PutMapping(value = "/{userId}/profile-picture/uploads/{uploadId}", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Enviar trecho do upload", description = "Grava um trecho do arquivo a partir do offset informado")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Trecho gravado"),
+        @ApiResponse(responseCode = "400", description = "Trecho inválido ou upload não encontrado"),
+        @ApiResponse(responseCode = "409", description = "Offset diverge do progresso confirmado")
+    })
+    public ResponseEntity<ResumableUploadDTO> uploadProfilePictureChunk(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "ID do upload") @PathVariable UUID uploadId,
+            @Parameter(description = "Posição do primeiro byte do trecho") @RequestParam long offset,
+            HttpServletRequest request) {
+        try {
+            return ResponseEntity.ok(resumableUploadService.uploadChunk(userId, uploadId, offset, request.getInputStream()));
+        } catch (IllegalStateException e) {
+            log.warn("Conflito no upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(resumableUploadService.getUpload(userId, uploadId));
+        } catch (IllegalArgumentException e) {
+            log.warn("Trecho rejeitado no upload {}: {}", uploadId, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Erro ao gravar trecho do upload {}: {}", uploadId, e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @PostMapping("/{userId}/profile-picture/uploads/{uploadId}/complete")
+    @Operation(summary = "Concluir upload retomável", description = "Define o arquivo recebido como foto de perfil")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Foto atualizada com sucesso"),
+        @ApiResponse(responseCode = "404", description = "Upload não encontrado"),
+        @ApiResponse(responseCode = "409", description = "Upload incompleto")
+    })
+    public ResponseEntity<UserProfileDTO> completeProfilePictureUpload(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "ID do upload") @PathVariable UUID uploadId) {
+        log.info("Recebida solicitação para concluir upload {} do usuário ID: {}", uploadId, userId);
+        
+        try {
+            return ResponseEntity.ok(resumableUploadService.completeUpload(userId, uploadId));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            log.error("Erro ao concluir upload retomável: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    @DeleteMapping("/{userId}/profile-picture/uploads/{uploadId}")
+    @Operation(summary = "Cancelar upload retomável", description = "Descarta um upload retomável em andamento")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "204", description = "Upload cancelado"),
+        @ApiResponse(responseCode = "404", description = "Upload não encontrado")
+    })
+    public ResponseEntity<Void> abortProfilePictureUpload(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Parameter(description = "ID do upload") @PathVariable UUID uploadId) {
+        try {
+            resumableUploadService.abortUpload(userId, uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    private static boolean isMatchAll(String match) {
+        if ("all".equalsIgnoreCase(match)) {
+            return true;
+        }
+        if ("any".equalsIgnoreCase(match)) {
+            return false;
+        }
+        throw new IllegalArgumentException("Valor inválido para match: " + match + " (use any ou all)");
+    }
+
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgumentException(IllegalArgumentException e) {
         log.error("Erro de argumento inválido: {}", e.getMessage());
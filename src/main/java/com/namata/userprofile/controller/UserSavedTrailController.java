@@ -1,7 +1,10 @@
 package com.namata.userprofile.controller;
 
 import com.namata.userprofile.dto.SaveTrailRequest;
+import com.namata.userprofile.dto.TrailIdsRequest;
+import com.namata.userprofile.dto.TrailPopularityDTO;
 import com.namata.userprofile.dto.UserSavedTrailDTO;
+import com.namata.userprofile.service.TrailPopularityIndex;
 import com.namata.userprofile.service.UserSavedTrailService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -19,6 +22,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,6 +34,7 @@ import java.util.UUID;
 public class UserSavedTrailController {
 
     private final UserSavedTrailService userSavedTrailService;
+    private final TrailPopularityIndex trailPopularityIndex;
 
     @PostMapping("/user/{userId}")
     @Operation(summary = "Salvar trilha", description = "Salva uma trilha para o usuário")
@@ -134,6 +139,26 @@ public class UserSavedTrailController {
         }
     }
 
+    @PostMapping("/user/{userId}/is-saved")
+    @Operation(summary = "Verificar trilhas salvas em lote", description = "Retorna, para cada trilha informada, se está salva pelo usuário")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Mapa de trilha para status salvo"),
+        @ApiResponse(responseCode = "400", description = "Lista de trilhas inválida"),
+        @ApiResponse(responseCode = "404", description = "Usuário não encontrado")
+    })
+    public ResponseEntity<Map<UUID, Boolean>> areTrailsSaved(
+            @Parameter(description = "ID do usuário") @PathVariable UUID userId,
+            @Valid @RequestBody TrailIdsRequest request) {
+        log.info("Verificando {} trilhas salvas do usuário ID: {}", request.getTrailIds().size(), userId);
+        
+        try {
+            return ResponseEntity.ok(userSavedTrailService.areTrailsSaved(userId, request.getTrailIds()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Erro ao verificar trilhas salvas: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/user/{userId}/trail/{trailId}/details")
     @Operation(summary = "Obter detalhes da trilha salva", description = "Retorna os detalhes da trilha salva pelo usuário, incluindo o ID")
     @ApiResponses(value = {
@@ -192,4 +217,32 @@ public class UserSavedTrailController {
             return ResponseEntity.notFound().build();
         }
     }
-}
\ No newline at end of file
+
+    @GetMapping("/popular")
+    @Operation(summary = "Trilhas mais populares", description = "Retorna as trilhas em alta (decaimento semanal) ou as mais salvas, a partir de contadores em memória")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Lista de trilhas populares"),
+        @ApiResponse(responseCode = "400", description = "Critério de ordenação inválido")
+    })
+    public ResponseEntity<List<TrailPopularityDTO>> getPopularTrails(
+            @Parameter(description = "Critério: trending ou saved") @RequestParam(defaultValue = "trending") String sort,
+            @Parameter(description = "Número máximo de trilhas") @RequestParam(defaultValue = "10") int limit) {
+        if ("trending".equalsIgnoreCase(sort)) {
+            return ResponseEntity.ok(trailPopularityIndex.getTopTrending(limit));
+        }
+        if ("saved".equalsIgnoreCase(sort)) {
+            return ResponseEntity.ok(trailPopularityIndex.getMostSaved(limit));
+        }
+        return ResponseEntity.badRequest().build();
+    }
+
+    @PostMapping("/popular/counts")
+    @Operation(summary = "Contagem de salvamentos em lote", description = "Retorna quantos usuários salvaram cada trilha informada")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Mapa de trilha para número de salvamentos"),
+        @ApiResponse(responseCode = "400", description = "Lista de trilhas inválida")
+    })
+    public ResponseEntity<Map<UUID, Long>> getSavedCounts(@Valid @RequestBody TrailIdsRequest request) {
+        return ResponseEntity.ok(trailPopularityIndex.getSavedCounts(request.getTrailIds()));
+    }
+}
@@ -0,0 +1,37 @@
+package com.namata.userprofile.dto;
+
+import com.namata.userprofile.entity.Achievement;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AchievementDTO {
+    private UUID id;
+    private BadgeDTO badge;
+    private String description;
+    private Integer progress;
+    private Boolean isCompleted;
+    private LocalDateTime earnedAt;
+    private LocalDateTime completedAt;
+
+    // Exige o badge já carregado (JOIN FETCH)
+    public static AchievementDTO fromEntity(Achievement achievement) {
+        return AchievementDTO.builder()
+                .id(achievement.getId())
+                .badge(BadgeDTO.fromEntity(achievement.getBadge()))
+                .description(achievement.getDescription())
+                .progress(achievement.getProgress())
+                .isCompleted(achievement.getIsCompleted())
+                .earnedAt(achievement.getEarnedAt())
+                .completedAt(achievement.getCompletedAt())
+                .build();
+    }
+}
@@ -0,0 +1,22 @@
+package com.namata.userprofile.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchProfileRequest {
+
+    @NotEmpty(message = "Lista de IDs de usuário é obrigatória")
+    @Size(max = 1000, message = "Máximo de 1000 usuários por requisição")
+    private List<UUID> userIds;
+}
@@ -0,0 +1,25 @@
+package com.namata.userprofile.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InitiateUploadRequest {
+
+    private String fileName;
+
+    @NotBlank(message = "Tipo de conteúdo é obrigatório")
+    private String contentType;
+
+    @NotNull(message = "Tamanho total é obrigatório")
+    @Positive(message = "Tamanho total deve ser positivo")
+    private Long totalSize;
+}
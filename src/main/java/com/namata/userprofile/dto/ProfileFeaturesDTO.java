@@ -0,0 +1,24 @@
+package com.namata.userprofile.dto;
+
+import com.namata.userprofile.entity.UserProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfileFeaturesDTO {
+    private UUID userId;
+    private String location;
+    private UserProfile.ExperienceLevel experienceLevel;
+    private Integer interestsMask;
+    private UserProfile.ExplorationType explorationType;
+    private Double totalDistanceKm;
+    private Double totalElevationGainM;
+    private Integer totalTrailsCompleted;
+}
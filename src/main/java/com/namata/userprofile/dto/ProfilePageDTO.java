@@ -0,0 +1,26 @@
+package com.namata.userprofile.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Tela de perfil em um único documento. Seções que falharam ou estouraram o tempo ficam null
+ * e são listadas em {@code unavailableSections}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfilePageDTO {
+    private UserProfileDTO profile;
+    private FormattedStatisticsDTO statistics;
+    private List<AchievementDTO> achievements;
+    private List<ActivityDTO> recentActivities;
+    private Long savedTrailsCount;
+    private List<BadgeDTO> badges;
+    private List<String> unavailableSections;
+}
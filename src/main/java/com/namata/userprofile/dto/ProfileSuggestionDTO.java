@@ -0,0 +1,19 @@
+package com.namata.userprofile.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProfileSuggestionDTO {
+    private UUID userId;
+    private String displayName;
+    private String profilePictureUrl;
+    private Integer totalPoints;
+}
@@ -0,0 +1,35 @@
+package com.namata.userprofile.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.namata.userprofile.entity.UserProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL) // Campos fora da projeção (fields=) não são serializados
+public class ProfileSummaryDTO {
+    private UUID userId;
+    private String displayName;
+    private String profilePictureUrl;
+    private String location;
+    private UserProfile.ExperienceLevel experienceLevel;
+    private Boolean isVerified;
+
+    // Estatísticas básicas
+    private Integer totalTrailsCompleted;
+    private Integer totalBadgesEarned;
+    private Integer totalPoints;
+
+    // Projeção JPQL só com campos do perfil, sem junção com estatísticas
+    public ProfileSummaryDTO(UUID userId, String displayName, String profilePictureUrl, String location,
+                             UserProfile.ExperienceLevel experienceLevel, Boolean isVerified) {
+        this(userId, displayName, profilePictureUrl, location, experienceLevel, isVerified, null, null, null);
+    }
+}
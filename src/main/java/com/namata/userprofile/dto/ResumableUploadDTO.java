@@ -0,0 +1,23 @@
+package com.namata.userprofile.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResumableUploadDTO {
+
+    private UUID uploadId;
+    private UUID userId;
+    private Long totalSize;
+    private Long receivedBytes;
+    private Boolean isComplete;
+    private LocalDateTime expiresAt;
+}
@@ -0,0 +1,24 @@
+package com.namata.userprofile.dto;
+
+import com.namata.userprofile.entity.UserProfile;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimilarProfileDTO {
+    private UUID userId;
+    private String displayName;
+    private String profilePictureUrl;
+    private String location;
+    private UserProfile.ExperienceLevel experienceLevel;
+    private Integer totalTrailsCompleted;
+    private Integer totalPoints;
+    private Double similarity; // 0-1, maior = mais parecido
+}
@@ -0,0 +1,22 @@
+package com.namata.userprofile.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrailIdsRequest {
+
+    @NotEmpty(message = "Lista de IDs de trilha é obrigatória")
+    @Size(max = 500, message = "Máximo de 500 trilhas por requisição")
+    private List<UUID> trailIds;
+}
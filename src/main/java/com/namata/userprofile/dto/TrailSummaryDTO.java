@@ -0,0 +1,24 @@
+package com.namata.userprofile.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TrailSummaryDTO {
+
+    private UUID id;
+    private String name;
+    private String description;
+    private String difficultyLevel;
+    private String distanceKm;
+    private String durationHours;
+}
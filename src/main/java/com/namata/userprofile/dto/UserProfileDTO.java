@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Data
@@ -22,6 +23,7 @@ public class UserProfileDTO {
     private String displayName;
     private String bio;
     private String profilePictureUrl;
+    private Map<Integer, String> profilePictureThumbnailUrls; // URLs por tamanho (64, 256, 1024 px)
     private LocalDate dateOfBirth;
     private UserProfile.Gender gender;
     private String location;
@@ -1,5 +1,6 @@
 package com.namata.userprofile.entity;
 
+import com.namata.userprofile.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -24,7 +25,7 @@ public class Badge {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "UUID", type = UuidV7Generator.class)
     private UUID id;
 
     @Column(name = "name", unique = true, nullable = false, length = 100)
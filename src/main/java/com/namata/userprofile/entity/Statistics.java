@@ -1,12 +1,14 @@
 package com.namata.userprofile.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.namata.userprofile.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.GenericGenerator;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,6 +17,7 @@ import java.util.UUID;
 
 @Entity
 @Table(name = "statistics")
+@DynamicUpdate // UPDATE só com as colunas alteradas, não a linha inteira
 @Data
 @Builder
 @NoArgsConstructor
@@ -23,7 +26,7 @@ public class Statistics {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "UUID", type = UuidV7Generator.class)
     private UUID id;
 
     @OneToOne(fetch = FetchType.LAZY)
@@ -31,6 +34,14 @@ public class Statistics {
     @JsonIgnore
     private UserProfile userProfile;
 
+    // Contadores de alta frequência (curtidas, comentários, sequências, última atividade), gravados em statistics_counters
+    @OneToOne(fetch = FetchType.LAZY, optional = false, cascade = CascadeType.ALL)
+    @JoinColumn(name = "user_profile_id", referencedColumnName = "user_profile_id",
+            insertable = false, updatable = false)
+    @JsonIgnore
+    @Builder.Default
+    private StatisticsCounters counters = StatisticsCounters.builder().build();
+
     // Estatísticas de trilhas
     @Column(name = "total_trails_completed")
     @Builder.Default
@@ -65,14 +76,6 @@ public class Statistics {
     @Builder.Default
     private Integer totalReviewsPosted = 0;
 
-    @Column(name = "total_likes_received")
-    @Builder.Default
-    private Integer totalLikesReceived = 0;
-
-    @Column(name = "total_comments_received")
-    @Builder.Default
-    private Integer totalCommentsReceived = 0;
-
     // Estatísticas de conquistas
     @Column(name = "total_badges_earned")
     @Builder.Default
@@ -82,14 +85,6 @@ public class Statistics {
     @Builder.Default
     private Integer totalPoints = 0;
 
-    @Column(name = "current_streak")
-    @Builder.Default
-    private Integer currentStreak = 0; // Dias consecutivos de atividade
-
-    @Column(name = "longest_streak")
-    @Builder.Default
-    private Integer longestStreak = 0;
-
     // Estatísticas sociais
     @Column(name = "total_followers")
     @Builder.Default
@@ -120,6 +115,10 @@ public class Statistics {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
-    @Column(name = "last_activity_at")
-    private LocalDateTime lastActivityAt;
-}
\ No newline at end of file
+    @PrePersist
+    private void assignCountersKey() {
+        if (counters.getUserProfileId() == null) {
+            counters.setUserProfileId(userProfile.getId());
+        }
+    }
+}
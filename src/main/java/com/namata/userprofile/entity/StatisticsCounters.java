@@ -0,0 +1,52 @@
+package com.namata.userprofile.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Contadores de alta frequência de escrita de {@link Statistics}, em uma tabela estreita à parte.
+ * Curtidas, comentários, sequências e última atividade mudam a todo momento; separados da linha larga
+ * de estatísticas, cada mudança grava só esta linha pequena, sem gatilho de updated_at e sem colunas
+ * indexadas além da chave, o que permite atualizações HOT (fillfactor reduzido na migração V3).
+ */
+@Entity
+@Table(name = "statistics_counters")
+@DynamicUpdate
+@BatchSize(size = 50)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatisticsCounters {
+
+    @Id
+    @Column(name = "user_profile_id")
+    private UUID userProfileId; // Mesma chave da linha de statistics (user_profile_id)
+
+    @Column(name = "total_likes_received", nullable = false)
+    @Builder.Default
+    private Integer totalLikesReceived = 0;
+
+    @Column(name = "total_comments_received", nullable = false)
+    @Builder.Default
+    private Integer totalCommentsReceived = 0;
+
+    @Column(name = "current_streak", nullable = false)
+    @Builder.Default
+    private Integer currentStreak = 0; // Dias consecutivos de atividade
+
+    @Column(name = "longest_streak", nullable = false)
+    @Builder.Default
+    private Integer longestStreak = 0;
+
+    @Column(name = "last_activity_at")
+    private LocalDateTime lastActivityAt;
+}
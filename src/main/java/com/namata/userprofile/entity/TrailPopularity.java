@@ -0,0 +1,35 @@
+package com.namata.userprofile.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(name = "trail_popularity")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrailPopularity {
+
+    @Id
+    @Column(name = "trail_id")
+    private UUID trailId; // ID da trilha (referência para trail-service)
+
+    @Builder.Default
+    @Column(name = "saved_count", nullable = false)
+    private Long savedCount = 0L;
+
+    // Pontuação de tendência com decaimento exponencial, válida no instante score_updated_at
+    @Builder.Default
+    @Column(name = "trending_score", nullable = false)
+    private Double trendingScore = 0.0;
+
+    @Column(name = "score_updated_at", nullable = false)
+    private LocalDateTime scoreUpdatedAt;
+}
@@ -1,6 +1,7 @@
 package com.namata.userprofile.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.namata.userprofile.util.UuidV7Generator;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,6 +13,8 @@ import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -25,7 +28,7 @@ public class UserProfile {
 
     @Id
     @GeneratedValue(generator = "UUID")
-    @GenericGenerator(name = "UUID", strategy = "org.hibernate.id.UUIDGenerator")
+    @GenericGenerator(name = "UUID", type = UuidV7Generator.class)
     private UUID id;
 
     @Column(name = "user_id", unique = true, nullable = false)
@@ -40,6 +43,12 @@ public class UserProfile {
     @Column(name = "profile_picture_url")
     private String profilePictureUrl;
 
+    // Miniaturas da foto atual já geradas; gravado ao fim da geração e zerado quando a foto muda
+    @Column(name = "profile_picture_thumbnails", nullable = false, columnDefinition = "boolean not null default false")
+    @Builder.Default
+    @JsonIgnore
+    private Boolean profilePictureThumbnails = false;
+
     @Column(name = "date_of_birth")
     private LocalDate dateOfBirth;
 
@@ -65,6 +74,21 @@ public class UserProfile {
     @JsonIgnore
     private List<Interest> interests;
 
+    // Cópia de interests como bitmask (bit = ordinal do enum) para filtrar sem join
+    @Column(name = "interests_mask", nullable = false, columnDefinition = "integer not null default 0")
+    @Builder.Default
+    private Integer interestsMask = 0;
+
+    // Colunas geradas pelo banco (V1): minúsculas e sem acentos, consultadas pela busca por trigramas.
+    // Mapeadas só para leitura, para que o ddl-auto validate acuse um esquema sem elas.
+    @Column(name = "display_name_normalized", insertable = false, updatable = false)
+    @JsonIgnore
+    private String displayNameNormalized;
+
+    @Column(name = "location_normalized", insertable = false, updatable = false)
+    @JsonIgnore
+    private String locationNormalized;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "exploration_type")
     private ExplorationType explorationType;
@@ -111,10 +135,37 @@ public class UserProfile {
         BEGINNER, INTERMEDIATE, ADVANCED, EXPERT
     }
 
+    // Novos valores devem ser adicionados ao final: o ordinal define o bit em interests_mask
     public enum Interest {
         HIKING, TREKKING, MOUNTAIN_CLIMBING, NATURE_PHOTOGRAPHY, 
         BIRD_WATCHING, CAMPING, ROCK_CLIMBING, TRAIL_RUNNING,
-        ADVENTURE_SPORTS, ECO_TOURISM
+        ADVENTURE_SPORTS, ECO_TOURISM;
+
+        public int bit() {
+            return 1 << ordinal();
+        }
+
+        public static int toMask(Collection<Interest> interests) {
+            int mask = 0;
+            if (interests != null) {
+                for (Interest interest : interests) {
+                    mask |= interest.bit();
+                }
+            }
+            return mask;
+        }
+
+        public static List<Interest> fromMask(Integer mask) {
+            List<Interest> interests = new ArrayList<>();
+            if (mask != null) {
+                for (Interest interest : values()) {
+                    if ((mask & interest.bit()) != 0) {
+                        interests.add(interest);
+                    }
+                }
+            }
+            return interests;
+        }
     }
 
     public enum ExplorationType {
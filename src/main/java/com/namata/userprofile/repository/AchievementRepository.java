@@ -17,6 +17,12 @@ public interface AchievementRepository extends JpaRepository<Achievement, UUID>
 
     List<Achievement> findByUserProfileOrderByEarnedAtDesc(UserProfile userProfile);
 
+    @Query("SELECT a FROM Achievement a JOIN FETCH a.badge WHERE a.userProfile = :userProfile ORDER BY a.earnedAt DESC")
+    List<Achievement> findWithBadgeByUserProfile(@Param("userProfile") UserProfile userProfile);
+
+    @Query("SELECT DISTINCT a.badge FROM Achievement a WHERE a.userProfile = :userProfile AND a.isCompleted = true")
+    List<Badge> findEarnedBadgesByUserProfile(@Param("userProfile") UserProfile userProfile);
+
     List<Achievement> findByUserProfileAndIsCompletedTrueOrderByCompletedAtDesc(UserProfile userProfile);
 
     List<Achievement> findByUserProfileAndIsCompletedFalseOrderByEarnedAtDesc(UserProfile userProfile);
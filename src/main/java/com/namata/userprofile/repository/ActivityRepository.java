@@ -2,16 +2,20 @@ package com.namata.userprofile.repository;
 
 import com.namata.userprofile.entity.Activity;
 import com.namata.userprofile.entity.UserProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ActivityRepository extends JpaRepository<Activity, UUID> {
@@ -20,6 +24,19 @@ public interface ActivityRepository extends JpaRepository<Activity, UUID> {
 
     Page<Activity> findByUserProfileOrderByCreatedAtDesc(UserProfile userProfile, Pageable pageable);
 
+    // Sem consulta de contagem: só as N atividades mais recentes
+    @Query("SELECT a FROM Activity a JOIN FETCH a.userProfile WHERE a.userProfile = :userProfile ORDER BY a.createdAt DESC")
+    List<Activity> findRecentByUserProfile(@Param("userProfile") UserProfile userProfile, Pageable pageable);
+
+    // Cursor do lado do servidor para exportação: exige transação aberta e autocommit desligado
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT a FROM Activity a WHERE a.userProfile = :userProfile ORDER BY a.createdAt DESC")
+    Stream<Activity> streamByUserProfileOrderByCreatedAtDesc(@Param("userProfile") UserProfile userProfile);
+
     List<Activity> findByUserProfileAndTypeOrderByCreatedAtDesc(UserProfile userProfile, Activity.ActivityType type);
 
     List<Activity> findByUserProfileAndType(UserProfile userProfile, Activity.ActivityType type);
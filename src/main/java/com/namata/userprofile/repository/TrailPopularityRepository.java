@@ -0,0 +1,54 @@
+package com.namata.userprofile.repository;
+
+import com.namata.userprofile.entity.TrailPopularity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface TrailPopularityRepository extends JpaRepository<TrailPopularity, UUID> {
+
+    /**
+     * Soma deltas aos contadores persistidos; a pontuação existente é decaída até {@code :now} antes da soma.
+     */
+    @Transactional
+    @Modifying
+    @Query(value = """
+            INSERT INTO trail_popularity (trail_id, saved_count, trending_score, score_updated_at)
+            VALUES (:trailId, GREATEST(:countDelta, 0), GREATEST(:scoreDelta, 0), :now)
+            ON CONFLICT (trail_id) DO UPDATE SET
+                saved_count = GREATEST(trail_popularity.saved_count + :countDelta, 0),
+                trending_score = GREATEST(trail_popularity.trending_score
+                        * power(2, -extract(epoch FROM (:now - trail_popularity.score_updated_at)) / :halfLifeSeconds)
+                        + :scoreDelta, 0),
+                score_updated_at = :now
+            """, nativeQuery = true)
+    int addDeltas(@Param("trailId") UUID trailId,
+                  @Param("countDelta") long countDelta,
+                  @Param("scoreDelta") double scoreDelta,
+                  @Param("now") LocalDateTime now,
+                  @Param("halfLifeSeconds") double halfLifeSeconds);
+
+    /**
+     * Preenche a tabela a partir de user_saved_trails (usado quando ainda não há contadores persistidos).
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO trail_popularity (trail_id, saved_count, trending_score, score_updated_at)
+            SELECT trail_id, count(*),
+                   sum(power(2, -extract(epoch FROM (:now - saved_at)) / :halfLifeSeconds)),
+                   :now
+            FROM user_saved_trails
+            WHERE is_active = true
+            GROUP BY trail_id
+            ON CONFLICT (trail_id) DO NOTHING
+            """, nativeQuery = true)
+    int backfillFromSavedTrails(@Param("now") LocalDateTime now,
+                                @Param("halfLifeSeconds") double halfLifeSeconds);
+}
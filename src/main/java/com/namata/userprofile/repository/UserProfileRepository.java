@@ -1,20 +1,47 @@
 package com.namata.userprofile.repository;
 
+import com.namata.userprofile.dto.ProfileFeaturesDTO;
+import com.namata.userprofile.dto.ProfileSuggestionDTO;
+import com.namata.userprofile.dto.ProfileSummaryDTO;
 import com.namata.userprofile.entity.UserProfile;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserProfileRepository extends JpaRepository<UserProfile, UUID> {
 
+    // Filtros da busca de perfis sobre as colunas normalizadas indexadas por trigramas (V1/V2).
+    // % e _ digitados pelo usuário são escapados (barra invertida é o escape padrão do LIKE) e casam literalmente.
+    String SEARCH_FILTERS =
+            "WHERE up.is_active = true " +
+            "AND (CAST(:displayName AS text) IS NULL OR up.display_name_normalized LIKE '%' || " +
+            "replace(replace(replace(lower(f_unaccent(CAST(:displayName AS text))), '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%') " +
+            "AND (CAST(:location AS text) IS NULL OR up.location_normalized LIKE '%' || " +
+            "replace(replace(replace(lower(f_unaccent(CAST(:location AS text))), '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%') " +
+            "AND (CAST(:experienceLevel AS text) IS NULL OR up.experience_level = CAST(:experienceLevel AS text)) " +
+            "AND (CAST(:interestMasks AS text) IS NULL OR up.interests_mask = ANY(CAST(:interestMasks AS integer[]))) ";
+
+    String SEARCH_RANKING =
+            "ORDER BY COALESCE(similarity(up.display_name_normalized, lower(f_unaccent(CAST(:displayName AS text)))), 0) + " +
+            "COALESCE(similarity(up.location_normalized, lower(f_unaccent(CAST(:location AS text)))), 0) DESC, up.id";
+
     Optional<UserProfile> findByUserId(UUID userId);
 
     List<UserProfile> findByIsActiveTrue();
@@ -24,29 +51,97 @@ public interface UserProfileRepository extends JpaRepository<UserProfile, UUID>
     @Query("SELECT up FROM UserProfile up WHERE up.isActive = true AND up.isVerified = true")
     List<UserProfile> findActiveVerifiedProfiles();
 
-    @Query("SELECT up FROM UserProfile up WHERE up.location LIKE %:location% AND up.isActive = true")
+    @Query(value = "SELECT up.* FROM user_profiles up " +
+                   "WHERE up.is_active = true " +
+                   "AND up.location_normalized LIKE '%' || " +
+                   "replace(replace(replace(lower(f_unaccent(:location)), '\\', '\\\\'), '%', '\\%'), '_', '\\_') || '%' " +
+                   "ORDER BY similarity(up.location_normalized, lower(f_unaccent(:location))) DESC, up.id",
+           nativeQuery = true)
     List<UserProfile> findByLocationContainingAndIsActiveTrue(@Param("location") String location);
 
     @Query("SELECT up FROM UserProfile up WHERE up.experienceLevel = :level AND up.isActive = true")
     List<UserProfile> findByExperienceLevelAndIsActiveTrue(@Param("level") UserProfile.ExperienceLevel level);
 
-    @Query("SELECT up FROM UserProfile up WHERE " +
-           "(:displayName IS NULL OR LOWER(up.displayName) LIKE LOWER(CONCAT('%', :displayName, '%'))) AND " +
-           "(:location IS NULL OR LOWER(up.location) LIKE LOWER(CONCAT('%', :location, '%'))) AND " +
-           "(:experienceLevel IS NULL OR up.experienceLevel = :experienceLevel) AND " +
-           "up.isActive = true")
+    @Query(value = "SELECT up.* FROM user_profiles up " + SEARCH_FILTERS + SEARCH_RANKING,
+           countQuery = "SELECT COUNT(*) FROM user_profiles up " + SEARCH_FILTERS,
+           nativeQuery = true)
     Page<UserProfile> findProfilesWithFilters(
             @Param("displayName") String displayName,
             @Param("location") String location,
-            @Param("experienceLevel") UserProfile.ExperienceLevel experienceLevel,
+            @Param("experienceLevel") String experienceLevel,
+            @Param("interestMasks") String interestMasks,
+            Pageable pageable
+    );
+
+    // Variante sem COUNT(*): busca pageSize + 1 linhas apenas para saber se há próxima página
+    @Query(value = "SELECT up.* FROM user_profiles up " + SEARCH_FILTERS + SEARCH_RANKING,
+           nativeQuery = true)
+    Slice<UserProfile> findProfilesSliceWithFilters(
+            @Param("displayName") String displayName,
+            @Param("location") String location,
+            @Param("experienceLevel") String experienceLevel,
+            @Param("interestMasks") String interestMasks,
             Pageable pageable
     );
 
+    @Query("SELECT new com.namata.userprofile.dto.ProfileSuggestionDTO(up.userId, up.displayName, up.profilePictureUrl, COALESCE(s.totalPoints, 0)) " +
+           "FROM UserProfile up LEFT JOIN up.statistics s " +
+           "WHERE up.isActive = true AND up.displayName IS NOT NULL")
+    List<ProfileSuggestionDTO> findActiveProfileSuggestions();
+
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT new com.namata.userprofile.dto.ProfileFeaturesDTO(up.userId, up.location, up.experienceLevel, " +
+           "up.interestsMask, up.explorationType, s.totalDistanceKm, s.totalElevationGainM, s.totalTrailsCompleted) " +
+           "FROM UserProfile up LEFT JOIN up.statistics s " +
+           "WHERE up.isActive = true")
+    Stream<ProfileFeaturesDTO> streamActiveProfileFeatures();
+
+    // Sem carregar entidades: UserProfile.statistics é o lado inverso do @OneToOne e geraria um SELECT por perfil
+    @Query("SELECT new com.namata.userprofile.dto.ProfileSummaryDTO(up.userId, up.displayName, up.profilePictureUrl, " +
+           "up.location, up.experienceLevel, up.isVerified) " +
+           "FROM UserProfile up " +
+           "WHERE up.userId IN :userIds")
+    List<ProfileSummaryDTO> findProfileSummariesWithoutStatisticsByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT new com.namata.userprofile.dto.ProfileSummaryDTO(up.userId, up.displayName, up.profilePictureUrl, " +
+           "up.location, up.experienceLevel, up.isVerified, " +
+           "COALESCE(s.totalTrailsCompleted, 0), COALESCE(s.totalBadgesEarned, 0), COALESCE(s.totalPoints, 0)) " +
+           "FROM UserProfile up LEFT JOIN up.statistics s " +
+           "WHERE up.userId IN :userIds")
+    List<ProfileSummaryDTO> findSummariesByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
     @Query("SELECT COUNT(up) FROM UserProfile up WHERE up.isActive = true")
     long countActiveProfiles();
 
     @Query("SELECT COUNT(up) FROM UserProfile up WHERE up.isVerified = true")
     long countVerifiedProfiles();
 
+    // Transação própria: chamado fora de transação (upload da foto), não deixa a conexão presa ao escopo do chamador
+    @Transactional(readOnly = true)
     boolean existsByUserId(UUID userId);
+
+    @Query("SELECT DISTINCT up.profilePictureUrl FROM UserProfile up WHERE up.profilePictureUrl IN :urls")
+    List<String> findReferencedProfilePictureUrls(@Param("urls") Collection<String> urls);
+
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE UserProfile up SET up.profilePictureUrl = :url, up.profilePictureThumbnails = false, " +
+           "up.updatedAt = :updatedAt WHERE up.userId = :userId")
+    int updateProfilePictureUrl(@Param("userId") UUID userId, @Param("url") String url,
+                                @Param("updatedAt") LocalDateTime updatedAt);
+
+    // Todos os perfis que usam a mesma foto (conteúdo deduplicado) compartilham as miniaturas
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserProfile up SET up.profilePictureThumbnails = true " +
+           "WHERE up.profilePictureUrl = :url AND up.profilePictureThumbnails = false")
+    int markProfilePictureThumbnails(@Param("url") String url);
+
+    @Query("SELECT DISTINCT up.profilePictureUrl FROM UserProfile up " +
+           "WHERE up.profilePictureThumbnails = false AND up.profilePictureUrl > :after " +
+           "ORDER BY up.profilePictureUrl")
+    List<String> findProfilePictureUrlsWithoutThumbnails(@Param("after") String after, Pageable pageable);
 }
\ No newline at end of file
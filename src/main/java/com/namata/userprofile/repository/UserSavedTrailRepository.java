@@ -9,6 +9,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -31,4 +32,59 @@ public interface UserSavedTrailRepository extends JpaRepository<UserSavedTrail,
 
     @Query("SELECT ust.trailId FROM UserSavedTrail ust WHERE ust.userProfile = :userProfile AND ust.isActive = true ORDER BY ust.savedAt DESC")
     List<UUID> findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(@Param("userProfile") UserProfile userProfile);
+
+    /**
+     * Salva ou reativa a trilha em um único comando. Não retorna linha quando o perfil não existe
+     * ou a trilha já está salva e ativa.
+     */
+    @Query(value = """
+            WITH upserted AS (
+                INSERT INTO user_saved_trails (id, user_profile_id, trail_id, notes, saved_at, is_active)
+                SELECT CAST(:id AS uuid), up.id, CAST(:trailId AS uuid), CAST(:notes AS varchar), now(), true
+                FROM user_profiles up
+                WHERE up.user_id = CAST(:userId AS uuid)
+                ON CONFLICT (user_profile_id, trail_id) DO UPDATE
+                    SET is_active = true, notes = EXCLUDED.notes
+                    WHERE user_saved_trails.is_active = false
+                RETURNING *
+            )
+            SELECT u.id AS "id", u.user_profile_id AS "userProfileId",
+                   up.display_name AS "userDisplayName", up.profile_picture_url AS "userProfilePictureUrl",
+                   u.trail_id AS "trailId", u.notes AS "notes", u.saved_at AS "savedAt", u.is_active AS "isActive"
+            FROM upserted u
+            JOIN user_profiles up ON up.id = u.user_profile_id
+            """, nativeQuery = true)
+    Optional<SavedTrailRow> upsertActive(@Param("id") UUID id,
+                                         @Param("userId") UUID userId,
+                                         @Param("trailId") UUID trailId,
+                                         @Param("notes") String notes);
+
+    /**
+     * Desativa a trilha salva em um único comando; retorna quantas linhas foram desativadas.
+     */
+    @Query(value = """
+            WITH deactivated AS (
+                UPDATE user_saved_trails ust
+                SET is_active = false
+                FROM user_profiles up
+                WHERE ust.user_profile_id = up.id
+                  AND up.user_id = CAST(:userId AS uuid)
+                  AND ust.trail_id = CAST(:trailId AS uuid)
+                  AND ust.is_active = true
+                RETURNING ust.id
+            )
+            SELECT count(*) FROM deactivated
+            """, nativeQuery = true)
+    long deactivate(@Param("userId") UUID userId, @Param("trailId") UUID trailId);
+
+    interface SavedTrailRow {
+        UUID getId();
+        UUID getUserProfileId();
+        String getUserDisplayName();
+        String getUserProfilePictureUrl();
+        UUID getTrailId();
+        String getNotes();
+        LocalDateTime getSavedAt();
+        Boolean getIsActive();
+    }
 }
\ No newline at end of file
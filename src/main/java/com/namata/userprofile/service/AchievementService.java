@@ -2,6 +2,8 @@ package com.namata.userprofile.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.namata.userprofile.dto.AchievementDTO;
+import com.namata.userprofile.dto.BadgeDTO;
 import com.namata.userprofile.entity.Achievement;
 import com.namata.userprofile.entity.Badge;
 import com.namata.userprofile.entity.UserProfile;
@@ -83,6 +85,20 @@ public class AchievementService {
         return achievementRepository.findByUserProfileOrderByEarnedAtDesc(userProfile);
     }
 
+    @Transactional(readOnly = true)
+    public List<AchievementDTO> getAchievements(UserProfile userProfile) {
+        return achievementRepository.findWithBadgeByUserProfile(userProfile).stream()
+                .map(AchievementDTO::fromEntity)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public List<BadgeDTO> getEarnedBadges(UserProfile userProfile) {
+        return achievementRepository.findEarnedBadgesByUserProfile(userProfile).stream()
+                .map(BadgeDTO::fromEntity)
+                .toList();
+    }
+
     @Transactional(readOnly = true)
     public List<Achievement> getUserCompletedAchievements(UUID userId) {
         UserProfile userProfile = userProfileRepository.findByUserId(userId)
@@ -1,21 +1,31 @@
 package com.namata.userprofile.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.namata.userprofile.dto.ActivityDTO;
 import com.namata.userprofile.entity.Activity;
 import com.namata.userprofile.entity.UserProfile;
 import com.namata.userprofile.repository.ActivityRepository;
 import com.namata.userprofile.repository.UserProfileRepository;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +35,8 @@ public class ActivityService {
 
     private final ActivityRepository activityRepository;
     private final UserProfileRepository userProfileRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
 
     public ActivityDTO createActivity(UUID userId, ActivityDTO activityDTO) {
         log.info("Criando atividade para usuário ID: {}", userId);
@@ -71,6 +83,57 @@ public class ActivityService {
                 .map(this::convertToDTO);
     }
 
+    @Transactional(readOnly = true)
+    public List<ActivityDTO> getRecentUserActivities(UserProfile userProfile, int limit) {
+        return activityRepository.findRecentByUserProfile(userProfile, PageRequest.of(0, limit))
+                .stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean userProfileExists(UUID userId) {
+        return userProfileRepository.existsByUserId(userId);
+    }
+
+    /**
+     * Exporta todo o histórico de atividades do usuário em NDJSON (um objeto JSON por linha).
+     * As linhas são lidas por cursor e escritas uma a uma, sem montar a lista completa em memória.
+     * O stream de saída não é fechado aqui.
+     * @return quantidade de atividades exportadas
+     */
+    @Transactional(readOnly = true)
+    public long exportUserActivities(UUID userId, OutputStream outputStream) throws IOException {
+        log.info("Exportando atividades do usuário ID: {}", userId);
+
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Perfil de usuário não encontrado"));
+
+        ObjectWriter writer = objectMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        long exported = 0;
+
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+             Stream<Activity> activities = activityRepository.streamByUserProfileOrderByCreatedAtDesc(userProfile)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            Iterator<Activity> iterator = activities.iterator();
+            while (iterator.hasNext()) {
+                Activity activity = iterator.next();
+                writer.writeValue(generator, convertToDTO(activity));
+                generator.writeRaw('\n');
+                // Libera a entidade do contexto de persistência para manter o heap estável
+                entityManager.detach(activity);
+                exported++;
+            }
+            generator.flush();
+        }
+
+        log.info("{} atividades exportadas para usuário ID: {}", exported, userId);
+        return exported;
+    }
+
     @Transactional(readOnly = true)
     public List<ActivityDTO> getUserActivitiesByType(UUID userId, Activity.ActivityType type) {
         UserProfile userProfile = userProfileRepository.findByUserId(userId)
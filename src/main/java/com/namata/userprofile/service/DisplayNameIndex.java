@@ -0,0 +1,233 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.ProfileSuggestionDTO;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.util.TransactionCallbacks;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Índice em memória de nomes de exibição dos perfis ativos para autocomplete.
+ * Os nomes normalizados (minúsculas, sem acentos) ficam ordenados, de modo que um prefixo
+ * corresponde a um intervalo contíguo; o top-N por pontos dos prefixos curtos fica em cache.
+ * Alterações só são aplicadas após o commit da transação corrente e são serializadas por um lock,
+ * junto com o preenchimento do cache de prefixos curtos; leituras não bloqueiam.
+ * O índice é reconstruído periodicamente a partir do banco, o que traz as alterações feitas por outras instâncias.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DisplayNameIndex {
+
+    public static final int MAX_LIMIT = 20;
+
+    // Prefixos curtos cobrem intervalos grandes, então o top-N deles é pré-calculado sob demanda
+    private static final int CACHED_PREFIX_LENGTH = 2;
+    private static final char KEY_SEPARATOR = '\u0000';
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private static final Comparator<ProfileSuggestionDTO> BY_POINTS =
+            Comparator.comparing(ProfileSuggestionDTO::getTotalPoints)
+                    .thenComparing(ProfileSuggestionDTO::getDisplayName, Comparator.reverseOrder());
+
+    private final UserProfileRepository userProfileRepository;
+
+    private final Map<String, List<ProfileSuggestionDTO>> topByShortPrefix = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private final Object rebuildLock = new Object();
+
+    // Trocado inteiro pelo rebuild; alterações sob writeLock
+    private volatile Names names = new Names();
+
+    // Alterações aplicadas durante um rebuild, reaplicadas sobre o índice novo antes da troca (guardado pelo writeLock)
+    private List<Consumer<Names>> pendingDuringRebuild;
+
+    /**
+     * Reconstrói o índice a partir do banco. A leitura preenche uma estrutura nova sem bloquear consultas nem
+     * alterações; o lock de escrita só é tomado para reaplicar as alterações ocorridas no meio tempo e trocar as estruturas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.display-names.rebuild-interval-ms:600000}",
+               initialDelayString = "${app.search.display-names.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            log.info("Construindo índice de nomes de exibição");
+            synchronized (writeLock) {
+                pendingDuringRebuild = new ArrayList<>();
+            }
+
+            Names rebuilt = new Names();
+            boolean loaded = false;
+            try {
+                userProfileRepository.findActiveProfileSuggestions().forEach(rebuilt::put);
+                loaded = true;
+            } catch (Exception e) {
+                log.error("Erro ao construir índice de nomes de exibição: {}", e.getMessage(), e);
+            }
+
+            synchronized (writeLock) {
+                if (loaded) {
+                    // Alterações são valores absolutos: reaplicar as que a leitura já viu não muda o resultado
+                    pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                    names = rebuilt;
+                    topByShortPrefix.clear();
+                    log.info("Índice de nomes de exibição construído com {} perfis", rebuilt.entries.size());
+                }
+                pendingDuringRebuild = null;
+            }
+        }
+    }
+
+    public List<ProfileSuggestionDTO> suggest(String prefix, int limit) {
+        String normalizedPrefix = normalize(prefix);
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (normalizedPrefix.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        if (normalizedPrefix.length() <= CACHED_PREFIX_LENGTH) {
+            List<ProfileSuggestionDTO> top = topByShortPrefix.get(normalizedPrefix);
+            if (top == null) {
+                // Sob o lock de escrita: nenhuma alteração pode invalidar o prefixo enquanto o top-N é calculado
+                synchronized (writeLock) {
+                    top = topByShortPrefix.computeIfAbsent(normalizedPrefix, p -> topN(p, MAX_LIMIT));
+                }
+            }
+            return top.subList(0, Math.min(boundedLimit, top.size()));
+        }
+        return topN(normalizedPrefix, boundedLimit);
+    }
+
+    public void upsert(UUID userId, String displayName, String profilePictureUrl, Integer totalPoints) {
+        afterCommit(target -> target.replace(userId, displayName, profilePictureUrl, totalPoints));
+    }
+
+    public void updatePoints(UUID userId, Integer totalPoints) {
+        afterCommit(target -> {
+            String key = target.keysByUserId.get(userId);
+            ProfileSuggestionDTO current = key != null ? target.entries.get(key) : null;
+            if (current != null) {
+                target.replace(userId, current.getDisplayName(), current.getProfilePictureUrl(), totalPoints);
+            }
+        });
+    }
+
+    public void remove(UUID userId) {
+        afterCommit(target -> target.removeEntry(userId));
+    }
+
+    public int size() {
+        return names.entries.size();
+    }
+
+    public static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Aplica a alteração após o commit da transação corrente, sob o lock de escrita.
+     * Durante um rebuild ela também é registrada para ser reaplicada na estrutura nova.
+     */
+    private void afterCommit(Consumer<Names> change) {
+        TransactionCallbacks.afterCommit(() -> {
+            synchronized (writeLock) {
+                change.accept(names);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(change);
+                }
+            }
+        });
+    }
+
+    private List<ProfileSuggestionDTO> topN(String normalizedPrefix, int limit) {
+        // Min-heap limitado: percorre o intervalo do prefixo mantendo apenas os N maiores
+        PriorityQueue<ProfileSuggestionDTO> heap = new PriorityQueue<>(limit + 1, BY_POINTS);
+        for (ProfileSuggestionDTO suggestion : names.entries.subMap(normalizedPrefix, normalizedPrefix + Character.MAX_VALUE).values()) {
+            heap.offer(suggestion);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        List<ProfileSuggestionDTO> result = new ArrayList<>(heap);
+        result.sort(BY_POINTS.reversed());
+        return Collections.unmodifiableList(result);
+    }
+
+    private void invalidateShortPrefixes(String key) {
+        int nameLength = key.indexOf(KEY_SEPARATOR);
+        for (int length = 1; length <= Math.min(CACHED_PREFIX_LENGTH, nameLength); length++) {
+            topByShortPrefix.remove(key.substring(0, length));
+        }
+    }
+
+    /**
+     * Nomes ordenados e a chave de cada usuário. Alterado apenas sob o lock de escrita, exceto a instância
+     * em construção pelo rebuild, que só é publicada na troca.
+     */
+    private final class Names {
+        // chave: nome normalizado + separador + userId (permite nomes repetidos)
+        private final ConcurrentSkipListMap<String, ProfileSuggestionDTO> entries = new ConcurrentSkipListMap<>();
+        private final Map<UUID, String> keysByUserId = new ConcurrentHashMap<>();
+
+        private void replace(UUID userId, String displayName, String profilePictureUrl, Integer totalPoints) {
+            removeEntry(userId);
+            if (displayName == null || displayName.isBlank()) {
+                return;
+            }
+            put(ProfileSuggestionDTO.builder()
+                    .userId(userId)
+                    .displayName(displayName)
+                    .profilePictureUrl(profilePictureUrl)
+                    .totalPoints(totalPoints != null ? totalPoints : 0)
+                    .build());
+        }
+
+        private void removeEntry(UUID userId) {
+            String key = keysByUserId.remove(userId);
+            if (key != null) {
+                entries.remove(key);
+                invalidate(key);
+            }
+        }
+
+        private void put(ProfileSuggestionDTO suggestion) {
+            String normalizedName = normalize(suggestion.getDisplayName());
+            if (normalizedName.isEmpty()) {
+                return;
+            }
+            String key = normalizedName + KEY_SEPARATOR + suggestion.getUserId();
+            entries.put(key, suggestion);
+            keysByUserId.put(suggestion.getUserId(), key);
+            invalidate(key);
+        }
+
+        // A instância em construção pelo rebuild não tem cache de prefixos: ele é limpo inteiro na troca
+        private void invalidate(String key) {
+            if (this == names) {
+                invalidateShortPrefixes(key);
+            }
+        }
+    }
+}
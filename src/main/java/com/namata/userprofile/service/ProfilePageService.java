@@ -0,0 +1,198 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.AchievementDTO;
+import com.namata.userprofile.dto.ActivityDTO;
+import com.namata.userprofile.dto.BadgeDTO;
+import com.namata.userprofile.dto.FormattedStatisticsDTO;
+import com.namata.userprofile.dto.ProfilePageDTO;
+import com.namata.userprofile.dto.UserProfileDTO;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Monta a tela de perfil em uma única chamada. O perfil é resolvido uma vez; as demais seções são buscadas
+ * em paralelo, cada uma em uma thread virtual e com o próprio prazo. Uma seção que falha ou estoura o prazo
+ * sai como null, sem derrubar a página. A tarefa não é interrompida (interromper uma thread em I/O JDBC fecha a
+ * conexão): cada seção roda em uma transação cujo {@code statement_timeout} é o tempo restante até o prazo,
+ * e o próprio PostgreSQL cancela a consulta atrasada.
+ * Cada seção ocupa uma conexão, e a página inteira passa pelo limite de concorrência como uma única requisição de
+ * leitura. Por isso as seções de todas as páginas em andamento dividem um número fixo de vagas
+ * ({@code app.profile-page.max-concurrent-sections}, abaixo do tamanho do pool): uma seção que não consegue vaga
+ * até o seu prazo sai como indisponível, e um pico de páginas de perfil não esgota o pool das demais rotas.
+ * Sem {@code @Transactional}: cada seção abre a própria transação, e esta thread não segura conexão enquanto espera.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ProfilePageService {
+
+    private final UserProfileRepository userProfileRepository;
+    private final UserProfileService userProfileService;
+    private final StatisticsService statisticsService;
+    private final AchievementService achievementService;
+    private final ActivityService activityService;
+    private final UserSavedTrailService userSavedTrailService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    // Propaga o usuário autenticado às seções (roteamento read-your-writes)
+    private final ExecutorService executor = new DelegatingSecurityContextExecutorService(
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("profile-page-", 0).factory()));
+
+    // Vagas de conexão compartilhadas pelas seções de todas as páginas
+    private Semaphore sectionPermits;
+
+    @Value("${app.profile-page.recent-activities:10}")
+    private int recentActivitiesLimit;
+
+    @Value("${app.profile-page.timeout-ms.statistics:500}")
+    private long statisticsTimeoutMs;
+
+    @Value("${app.profile-page.timeout-ms.achievements:800}")
+    private long achievementsTimeoutMs;
+
+    @Value("${app.profile-page.timeout-ms.activities:800}")
+    private long activitiesTimeoutMs;
+
+    @Value("${app.profile-page.timeout-ms.saved-trails:300}")
+    private long savedTrailsTimeoutMs;
+
+    @Value("${app.profile-page.timeout-ms.badges:500}")
+    private long badgesTimeoutMs;
+
+    public Optional<ProfilePageDTO> getProfilePage(UUID userId) {
+        Optional<UserProfile> found = userProfileRepository.findByUserId(userId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        UserProfile userProfile = found.get();
+
+        long startNanos = System.nanoTime();
+        Section<FormattedStatisticsDTO> statistics = fork("statistics", startNanos, statisticsTimeoutMs,
+                () -> statisticsService.getFormattedStatistics(userProfile));
+        Section<List<AchievementDTO>> achievements = fork("achievements", startNanos, achievementsTimeoutMs,
+                () -> achievementService.getAchievements(userProfile));
+        Section<List<ActivityDTO>> recentActivities = fork("recentActivities", startNanos, activitiesTimeoutMs,
+                () -> activityService.getRecentUserActivities(userProfile, recentActivitiesLimit));
+        Section<Long> savedTrailsCount = fork("savedTrailsCount", startNanos, savedTrailsTimeoutMs,
+                () -> userSavedTrailService.getSavedTrailsCount(userProfile));
+        Section<List<BadgeDTO>> badges = fork("badges", startNanos, badgesTimeoutMs,
+                () -> achievementService.getEarnedBadges(userProfile));
+
+        List<String> unavailableSections = new ArrayList<>();
+        ProfilePageDTO page = ProfilePageDTO.builder()
+                .statistics(statistics.join(startNanos, unavailableSections))
+                .achievements(achievements.join(startNanos, unavailableSections))
+                .recentActivities(recentActivities.join(startNanos, unavailableSections))
+                .savedTrailsCount(savedTrailsCount.join(startNanos, unavailableSections))
+                .badges(badges.join(startNanos, unavailableSections))
+                .unavailableSections(unavailableSections)
+                .build();
+        page.setProfile(toProfileDTO(userProfile, page.getStatistics()));
+        return Optional.of(page);
+    }
+
+    @Value("${app.profile-page.max-concurrent-sections:8}")
+    void setMaxConcurrentSections(int maxConcurrentSections) {
+        this.sectionPermits = new Semaphore(maxConcurrentSections, true);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Totais do perfil vêm da seção de estatísticas, sem consultá-las de novo
+    private UserProfileDTO toProfileDTO(UserProfile userProfile, FormattedStatisticsDTO statistics) {
+        UserProfileDTO profile = userProfileService.convertToDTOWithoutStats(userProfile);
+        if (statistics != null) {
+            profile.setTotalTrailsCompleted(statistics.getTotalTrailsCompleted());
+            profile.setTotalBadgesEarned(statistics.getTotalBadgesEarned());
+            profile.setTotalPoints(statistics.getTotalPoints());
+        }
+        return profile;
+    }
+
+    private <T> Section<T> fork(String name, long startNanos, long timeoutMs, Supplier<T> task) {
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        return new Section<>(name, timeoutNanos,
+                executor.submit(() -> withSectionPermit(startNanos + timeoutNanos, task)));
+    }
+
+    /**
+     * Espera uma vaga de conexão até o prazo da seção; sem vaga a seção falha por timeout.
+     */
+    private <T> T withSectionPermit(long deadlineNanos, Supplier<T> task) throws InterruptedException, TimeoutException {
+        if (!sectionPermits.tryAcquire(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+            throw new TimeoutException("Sem vaga para seções da página de perfil até o prazo");
+        }
+        try {
+            return withStatementTimeout(deadlineNanos, task);
+        } finally {
+            sectionPermits.release();
+        }
+    }
+
+    /**
+     * Executa a seção em uma transação somente leitura (as transações dos serviços participam dela) cujos
+     * comandos ficam limitados ao tempo que resta até o prazo da seção.
+     */
+    private <T> T withStatementTimeout(long deadlineNanos, Supplier<T> task) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> {
+            long remainingMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime()));
+            // Equivale a SET LOCAL: vale só até o fim desta transação, e a conexão volta ao pool sem o limite
+            entityManager.createNativeQuery("SELECT set_config('statement_timeout', :timeout, true)")
+                    .setParameter("timeout", remainingMs + "ms")
+                    .getSingleResult();
+            return task.get();
+        });
+    }
+
+    private record Section<T>(String name, long timeoutNanos, Future<T> future) {
+
+        /**
+         * Aguarda a seção até o seu prazo; em caso de falha, prazo estourado ou interrupção, registra a seção
+         * como indisponível e devolve null. A tarefa é cancelada sem interrupção: uma consulta em andamento
+         * termina pelo statement_timeout, sem fechar a conexão.
+         */
+        T join(long startNanos, List<String> unavailableSections) {
+            try {
+                long remaining = timeoutNanos - (System.nanoTime() - startNanos);
+                return future.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                log.warn("Seção {} da página de perfil excedeu {} ms", name, TimeUnit.NANOSECONDS.toMillis(timeoutNanos));
+            } catch (ExecutionException e) {
+                log.warn("Erro ao carregar seção {} da página de perfil: {}", name, e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            future.cancel(false);
+            unavailableSections.add(name);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.util.ImageMetadataStripper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Gera as miniaturas das fotos de perfil (64, 256 e 1024 px no maior lado) em um executor limitado.
+ * A imagem é decodificada uma única vez e cada tamanho é reduzido a partir do anterior; as miniaturas
+ * são regravadas em JPEG sem metadados (EXIF, GPS etc.), com a orientação EXIF já aplicada aos pixels.
+ * A geração é agendada só pelo upload e, ao terminar, marca {@code user_profiles.profile_picture_thumbnails};
+ * a montagem das URLs usa apenas essa marca, sem acessar o disco. Com a fila cheia a geração é descartada,
+ * nunca executada na thread da requisição: as URLs apontam para a original até a marca ser gravada, e
+ * miniaturas ausentes (fila cheia, fotos antigas) são retomadas pela reconciliação periódica.
+ */
+@Component
+@Slf4j
+public class ProfilePictureProcessor {
+
+    public static final List<Integer> THUMBNAIL_SIZES = List.of(1024, 256, 64);
+
+    private static final String THUMBNAIL_EXTENSION = ".jpg";
+    private static final float JPEG_QUALITY = 0.85f;
+    private static final long MAX_PIXELS = 50_000_000L;
+    private static final int MAX_FAILED_ENTRIES = 10_000;
+    private static final int RECONCILE_BATCH_SIZE = 200;
+
+    private final TaskExecutor imageProcessingExecutor;
+    private final UserProfileRepository userProfileRepository;
+
+    @Value("${app.upload.profile-pictures.directory}")
+    private String uploadDir;
+
+    // Originais com geração em andamento, e os que não puderam ser decodificados (não são tentados de novo)
+    private final Set<Path> pending = ConcurrentHashMap.newKeySet();
+    private final Set<Path> failed = ConcurrentHashMap.newKeySet();
+
+    public ProfilePictureProcessor(@Qualifier("imageProcessingExecutor") TaskExecutor imageProcessingExecutor,
+                                   UserProfileRepository userProfileRepository) {
+        this.imageProcessingExecutor = imageProcessingExecutor;
+        this.userProfileRepository = userProfileRepository;
+    }
+
+    /**
+     * Chamado pelo upload depois que a URL da foto foi gravada: marca as miniaturas se elas já existem
+     * (conteúdo deduplicado) ou agenda a geração, que marca os perfis ao terminar.
+     */
+    public CompletableFuture<Void> ensureThumbnails(String profilePictureUrl) {
+        Path original = resolve(profilePictureUrl);
+        if (original == null || failed.contains(original) || !Files.isRegularFile(original)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (hasThumbnails(original)) {
+            userProfileRepository.markProfilePictureThumbnails(profilePictureUrl);
+            return CompletableFuture.completedFuture(null);
+        }
+        return generateThumbnailsAsync(original);
+    }
+
+    /**
+     * Retoma as fotos referenciadas ainda sem a marca de miniaturas: gerações descartadas com a fila cheia,
+     * gerações concluídas antes da gravação da URL e fotos anteriores à marca.
+     */
+    @Scheduled(fixedDelayString = "${app.upload.profile-pictures.thumbnails.reconcile-interval-ms:600000}",
+               initialDelayString = "${app.upload.profile-pictures.thumbnails.reconcile-interval-ms:600000}")
+    public void reconcileThumbnails() {
+        String after = "";
+        int scheduled = 0;
+        List<String> urls;
+        do {
+            urls = userProfileRepository.findProfilePictureUrlsWithoutThumbnails(after,
+                    PageRequest.ofSize(RECONCILE_BATCH_SIZE));
+            for (String url : urls) {
+                if (!ensureThumbnails(url).isDone()) {
+                    scheduled++;
+                }
+            }
+            after = urls.isEmpty() ? after : urls.get(urls.size() - 1);
+        } while (urls.size() == RECONCILE_BATCH_SIZE);
+        if (scheduled > 0) {
+            log.info("Reconciliação de miniaturas: {} fotos agendadas", scheduled);
+        }
+    }
+
+    /**
+     * Agenda a geração das miniaturas; se a fila estiver cheia ou a geração já estiver em andamento, não faz nada.
+     */
+    public CompletableFuture<Void> generateThumbnailsAsync(Path original) {
+        if (!pending.add(original)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    generateThumbnails(original);
+                    userProfileRepository.markProfilePictureThumbnails(publicUrl(original));
+                } catch (IOException e) {
+                    if (failed.size() >= MAX_FAILED_ENTRIES) {
+                        failed.clear();
+                    }
+                    failed.add(original);
+                    log.error("Erro ao gerar miniaturas de {}: {}", original.getFileName(), e.getMessage(), e);
+                } finally {
+                    pending.remove(original);
+                }
+            }, imageProcessingExecutor);
+        } catch (RejectedExecutionException e) {
+            pending.remove(original);
+            log.warn("Fila de processamento de imagens cheia; miniaturas de {} ficam para a próxima reconciliação",
+                    original.getFileName());
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    public void generateThumbnails(Path original) throws IOException {
+        BufferedImage image = decode(original);
+        int orientation = ImageMetadataStripper.jpegOrientation(original);
+        String baseName = baseName(original.getFileName().toString());
+
+        // Do maior para o menor: cada redução parte da anterior, mais barata e com melhor qualidade
+        for (int i = 0; i < THUMBNAIL_SIZES.size(); i++) {
+            int size = THUMBNAIL_SIZES.get(i);
+            image = resize(image, size);
+            if (i == 0) {
+                // Depois da primeira redução, para girar menos pixels
+                image = orient(image, orientation);
+            }
+            Path target = original.resolveSibling(thumbnailFilename(baseName, size));
+            writeJpeg(image, target);
+        }
+        log.debug("Miniaturas geradas para {}", original.getFileName());
+    }
+
+    /**
+     * URLs públicas das miniaturas, por tamanho, a partir da marca gravada no perfil; sem a marca todos os
+     * tamanhos apontam para a foto original. Não acessa o disco. Retorna null quando a foto não está no
+     * diretório de uploads.
+     */
+    public Map<Integer, String> thumbnailUrls(String profilePictureUrl, boolean thumbnailsGenerated) {
+        Path original = resolve(profilePictureUrl);
+        if (original == null) {
+            return null;
+        }
+        String baseName = baseName(profilePictureUrl.substring(ProfilePictureStore.PUBLIC_PATH.length()));
+        Map<Integer, String> urls = new LinkedHashMap<>();
+        for (int size : THUMBNAIL_SIZES.reversed()) {
+            urls.put(size, thumbnailsGenerated
+                    ? ProfilePictureStore.PUBLIC_PATH + thumbnailFilename(baseName, size)
+                    : profilePictureUrl);
+        }
+        return urls;
+    }
+
+    private boolean hasThumbnails(Path original) {
+        String baseName = baseName(original.getFileName().toString());
+        return THUMBNAIL_SIZES.stream()
+                .allMatch(size -> Files.isRegularFile(original.resolveSibling(thumbnailFilename(baseName, size))));
+    }
+
+    // Caminho da foto no diretório de uploads; null para URLs externas ou que escapam do diretório
+    private Path resolve(String profilePictureUrl) {
+        if (profilePictureUrl == null || !profilePictureUrl.startsWith(ProfilePictureStore.PUBLIC_PATH)) {
+            return null;
+        }
+        Path root = root();
+        Path original = root.resolve(profilePictureUrl.substring(ProfilePictureStore.PUBLIC_PATH.length())).normalize();
+        return original.startsWith(root) && !original.equals(root) ? original : null;
+    }
+
+    private String publicUrl(Path original) {
+        return ProfilePictureStore.PUBLIC_PATH + root().relativize(original).toString().replace('\\', '/');
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir).normalize();
+    }
+
+    static String thumbnailFilename(String baseName, int size) {
+        return baseName + "_" + size + THUMBNAIL_EXTENSION;
+    }
+
+    private static String baseName(String filename) {
+        int dot = filename.lastIndexOf('.');
+        return dot > 0 ? filename.substring(0, dot) : filename;
+    }
+
+    private BufferedImage decode(Path original) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            if (input == null) {
+                throw new IOException("Não foi possível ler a imagem");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new IOException("Formato de imagem não suportado");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true); // ignora metadados na leitura
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_PIXELS) {
+                    throw new IOException("Imagem muito grande: " + pixels + " pixels");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Aplica aos pixels a orientação EXIF (1 a 8): as miniaturas são gravadas sem metadados.
+     */
+    static BufferedImage orient(BufferedImage source, int orientation) {
+        if (orientation <= ImageMetadataStripper.ORIENTATION_NORMAL || orientation > 8) {
+            return source;
+        }
+        int width = source.getWidth();
+        int height = source.getHeight();
+        // (m00, m10, m01, m11, m02, m12): x' = m00·x + m01·y + m02, y' = m10·x + m11·y + m12
+        AffineTransform transform = switch (orientation) {
+            case 2 -> new AffineTransform(-1, 0, 0, 1, width, 0);        // espelhada na horizontal
+            case 3 -> new AffineTransform(-1, 0, 0, -1, width, height);  // girada 180°
+            case 4 -> new AffineTransform(1, 0, 0, -1, 0, height);       // espelhada na vertical
+            case 5 -> new AffineTransform(0, 1, 1, 0, 0, 0);             // transposta
+            case 6 -> new AffineTransform(0, 1, -1, 0, height, 0);       // girar 90° no sentido horário
+            case 7 -> new AffineTransform(0, -1, -1, 0, height, width);  // transversa
+            default -> new AffineTransform(0, -1, 1, 0, 0, width);       // 8: girar 90° no sentido anti-horário
+        };
+        boolean swapSides = orientation >= 5;
+        BufferedImage target = new BufferedImage(swapSides ? height : width, swapSides ? width : height,
+                BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.drawImage(source, transform, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxSide) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, (double) maxSide / Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Sempre RGB: JPEG não suporta canal alfa
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, targetWidth, targetHeight);
+            graphics.drawImage(source, 0, 0, targetWidth, targetHeight, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static void writeJpeg(BufferedImage image, Path target) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        Path temp = Files.createTempFile(target.getParent(), ".thumb-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                writer.write(null, new IIOImage(image, null, null), param);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            writer.dispose();
+            Files.deleteIfExists(temp);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.util.ImageMetadataStripper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Armazenamento endereçado por conteúdo das fotos de perfil.
+ * Cada arquivo é nomeado pelo SHA-256 do conteúdo em dois níveis de diretório ({@code ab/cd/abcd...ext}),
+ * de modo que uploads idênticos compartilham o mesmo arquivo. Arquivos que nenhum
+ * {@code user_profiles.profile_picture_url} referencia são removidos pelo coletor após um período de carência.
+ */
+@Component
+@Slf4j
+public class ProfilePictureStore {
+
+    public static final String PUBLIC_PATH = "/uploads/profile-pictures/";
+
+    private static final Pattern SAFE_EXTENSION = Pattern.compile("\\.[a-z0-9]{1,5}");
+    // Só miniaturas de arquivos endereçados por conteúdo: fotos legadas "userId_timestamp.jpg" continuam coletáveis
+    private static final Pattern THUMBNAIL_NAME = Pattern.compile("[0-9a-f]{64}_("
+            + ProfilePictureProcessor.THUMBNAIL_SIZES.stream().map(String::valueOf).collect(Collectors.joining("|"))
+            + ")\\.jpg");
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+    private static final int SWEEP_BATCH_SIZE = 500;
+    private static final int LOCK_STRIPES = 64;
+
+    private final UserProfileRepository userProfileRepository;
+
+    // Serializa, por arquivo, o reaproveitamento de um duplicado com a reavaliação e remoção feitas pelo coletor
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+
+    @Value("${app.upload.profile-pictures.directory}")
+    private String uploadDir;
+
+    @Value("${app.upload.profile-pictures.gc.grace-period-hours:24}")
+    private long gracePeriodHours;
+
+    public ProfilePictureStore(UserProfileRepository userProfileRepository) {
+        this.userProfileRepository = userProfileRepository;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Move o arquivo para o armazenamento e retorna sua URL pública.
+     * Metadados (EXIF, GPS etc.) são removidos antes do hash, já que o arquivo publicado é imutável.
+     * Se um conteúdo idêntico já existir, o arquivo recebido é descartado e o existente reaproveitado.
+     */
+    public String store(Path file, String extension) throws IOException {
+        ImageMetadataStripper.strip(file);
+        String hash = sha256(file);
+        String relativePath = hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + sanitizeExtension(extension);
+        Path target = root().resolve(relativePath);
+        Files.createDirectories(target.getParent());
+
+        boolean duplicate;
+        ReentrantLock lock = lockFor(target);
+        lock.lock();
+        try {
+            duplicate = Files.exists(target);
+            if (duplicate) {
+                // Renova o mtime para o coletor não remover o arquivo antes da URL ser gravada
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (duplicate) {
+            Files.deleteIfExists(file);
+            log.debug("Foto de perfil deduplicada: {}", relativePath);
+        }
+        return PUBLIC_PATH + relativePath;
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.profile-pictures.gc.interval-ms:21600000}",
+               initialDelayString = "${app.upload.profile-pictures.gc.initial-delay-ms:600000}")
+    public void sweepUnreferenced() {
+        Path root = root();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(gracePeriodHours));
+        log.info("Iniciando coleta de fotos de perfil não referenciadas (anteriores a {})", cutoff);
+
+        AtomicLong deleted = new AtomicLong();
+        List<Path> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                    // Diretórios ocultos (ex.: sessões de upload retomável) não fazem parte do armazenamento
+                    return !dir.equals(root) && dir.getFileName().toString().startsWith(".")
+                            ? FileVisitResult.SKIP_SUBTREE
+                            : FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                    if (isCandidate(file, cutoff)) {
+                        batch.add(file);
+                        if (batch.size() == SWEEP_BATCH_SIZE) {
+                            deleted.addAndGet(deleteUnreferenced(root, batch, cutoff));
+                            batch.clear();
+                        }
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(Path file, IOException e) {
+                    // Arquivos movidos ou removidos durante a varredura (uploads concluídos, outra coleta)
+                    if (!(e instanceof NoSuchFileException)) {
+                        log.warn("Não foi possível verificar {}: {}", file, e.getMessage());
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+            deleted.addAndGet(deleteUnreferenced(root, batch, cutoff));
+        } catch (IOException e) {
+            log.error("Erro na coleta de fotos de perfil: {}", e.getMessage(), e);
+        }
+        log.info("Coleta de fotos de perfil concluída: {} arquivos removidos", deleted.get());
+    }
+
+    private boolean isCandidate(Path file, Instant cutoff) {
+        String name = file.getFileName().toString();
+        if (name.startsWith(".") || THUMBNAIL_NAME.matcher(name).matches()) {
+            return false; // temporários e miniaturas são tratados junto com o original
+        }
+        try {
+            return Files.isRegularFile(file) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private long deleteUnreferenced(Path root, List<Path> candidates, Instant cutoff) {
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<String> urls = candidates.stream()
+                .map(file -> PUBLIC_PATH + root.relativize(file).toString().replace('\\', '/'))
+                .toList();
+        Set<String> referenced = new HashSet<>(userProfileRepository.findReferencedProfilePictureUrls(urls));
+
+        long deleted = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            Path file = candidates.get(i);
+            if (referenced.contains(urls.get(i))) {
+                continue;
+            }
+            ReentrantLock lock = lockFor(file);
+            lock.lock();
+            try {
+                // Reavalia o mtime sob o lock: um upload deduplicado durante a coleta renova o arquivo
+                if (isCandidate(file, cutoff)) {
+                    Files.deleteIfExists(file);
+                    deleteThumbnails(file);
+                    deleted++;
+                }
+            } catch (IOException e) {
+                log.warn("Não foi possível remover {}: {}", file, e.getMessage());
+            } finally {
+                lock.unlock();
+            }
+        }
+        return deleted;
+    }
+
+    private static void deleteThumbnails(Path original) throws IOException {
+        String filename = original.getFileName().toString();
+        int dot = filename.lastIndexOf('.');
+        String baseName = dot > 0 ? filename.substring(0, dot) : filename;
+        for (int size : ProfilePictureProcessor.THUMBNAIL_SIZES) {
+            Files.deleteIfExists(original.resolveSibling(baseName + "_" + size + ".jpg"));
+        }
+    }
+
+    private ReentrantLock lockFor(Path file) {
+        return locks[Math.floorMod(file.toAbsolutePath().normalize().hashCode(), LOCK_STRIPES)];
+    }
+
+    private Path root() {
+        return Paths.get(uploadDir);
+    }
+
+    private static String sanitizeExtension(String extension) {
+        String normalized = extension != null ? extension.toLowerCase(Locale.ROOT) : "";
+        return SAFE_EXTENSION.matcher(normalized).matches() ? normalized : ".jpg";
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    digest.update(buffer);
+                    buffer.clear();
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 indisponível", e);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.InitiateUploadRequest;
+import com.namata.userprofile.dto.ResumableUploadDTO;
+import com.namata.userprofile.dto.UserProfileDTO;
+import com.namata.userprofile.repository.UserProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Upload retomável de fotos de perfil (iniciar / enviar trecho no offset / concluir).
+ * Cada sessão fica em {@code {uploadDir}/.resumable/{uploadId}/} com o arquivo de dados, gravado com escritas
+ * posicionais, e um pequeno arquivo de metadados com o progresso confirmado. Ao concluir, uma cópia de
+ * trabalho do arquivo é entregue ao fluxo normal de atualização da foto de perfil; a sessão só é removida
+ * depois que a foto foi aplicada, então uma conclusão que falha pode ser repetida.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ResumableUploadService {
+
+    private static final String SESSIONS_DIRECTORY = ".resumable";
+    private static final String DATA_FILE = "data";
+    private static final String METADATA_FILE = "upload.properties";
+    private static final String COMPLETING_FILE = "completing";
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final UserProfileRepository userProfileRepository;
+    private final UserProfileService userProfileService;
+
+    @Value("${app.upload.profile-pictures.directory}")
+    private String uploadDir;
+
+    @Value("${app.upload.profile-pictures.resumable.max-size-bytes:10485760}")
+    private long maxSizeBytes;
+
+    @Value("${app.upload.profile-pictures.resumable.expiration-hours:24}")
+    private long expirationHours;
+
+    public ResumableUploadDTO initiateUpload(UUID userId, InitiateUploadRequest request) {
+        if (!userProfileRepository.existsByUserId(userId)) {
+            throw new IllegalArgumentException("Perfil não encontrado para o usuário: " + userId);
+        }
+        if (!request.getContentType().startsWith("image/")) {
+            throw new IllegalArgumentException("Tipo de arquivo inválido: " + request.getContentType());
+        }
+        if (request.getTotalSize() > maxSizeBytes) {
+            throw new IllegalArgumentException("Arquivo excede o tamanho máximo de " + maxSizeBytes + " bytes");
+        }
+
+        UUID uploadId = UUID.randomUUID();
+        UploadMetadata metadata = new UploadMetadata(userId, request.getTotalSize(), 0,
+                UserProfileService.extensionOf(request.getFileName()));
+        try {
+            Path session = Files.createDirectories(sessionsRoot().resolve(uploadId.toString()));
+            Files.createFile(session.resolve(DATA_FILE));
+            writeMetadata(session, metadata);
+        } catch (IOException e) {
+            log.error("Erro ao iniciar upload retomável: {}", e.getMessage(), e);
+            throw new RuntimeException("Erro ao iniciar upload: " + e.getMessage());
+        }
+        log.info("Upload retomável {} iniciado para usuário ID: {} ({} bytes)", uploadId, userId, request.getTotalSize());
+        return toDTO(uploadId, metadata, Instant.now());
+    }
+
+    public ResumableUploadDTO getUpload(UUID userId, UUID uploadId) {
+        Path session = sessionOf(uploadId);
+        try {
+            UploadMetadata metadata = readOwnedMetadata(session, userId, uploadId);
+            return toDTO(uploadId, metadata, Files.getLastModifiedTime(session.resolve(METADATA_FILE)).toInstant());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Upload não encontrado: " + uploadId);
+        }
+    }
+
+    /**
+     * Grava um trecho a partir de {@code offset}, que deve coincidir com o progresso confirmado.
+     * Lança {@link IllegalStateException} quando o offset diverge ou outro trecho está sendo gravado
+     * (na mesma JVM o {@code tryLock} lança {@link java.nio.channels.OverlappingFileLockException}, também
+     * uma {@link IllegalStateException}).
+     */
+    public ResumableUploadDTO uploadChunk(UUID userId, UUID uploadId, long offset, InputStream content) {
+        Path session = sessionOf(uploadId);
+        if (!Files.isDirectory(session)) {
+            throw new IllegalArgumentException("Upload não encontrado: " + uploadId);
+        }
+        try (FileChannel channel = FileChannel.open(session.resolve(DATA_FILE), StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new IllegalStateException("Outro trecho está sendo enviado para o upload: " + uploadId);
+            }
+            try (lock) {
+                UploadMetadata metadata = readOwnedMetadata(session, userId, uploadId);
+                if (offset != metadata.receivedBytes()) {
+                    throw new IllegalStateException("Offset " + offset + " difere do progresso confirmado "
+                            + metadata.receivedBytes());
+                }
+
+                long position = offset;
+                try {
+                    ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+                    int read;
+                    while ((read = content.read(buffer.array())) != -1) {
+                        if (position + read > metadata.totalSize()) {
+                            throw new IllegalArgumentException("Trecho excede o tamanho declarado do arquivo");
+                        }
+                        buffer.position(0).limit(read);
+                        while (buffer.hasRemaining()) {
+                            position += channel.write(buffer, position);
+                        }
+                    }
+                } finally {
+                    // Confirma o que chegou mesmo se a conexão cair no meio do trecho;
+                    // os dados são persistidos antes do progresso, que nunca aponta para bytes perdidos
+                    if (position > offset) {
+                        channel.force(false);
+                        metadata = metadata.withReceivedBytes(position);
+                        writeMetadata(session, metadata);
+                    }
+                }
+                log.debug("Upload {}: {} de {} bytes recebidos", uploadId, position, metadata.totalSize());
+                return toDTO(uploadId, metadata, Instant.now());
+            }
+        } catch (IOException e) {
+            log.warn("Trecho do upload {} interrompido: {}", uploadId, e.getMessage());
+            throw new RuntimeException("Erro ao gravar trecho do upload: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Aplica o arquivo recebido como foto de perfil. Sob o mesmo lock dos trechos, para não concluir enquanto
+     * um trecho é gravado nem concluir duas vezes ao mesmo tempo. Se a aplicação falhar, a sessão é mantida
+     * com todo o progresso e a conclusão pode ser repetida até a sessão expirar.
+     */
+    public UserProfileDTO completeUpload(UUID userId, UUID uploadId) {
+        Path session = sessionOf(uploadId);
+        try {
+            readOwnedMetadata(session, userId, uploadId);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Upload não encontrado: " + uploadId);
+        }
+
+        UserProfileDTO profile;
+        Path data = session.resolve(DATA_FILE);
+        Path completing = session.resolve(COMPLETING_FILE);
+        try (FileChannel channel = FileChannel.open(data, StandardOpenOption.WRITE)) {
+            FileLock lock = channel.tryLock();
+            if (lock == null) {
+                throw new IllegalStateException("Upload em uso por outra requisição: " + uploadId);
+            }
+            try (lock) {
+                UploadMetadata metadata = readOwnedMetadata(session, userId, uploadId);
+                if (metadata.receivedBytes() != metadata.totalSize()) {
+                    throw new IllegalStateException("Upload incompleto: " + metadata.receivedBytes() + " de "
+                            + metadata.totalSize() + " bytes");
+                }
+                // O armazenamento reescreve e move o arquivo que recebe: entrega uma cópia e preserva os dados da sessão
+                workingCopy(data, completing);
+                profile = userProfileService.applyProfilePicture(userId, completing, metadata.extension());
+            } finally {
+                Files.deleteIfExists(completing);
+            }
+        } catch (IOException e) {
+            log.error("Erro ao concluir upload retomável {} (sessão mantida): {}", uploadId, e.getMessage(), e);
+            throw new RuntimeException("Erro ao salvar imagem: " + e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Upload retomável {} não concluído (sessão mantida): {}", uploadId, e.getMessage());
+            throw e;
+        }
+
+        deleteSession(session);
+        log.info("Upload retomável {} concluído para usuário ID: {}", uploadId, userId);
+        return profile;
+    }
+
+    public void abortUpload(UUID userId, UUID uploadId) {
+        Path session = sessionOf(uploadId);
+        try {
+            readOwnedMetadata(session, userId, uploadId);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Upload não encontrado: " + uploadId);
+        }
+        deleteSession(session);
+        log.info("Upload retomável {} cancelado para usuário ID: {}", uploadId, userId);
+    }
+
+    @Scheduled(fixedDelayString = "${app.upload.profile-pictures.resumable.cleanup-interval-ms:3600000}")
+    public void removeExpiredUploads() {
+        Path root = sessionsRoot();
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofHours(expirationHours));
+        int removed = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(root)) {
+            for (Path session : sessions) {
+                if (lastActivity(session).isBefore(cutoff)) {
+                    deleteSession(session);
+                    removed++;
+                }
+            }
+        } catch (IOException e) {
+            log.error("Erro ao remover uploads expirados: {}", e.getMessage(), e);
+        }
+        if (removed > 0) {
+            log.info("{} uploads retomáveis expirados removidos", removed);
+        }
+    }
+
+    private Path sessionsRoot() {
+        return Paths.get(uploadDir).resolve(SESSIONS_DIRECTORY);
+    }
+
+    private Path sessionOf(UUID uploadId) {
+        return sessionsRoot().resolve(uploadId.toString());
+    }
+
+    private UploadMetadata readOwnedMetadata(Path session, UUID userId, UUID uploadId) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream input = Files.newInputStream(session.resolve(METADATA_FILE))) {
+            properties.load(input);
+        }
+        UploadMetadata metadata = UploadMetadata.from(properties);
+        if (!metadata.userId().equals(userId)) {
+            throw new IllegalArgumentException("Upload não encontrado: " + uploadId);
+        }
+        return metadata;
+    }
+
+    /**
+     * Grava os metadados em arquivo temporário e substitui o anterior com move atômico.
+     */
+    private static void writeMetadata(Path session, UploadMetadata metadata) throws IOException {
+        Path temp = Files.createTempFile(session, ".metadata-", ".tmp");
+        try {
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                metadata.toProperties().store(output, null);
+            }
+            Files.move(temp, session.resolve(METADATA_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    // Link físico quando o sistema de arquivos permite; senão, cópia
+    private static void workingCopy(Path data, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, data);
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(data, target);
+        }
+    }
+
+    private static Instant lastActivity(Path session) {
+        try {
+            return Files.getLastModifiedTime(session.resolve(METADATA_FILE)).toInstant();
+        } catch (IOException e) {
+            // Sessão sem metadados (falha ao iniciar): usa a data do diretório
+            try {
+                return Files.getLastModifiedTime(session).toInstant();
+            } catch (IOException ignored) {
+                return Instant.EPOCH;
+            }
+        }
+    }
+
+    private static void deleteSession(Path session) {
+        try (Stream<Path> files = Files.walk(session)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    log.warn("Não foi possível remover {}: {}", path, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            log.warn("Não foi possível remover a sessão de upload {}: {}", session, e.getMessage());
+        }
+    }
+
+    private ResumableUploadDTO toDTO(UUID uploadId, UploadMetadata metadata, Instant lastActivity) {
+        return ResumableUploadDTO.builder()
+                .uploadId(uploadId)
+                .userId(metadata.userId())
+                .totalSize(metadata.totalSize())
+                .receivedBytes(metadata.receivedBytes())
+                .isComplete(metadata.receivedBytes() == metadata.totalSize())
+                .expiresAt(LocalDateTime.ofInstant(lastActivity.plus(Duration.ofHours(expirationHours)),
+                        ZoneId.systemDefault()))
+                .build();
+    }
+
+    private record UploadMetadata(UUID userId, long totalSize, long receivedBytes, String extension) {
+
+        UploadMetadata withReceivedBytes(long receivedBytes) {
+            return new UploadMetadata(userId, totalSize, receivedBytes, extension);
+        }
+
+        Properties toProperties() {
+            Properties properties = new Properties();
+            properties.setProperty("userId", userId.toString());
+            properties.setProperty("totalSize", Long.toString(totalSize));
+            properties.setProperty("receivedBytes", Long.toString(receivedBytes));
+            properties.setProperty("extension", extension);
+            return properties;
+        }
+
+        static UploadMetadata from(Properties properties) throws IOException {
+            try {
+                return new UploadMetadata(
+                        UUID.fromString(properties.getProperty("userId")),
+                        Long.parseLong(properties.getProperty("totalSize")),
+                        Long.parseLong(properties.getProperty("receivedBytes")),
+                        properties.getProperty("extension", ".jpg"));
+            } catch (RuntimeException e) {
+                throw new IOException("Metadados de upload inválidos", e);
+            }
+        }
+    }
+}
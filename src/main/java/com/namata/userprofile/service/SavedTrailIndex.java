@@ -0,0 +1,187 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.repository.UserSavedTrailRepository;
+import com.namata.userprofile.util.ExpiringCache;
+import com.namata.userprofile.util.TransactionCallbacks;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cache em memória, por usuário, das trilhas salvas ativas.
+ * Cada conjunto é um {@code long[]} ordenado com as metades (mais e menos significativas) de cada UUID,
+ * carregado do banco e mantido nas operações de salvar/remover, de modo que a verificação
+ * de trilha salva não consulta o banco em regime. Alterações feitas por outras instâncias não chegam aqui:
+ * cada conjunto expira após {@code app.saved-trails.cache.ttl-seconds} e é recarregado.
+ */
+@Component
+@Slf4j
+public class SavedTrailIndex {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final UserProfileRepository userProfileRepository;
+    private final UserSavedTrailRepository userSavedTrailRepository;
+    private final ExpiringCache<UUID, long[]> trailsByUserId;
+    private final Duration ttl;
+
+    // Gerações por faixa de usuários: uma carga só é instalada se nenhuma alteração ocorreu durante a consulta
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    public SavedTrailIndex(UserProfileRepository userProfileRepository,
+                           UserSavedTrailRepository userSavedTrailRepository,
+                           @Value("${app.saved-trails.cache.max-users:100000}") int maxUsers,
+                           @Value("${app.saved-trails.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.userProfileRepository = userProfileRepository;
+        this.userSavedTrailRepository = userSavedTrailRepository;
+        this.trailsByUserId = new ExpiringCache<>(maxUsers);
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    public boolean contains(UUID userId, UUID trailId) {
+        return indexOf(trailsOf(userId), trailId) >= 0;
+    }
+
+    /**
+     * Verifica várias trilhas contra o mesmo conjunto, preservando a ordem informada.
+     */
+    public Map<UUID, Boolean> containsAll(UUID userId, List<UUID> trailIds) {
+        long[] trails = trailsOf(userId);
+        Map<UUID, Boolean> result = new LinkedHashMap<>();
+        for (UUID trailId : trailIds) {
+            result.put(trailId, indexOf(trails, trailId) >= 0);
+        }
+        return result;
+    }
+
+    /**
+     * Registra a trilha como salva. Dentro de uma transação, o cache só é alterado após o commit.
+     */
+    public void add(UUID userId, UUID trailId) {
+        TransactionCallbacks.afterCommit(() -> update(userId, trailId, true));
+    }
+
+    public void remove(UUID userId, UUID trailId) {
+        TransactionCallbacks.afterCommit(() -> update(userId, trailId, false));
+    }
+
+    public void evict(UUID userId) {
+        TransactionCallbacks.afterCommit(() -> {
+            generations.incrementAndGet(stripe(userId));
+            trailsByUserId.remove(userId);
+        });
+    }
+
+    private long[] trailsOf(UUID userId) {
+        long[] trails = trailsByUserId.get(userId);
+        if (trails != null) {
+            return trails;
+        }
+
+        long generation = generations.get(stripe(userId));
+        UserProfile userProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Perfil de usuário não encontrado"));
+        long[] loaded = toSortedPairs(
+                userSavedTrailRepository.findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(userProfile));
+
+        if (generations.get(stripe(userId)) == generation) {
+            trailsByUserId.put(userId, loaded, ttl);
+            // Alteração concorrente com a instalação: descarta a carga, a próxima consulta relê o banco
+            if (generations.get(stripe(userId)) != generation) {
+                trailsByUserId.remove(userId);
+            }
+        }
+        return loaded;
+    }
+
+    private void update(UUID userId, UUID trailId, boolean saved) {
+        generations.incrementAndGet(stripe(userId));
+        // Não carregado ou expirado: a próxima consulta lê o estado do banco
+        trailsByUserId.updateIfPresent(userId, trails -> {
+            int index = indexOf(trails, trailId);
+            if (saved && index < 0) {
+                return insertAt(trails, -(index + 1), trailId);
+            }
+            if (!saved && index >= 0) {
+                return removeAt(trails, index);
+            }
+            return trails;
+        });
+    }
+
+    private static int stripe(UUID userId) {
+        return (userId.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    private static long[] toSortedPairs(List<UUID> trailIds) {
+        UUID[] sorted = trailIds.toArray(new UUID[0]);
+        Arrays.sort(sorted, SavedTrailIndex::compare);
+        long[] pairs = new long[sorted.length * 2];
+        int size = 0;
+        for (UUID trailId : sorted) {
+            if (size > 0 && pairs[size - 2] == trailId.getMostSignificantBits()
+                    && pairs[size - 1] == trailId.getLeastSignificantBits()) {
+                continue;
+            }
+            pairs[size++] = trailId.getMostSignificantBits();
+            pairs[size++] = trailId.getLeastSignificantBits();
+        }
+        return size == pairs.length ? pairs : Arrays.copyOf(pairs, size);
+    }
+
+    /**
+     * Busca binária pelos pares; retorna o índice do par ou {@code -(ponto de inserção) - 1}.
+     */
+    private static int indexOf(long[] pairs, UUID trailId) {
+        long msb = trailId.getMostSignificantBits();
+        long lsb = trailId.getLeastSignificantBits();
+        int low = 0;
+        int high = pairs.length / 2 - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = Long.compare(pairs[mid * 2], msb);
+            if (cmp == 0) {
+                cmp = Long.compare(pairs[mid * 2 + 1], lsb);
+            }
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static long[] insertAt(long[] pairs, int index, UUID trailId) {
+        long[] result = new long[pairs.length + 2];
+        System.arraycopy(pairs, 0, result, 0, index * 2);
+        result[index * 2] = trailId.getMostSignificantBits();
+        result[index * 2 + 1] = trailId.getLeastSignificantBits();
+        System.arraycopy(pairs, index * 2, result, index * 2 + 2, pairs.length - index * 2);
+        return result;
+    }
+
+    private static long[] removeAt(long[] pairs, int index) {
+        long[] result = new long[pairs.length - 2];
+        System.arraycopy(pairs, 0, result, 0, index * 2);
+        System.arraycopy(pairs, index * 2 + 2, result, index * 2, pairs.length - index * 2 - 2);
+        return result;
+    }
+
+    private static int compare(UUID a, UUID b) {
+        int cmp = Long.compare(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compare(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,367 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.ProfileFeaturesDTO;
+import com.namata.userprofile.entity.Statistics;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import com.namata.userprofile.util.TransactionCallbacks;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Índice em memória de vetores de características dos perfis ativos para a busca de "trilheiros parecidos".
+ * Cada perfil ocupa um slot em um único {@code float[]} contíguo; a consulta top-k é uma varredura exata
+ * (força bruta), paralelizada em blocos quando o índice é grande.
+ * Alterações de perfis e estatísticas só são aplicadas após o commit da transação que as gravou; a reconstrução
+ * periódica a partir do banco traz as alterações feitas por outras instâncias.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SimilarProfileIndex {
+
+    public static final int MAX_LIMIT = 50;
+
+    private static final int EXPERIENCE_OFFSET = 0;
+    private static final int INTERESTS_OFFSET = 1;
+    private static final int EXPLORATION_OFFSET = INTERESTS_OFFSET + UserProfile.Interest.values().length;
+    private static final int STATISTICS_OFFSET = EXPLORATION_OFFSET + UserProfile.ExplorationType.values().length;
+    private static final int DIMENSIONS = STATISTICS_OFFSET + 3;
+
+    // Pesos de cada grupo de características na distância euclidiana
+    private static final float EXPERIENCE_WEIGHT = 1.0f;
+    private static final float INTEREST_WEIGHT = 0.5f;
+    private static final float EXPLORATION_WEIGHT = 0.7f;
+    private static final float STATISTICS_WEIGHT = 1.0f;
+    private static final float SAME_LOCATION_BONUS = 0.5f;
+
+    // Escalas logarítmicas para as estatísticas (valores acima disso saturam em ~1)
+    private static final double DISTANCE_SCALE = Math.log1p(5_000);
+    private static final double ELEVATION_SCALE = Math.log1p(200_000);
+    private static final double TRAILS_SCALE = Math.log1p(1_000);
+
+    private static final int INITIAL_CAPACITY = 1_024;
+    private static final int PARALLEL_THRESHOLD = 50_000;
+
+    private final UserProfileRepository userProfileRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuildLock = new Object();
+    private Slots slots = new Slots();
+
+    // Alterações aplicadas durante um rebuild, reaplicadas sobre o índice novo antes da troca (guardado pelo lock)
+    private List<Consumer<Slots>> pendingDuringRebuild;
+
+    public record Neighbour(UUID userId, double similarity) {
+    }
+
+    private record Candidate(int slot, float distance) {
+    }
+
+    /**
+     * Reconstrói o índice a partir do banco. A leitura preenche uma estrutura nova sem bloquear consultas;
+     * o lock de escrita só é tomado para reaplicar as alterações ocorridas no meio tempo e trocar as estruturas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.search.similar-profiles.rebuild-interval-ms:1800000}",
+               initialDelayString = "${app.search.similar-profiles.rebuild-interval-ms:1800000}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        // Dois rebuilds simultâneos (inicialização e agendamento) disputariam a lista de alterações pendentes
+        synchronized (rebuildLock) {
+            rebuildNow();
+        }
+    }
+
+    private void rebuildNow() {
+        log.info("Construindo índice de perfis semelhantes");
+        lock.writeLock().lock();
+        try {
+            pendingDuringRebuild = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Slots rebuilt = new Slots();
+        boolean loaded = false;
+        try (Stream<ProfileFeaturesDTO> rows = userProfileRepository.streamActiveProfileFeatures()) {
+            rows.forEach(row -> {
+                int slot = rebuilt.slotFor(row.getUserId());
+                rebuilt.writeProfileFeatures(slot, row.getExperienceLevel(), row.getInterestsMask(),
+                        row.getExplorationType(), row.getLocation());
+                rebuilt.writeStatisticsFeatures(slot, row.getTotalDistanceKm(), row.getTotalElevationGainM(),
+                        row.getTotalTrailsCompleted());
+            });
+            loaded = true;
+        } catch (Exception e) {
+            log.error("Erro ao construir índice de perfis semelhantes: {}", e.getMessage(), e);
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (loaded) {
+                // Alterações são valores absolutos: reaplicar as que a leitura já viu não muda o resultado
+                pendingDuringRebuild.forEach(change -> change.accept(rebuilt));
+                slots = rebuilt;
+                log.info("Índice de perfis semelhantes construído com {} perfis", slots.slotsByUserId.size());
+            }
+            pendingDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertProfile(UserProfile profile) {
+        UUID userId = profile.getUserId();
+        UserProfile.ExperienceLevel experienceLevel = profile.getExperienceLevel();
+        Integer interestsMask = profile.getInterestsMask();
+        UserProfile.ExplorationType explorationType = profile.getExplorationType();
+        String location = profile.getLocation();
+        afterCommit(target -> target.writeProfileFeatures(target.slotFor(userId), experienceLevel, interestsMask,
+                explorationType, location));
+    }
+
+    public void updateStatistics(UUID userId, Statistics statistics) {
+        Double distanceKm = statistics.getTotalDistanceKm();
+        Double elevationGainM = statistics.getTotalElevationGainM();
+        Integer trailsCompleted = statistics.getTotalTrailsCompleted();
+        afterCommit(target -> {
+            Integer slot = target.slotsByUserId.get(userId);
+            if (slot != null) {
+                target.writeStatisticsFeatures(slot, distanceKm, elevationGainM, trailsCompleted);
+            }
+        });
+    }
+
+    public void remove(UUID userId) {
+        afterCommit(target -> target.remove(userId));
+    }
+
+    public boolean contains(UUID userId) {
+        lock.readLock().lock();
+        try {
+            return slots.slotsByUserId.containsKey(userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.slotsByUserId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Retorna os k perfis mais próximos do usuário, do mais para o menos semelhante.
+     * Lista vazia se o usuário não estiver no índice (perfil inexistente ou inativo).
+     */
+    public List<Neighbour> findNearest(UUID userId, int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_LIMIT));
+        lock.readLock().lock();
+        try {
+            Slots current = slots;
+            Integer querySlot = current.slotsByUserId.get(userId);
+            if (querySlot == null) {
+                return List.of();
+            }
+            float[] query = Arrays.copyOfRange(current.vectors, querySlot * DIMENSIONS, (querySlot + 1) * DIMENSIONS);
+            int queryLocation = current.locationKeys[querySlot];
+            int end = current.highWaterMark;
+
+            PriorityQueue<Candidate> best;
+            if (end < PARALLEL_THRESHOLD) {
+                best = scan(current, query, queryLocation, querySlot, 0, end, k);
+            } else {
+                // Blocos independentes com heap local, combinados no final
+                int chunks = ForkJoinPool.getCommonPoolParallelism() * 4;
+                int chunkSize = (end + chunks - 1) / chunks;
+                best = IntStream.range(0, chunks)
+                        .parallel()
+                        .mapToObj(chunk -> scan(current, query, queryLocation, querySlot,
+                                chunk * chunkSize, Math.min(end, (chunk + 1) * chunkSize), k))
+                        .reduce((left, right) -> merge(left, right, k))
+                        .orElseGet(() -> newHeap(k));
+            }
+
+            List<Candidate> ordered = new ArrayList<>(best);
+            ordered.sort(Comparator.comparingDouble(Candidate::distance));
+            List<Neighbour> result = new ArrayList<>(ordered.size());
+            for (Candidate candidate : ordered) {
+                result.add(new Neighbour(current.userIds[candidate.slot()], 1.0 / (1.0 + Math.max(0f, candidate.distance()))));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static PriorityQueue<Candidate> scan(Slots current, float[] query, int queryLocation, int querySlot,
+                                                 int from, int to, int k) {
+        PriorityQueue<Candidate> heap = newHeap(k);
+        float[] data = current.vectors;
+        UUID[] userIds = current.userIds;
+        int[] locationKeys = current.locationKeys;
+        for (int slot = from; slot < to; slot++) {
+            if (slot == querySlot || userIds[slot] == null) {
+                continue;
+            }
+            int base = slot * DIMENSIONS;
+            float distance = 0f;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                float diff = data[base + d] - query[d];
+                distance += diff * diff;
+            }
+            if (queryLocation != 0 && locationKeys[slot] == queryLocation) {
+                distance -= SAME_LOCATION_BONUS;
+            }
+            if (heap.size() < k) {
+                heap.offer(new Candidate(slot, distance));
+            } else if (distance < heap.peek().distance()) {
+                heap.poll();
+                heap.offer(new Candidate(slot, distance));
+            }
+        }
+        return heap;
+    }
+
+    private static PriorityQueue<Candidate> merge(PriorityQueue<Candidate> left, PriorityQueue<Candidate> right, int k) {
+        for (Candidate candidate : right) {
+            left.offer(candidate);
+            if (left.size() > k) {
+                left.poll();
+            }
+        }
+        return left;
+    }
+
+    // Max-heap por distância: o topo é o pior candidato entre os k melhores
+    private static PriorityQueue<Candidate> newHeap(int k) {
+        return new PriorityQueue<>(k + 1, Comparator.comparingDouble(Candidate::distance).reversed());
+    }
+
+    /**
+     * Aplica a alteração após o commit da transação corrente, sob o lock de escrita.
+     * Durante um rebuild ela também é registrada para ser reaplicada na estrutura nova.
+     */
+    private void afterCommit(Consumer<Slots> change) {
+        TransactionCallbacks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                change.accept(slots);
+                if (pendingDuringRebuild != null) {
+                    pendingDuringRebuild.add(change);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private static float scale(Double value, double logScale) {
+        if (value == null || value <= 0) {
+            return 0f;
+        }
+        return (float) (STATISTICS_WEIGHT * Math.min(1.0, Math.log1p(value) / logScale));
+    }
+
+    /**
+     * Vetores, localização e dono de cada slot. Acessado apenas sob o lock do índice, exceto a instância
+     * em construção pelo rebuild, que só é publicada na troca.
+     */
+    private static final class Slots {
+        private float[] vectors = new float[INITIAL_CAPACITY * DIMENSIONS];
+        private int[] locationKeys = new int[INITIAL_CAPACITY];
+        private UUID[] userIds = new UUID[INITIAL_CAPACITY];
+        private final Map<UUID, Integer> slotsByUserId = new HashMap<>();
+        private final Deque<Integer> freeSlots = new ArrayDeque<>();
+        private int highWaterMark;
+
+        private void remove(UUID userId) {
+            Integer slot = slotsByUserId.remove(userId);
+            if (slot != null) {
+                userIds[slot] = null;
+                Arrays.fill(vectors, slot * DIMENSIONS, (slot + 1) * DIMENSIONS, 0f);
+                freeSlots.push(slot);
+            }
+        }
+
+        private int slotFor(UUID userId) {
+            Integer existing = slotsByUserId.get(userId);
+            if (existing != null) {
+                return existing;
+            }
+            int slot;
+            if (!freeSlots.isEmpty()) {
+                slot = freeSlots.pop();
+            } else {
+                if (highWaterMark == userIds.length) {
+                    grow();
+                }
+                slot = highWaterMark++;
+            }
+            userIds[slot] = userId;
+            slotsByUserId.put(userId, slot);
+            return slot;
+        }
+
+        private void grow() {
+            int capacity = userIds.length * 2;
+            vectors = Arrays.copyOf(vectors, capacity * DIMENSIONS);
+            locationKeys = Arrays.copyOf(locationKeys, capacity);
+            userIds = Arrays.copyOf(userIds, capacity);
+        }
+
+        private void writeProfileFeatures(int slot, UserProfile.ExperienceLevel experienceLevel, Integer interestsMask,
+                                          UserProfile.ExplorationType explorationType, String location) {
+            int base = slot * DIMENSIONS;
+            int maxExperience = UserProfile.ExperienceLevel.values().length - 1;
+            vectors[base + EXPERIENCE_OFFSET] = experienceLevel != null
+                    ? EXPERIENCE_WEIGHT * experienceLevel.ordinal() / maxExperience
+                    : 0f;
+
+            int mask = interestsMask != null ? interestsMask : 0;
+            for (UserProfile.Interest interest : UserProfile.Interest.values()) {
+                vectors[base + INTERESTS_OFFSET + interest.ordinal()] = (mask & interest.bit()) != 0 ? INTEREST_WEIGHT : 0f;
+            }
+
+            for (UserProfile.ExplorationType type : UserProfile.ExplorationType.values()) {
+                vectors[base + EXPLORATION_OFFSET + type.ordinal()] = type == explorationType ? EXPLORATION_WEIGHT : 0f;
+            }
+
+            String normalizedLocation = DisplayNameIndex.normalize(location);
+            locationKeys[slot] = normalizedLocation.isEmpty() ? 0 : normalizedLocation.hashCode() | 1;
+        }
+
+        private void writeStatisticsFeatures(int slot, Double distanceKm, Double elevationGainM, Integer trailsCompleted) {
+            int base = slot * DIMENSIONS + STATISTICS_OFFSET;
+            vectors[base] = scale(distanceKm, DISTANCE_SCALE);
+            vectors[base + 1] = scale(elevationGainM, ELEVATION_SCALE);
+            vectors[base + 2] = scale(trailsCompleted != null ? trailsCompleted.doubleValue() : null, TRAILS_SCALE);
+        }
+    }
+}
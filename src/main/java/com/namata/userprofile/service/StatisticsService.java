@@ -3,6 +3,7 @@ package com.namata.userprofile.service;
 import com.namata.userprofile.dto.StatisticsDTO;
 import com.namata.userprofile.dto.FormattedStatisticsDTO;
 import com.namata.userprofile.entity.Statistics;
+import com.namata.userprofile.entity.StatisticsCounters;
 import com.namata.userprofile.entity.UserProfile;
 import com.namata.userprofile.repository.StatisticsRepository;
 import com.namata.userprofile.repository.UserProfileRepository;
@@ -28,6 +29,8 @@ public class StatisticsService {
 
     private final StatisticsRepository statisticsRepository;
     private final UserProfileRepository userProfileRepository;
+    private final DisplayNameIndex displayNameIndex;
+    private final SimilarProfileIndex similarProfileIndex;
 
     @Transactional
     public Statistics createStatistics(UUID userId) {
@@ -85,6 +88,18 @@ public class StatisticsService {
         return convertToFormattedDTO(statistics);
     }
 
+    /**
+     * Versão somente leitura para um perfil já carregado: sem estatísticas gravadas, devolve os valores iniciais
+     * sem criar a linha.
+     */
+    @Transactional(readOnly = true)
+    public FormattedStatisticsDTO getFormattedStatistics(UserProfile userProfile) {
+        Statistics statistics = statisticsRepository.findByUserProfile(userProfile)
+                .orElseGet(() -> Statistics.builder().userProfile(userProfile).build());
+
+        return convertToFormattedDTO(statistics);
+    }
+
     // Métodos para atualizar estatísticas de trilhas
     @Transactional
     public StatisticsDTO updateTrailStatistics(UUID userId, Integer trailsCompleted, 
@@ -130,6 +145,10 @@ public class StatisticsService {
         }
 
         Statistics updatedStatistics = statisticsRepository.save(statistics);
+        if (totalPoints != null) {
+            displayNameIndex.updatePoints(userId, totalPoints);
+        }
+        similarProfileIndex.updateStatistics(userId, updatedStatistics);
         
         log.info("Estatísticas de trilhas atualizadas para usuário ID: {}", userId);
         StatisticsDTO dto = convertToDTO(updatedStatistics);
@@ -163,6 +182,7 @@ public class StatisticsService {
         }
 
         Statistics updatedStatistics = statisticsRepository.save(statistics);
+        similarProfileIndex.updateStatistics(userId, updatedStatistics);
         log.info("Estatísticas de trilhas incrementadas para usuário ID: {}", userId);
 
         return updatedStatistics;
@@ -187,10 +207,10 @@ public class StatisticsService {
             statistics.setTotalReviewsPosted(reviewsWritten);
         }
         if (likesReceived != null) {
-            statistics.setTotalLikesReceived(likesReceived);
+            statistics.getCounters().setTotalLikesReceived(likesReceived);
         }
         if (commentsReceived != null) {
-            statistics.setTotalCommentsReceived(commentsReceived);
+            statistics.getCounters().setTotalCommentsReceived(commentsReceived);
         }
 
         Statistics updatedStatistics = statisticsRepository.save(statistics);
@@ -218,13 +238,16 @@ public class StatisticsService {
             statistics.setTotalPoints(totalPoints);
         }
         if (currentStreak != null) {
-            statistics.setCurrentStreak(currentStreak);
+            statistics.getCounters().setCurrentStreak(currentStreak);
         }
         if (longestStreak != null) {
-            statistics.setLongestStreak(longestStreak);
+            statistics.getCounters().setLongestStreak(longestStreak);
         }
 
         Statistics updatedStatistics = statisticsRepository.save(statistics);
+        if (totalPoints != null) {
+            displayNameIndex.updatePoints(userId, totalPoints);
+        }
         log.info("Estatísticas de conquistas atualizadas para usuário ID: {}", userId);
 
         return convertToDTO(updatedStatistics);
@@ -289,7 +312,7 @@ public class StatisticsService {
         Statistics statistics = statisticsRepository.findByUserProfile(userProfile)
                 .orElseGet(() -> createStatistics(userId));
 
-        statistics.setLastActivityAt(LocalDateTime.now());
+        statistics.getCounters().setLastActivityAt(LocalDateTime.now());
 
         Statistics updatedStatistics = statisticsRepository.save(statistics);
         log.info("Última atividade atualizada para usuário ID: {}", userId);
@@ -298,21 +321,25 @@ public class StatisticsService {
     }
 
     // Métodos para rankings e comparações
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getTopUsersByPoints(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalPointsDesc();
         return convertListToPage(statisticsList, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getTopUsersByTrails(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalTrailsCompletedDesc();
         return convertListToPage(statisticsList, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getTopUsersByDistance(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalDistanceKmDesc();
         return convertListToPage(statisticsList, pageable);
     }
 
+    @Transactional(readOnly = true)
     public List<StatisticsDTO> getTopUsersByLocation(String location, int limit) {
         return statisticsRepository.findByLocationOrderByTotalPointsDesc(location)
                 .stream()
@@ -320,35 +347,43 @@ public class StatisticsService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public Double getAveragePoints() {
         return statisticsRepository.getAveragePoints();
     }
 
+    @Transactional(readOnly = true)
     public Double getAverageDistance() {
         return statisticsRepository.getAverageDistance();
     }
 
+    @Transactional(readOnly = true)
     public Double getAverageTrailsCompleted() {
         return statisticsRepository.getAverageTrailsCompleted();
     }
 
+    @Transactional(readOnly = true)
     public Double getMaxDistance() {
         return statisticsRepository.getMaxDistance();
     }
 
+    @Transactional(readOnly = true)
     public Integer getMaxTrailsCompleted() {
         return statisticsRepository.getMaxTrailsCompleted();
     }
 
+    @Transactional(readOnly = true)
     public Integer getMaxPoints() {
         return statisticsRepository.getMaxPoints();
     }
 
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getRankingByDistance(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalDistanceKmDesc();
         return convertListToPage(statisticsList, pageable);
     }
 
+    @Transactional(readOnly = true)
     public List<StatisticsDTO> getRankingByLocation(String location) {
         List<Statistics> statistics = statisticsRepository.findByLocationOrderByTotalPointsDesc(location);
         return statistics.stream()
@@ -356,11 +391,13 @@ public class StatisticsService {
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getRankingByPoints(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalPointsDesc();
         return convertListToPage(statisticsList, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<StatisticsDTO> getRankingByTrails(Pageable pageable) {
         List<Statistics> statisticsList = statisticsRepository.findAllOrderByTotalTrailsCompletedDesc();
         return convertListToPage(statisticsList, pageable);
@@ -377,6 +414,7 @@ public class StatisticsService {
         statistics.setTotalTrailsCompleted(statistics.getTotalTrailsCompleted() + increment);
         statistics.setUpdatedAt(LocalDateTime.now());
         Statistics saved = statisticsRepository.save(statistics);
+        similarProfileIndex.updateStatistics(userId, saved);
         return convertToDTO(saved);
     }
 
@@ -393,6 +431,8 @@ public class StatisticsService {
     }
 
     public StatisticsDTO convertToDTO(Statistics statistics) {
+        StatisticsCounters counters = statistics.getCounters();
+
         return StatisticsDTO.builder()
                 .id(statistics.getId())
                 .userProfileId(statistics.getUserProfile().getId())
@@ -404,18 +444,18 @@ public class StatisticsService {
                 .highestElevationM(statistics.getHighestElevationM())
                 .totalPhotosShared(statistics.getTotalPhotosShared())
                 .totalReviewsPosted(statistics.getTotalReviewsPosted())
-                .totalLikesReceived(statistics.getTotalLikesReceived())
-                .totalCommentsReceived(statistics.getTotalCommentsReceived())
+                .totalLikesReceived(counters.getTotalLikesReceived())
+                .totalCommentsReceived(counters.getTotalCommentsReceived())
                 .totalBadgesEarned(statistics.getTotalBadgesEarned())
                 .totalPoints(statistics.getTotalPoints())
-                .currentStreak(statistics.getCurrentStreak())
-                .longestStreak(statistics.getLongestStreak())
+                .currentStreak(counters.getCurrentStreak())
+                .longestStreak(counters.getLongestStreak())
                 .totalFollowers(statistics.getTotalFollowers())
                 .totalFollowing(statistics.getTotalFollowing())
                 .totalGuidesBooked(statistics.getTotalGuidesBooked())
                 .globalRank(statistics.getGlobalRank())
                 .localRank(statistics.getLocalRank())
-                .lastActivityAt(statistics.getLastActivityAt())
+                .lastActivityAt(counters.getLastActivityAt())
                 .updatedAt(statistics.getUpdatedAt())
                 .build();
     }
@@ -426,6 +466,8 @@ public class StatisticsService {
      * @return FormattedStatisticsDTO com valores formatados
      */
     public FormattedStatisticsDTO convertToFormattedDTO(Statistics statistics) {
+        StatisticsCounters counters = statistics.getCounters();
+
         return FormattedStatisticsDTO.builder()
                 .id(statistics.getId())
                 .userProfileId(statistics.getUserProfile().getId())
@@ -448,18 +490,18 @@ public class StatisticsService {
                 // Outras estatísticas
                 .totalPhotosShared(statistics.getTotalPhotosShared())
                 .totalReviewsPosted(statistics.getTotalReviewsPosted())
-                .totalLikesReceived(statistics.getTotalLikesReceived())
-                .totalCommentsReceived(statistics.getTotalCommentsReceived())
+                .totalLikesReceived(counters.getTotalLikesReceived())
+                .totalCommentsReceived(counters.getTotalCommentsReceived())
                 .totalBadgesEarned(statistics.getTotalBadgesEarned())
                 .totalPoints(statistics.getTotalPoints())
-                .currentStreak(statistics.getCurrentStreak())
-                .longestStreak(statistics.getLongestStreak())
+                .currentStreak(counters.getCurrentStreak())
+                .longestStreak(counters.getLongestStreak())
                 .totalFollowers(statistics.getTotalFollowers())
                 .totalFollowing(statistics.getTotalFollowing())
                 .totalGuidesBooked(statistics.getTotalGuidesBooked())
                 .globalRank(statistics.getGlobalRank())
                 .localRank(statistics.getLocalRank())
-                .lastActivityAt(statistics.getLastActivityAt())
+                .lastActivityAt(counters.getLastActivityAt())
                 .updatedAt(statistics.getUpdatedAt())
                 .build();
     }
@@ -0,0 +1,279 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.TrailPopularityDTO;
+import com.namata.userprofile.entity.TrailPopularity;
+import com.namata.userprofile.repository.TrailPopularityRepository;
+import com.namata.userprofile.util.TransactionCallbacks;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Contadores de popularidade das trilhas (quantos usuários salvaram e pontuação de tendência), em memória.
+ * A pontuação decai exponencialmente com meia-vida configurável; internamente cada evento soma
+ * {@code 2^((t - epoch) / meiaVida)}, de modo que a ordenação não exige recalcular o decaimento.
+ * Os deltas acumulados são gravados periodicamente em {@code trail_popularity}, e os totais são relidos
+ * da tabela de tempos em tempos para incorporar o que as outras instâncias gravaram.
+ */
+@Component
+@Slf4j
+public class TrailPopularityIndex {
+
+    public static final int MAX_LIMIT = 100;
+
+    private final TrailPopularityRepository trailPopularityRepository;
+    private final double halfLifeSeconds;
+    private final Instant epoch = Instant.now();
+    private final Map<UUID, TrailCounter> counters = new ConcurrentHashMap<>();
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    // Gravação e releitura nunca se sobrepõem (agendador, encerramento)
+    private final Object flushLock = new Object();
+
+    public TrailPopularityIndex(TrailPopularityRepository trailPopularityRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${app.trail-popularity.trending.half-life-hours:168}") long halfLifeHours) {
+        this.trailPopularityRepository = trailPopularityRepository;
+        this.halfLifeSeconds = Duration.ofHours(halfLifeHours).toSeconds();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void load() {
+        log.info("Carregando contadores de popularidade de trilhas");
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (trailPopularityRepository.count() == 0) {
+                int backfilled = trailPopularityRepository.backfillFromSavedTrails(now, halfLifeSeconds);
+                log.info("Contadores de popularidade preenchidos a partir das trilhas salvas: {} trilhas", backfilled);
+            }
+            applyTotals(trailPopularityRepository.findAll());
+            log.info("Contadores de popularidade carregados para {} trilhas", counters.size());
+        } catch (Exception e) {
+            log.error("Erro ao carregar contadores de popularidade: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Registra a transição de uma trilha para salva; dentro de uma transação, só após o commit.
+     */
+    public void recordSaved(UUID trailId) {
+        TransactionCallbacks.afterCommit(() -> apply(trailId, 1));
+    }
+
+    public void recordUnsaved(UUID trailId) {
+        TransactionCallbacks.afterCommit(() -> apply(trailId, -1));
+    }
+
+    public Map<UUID, Long> getSavedCounts(Collection<UUID> trailIds) {
+        Map<UUID, Long> result = new LinkedHashMap<>();
+        for (UUID trailId : trailIds) {
+            TrailCounter counter = counters.get(trailId);
+            long count;
+            if (counter == null) {
+                count = 0;
+            } else {
+                synchronized (counter) {
+                    count = counter.savedCount;
+                }
+            }
+            result.put(trailId, Math.max(count, 0));
+        }
+        return result;
+    }
+
+    public List<TrailPopularityDTO> getTopTrending(int limit) {
+        return top(limit, Comparator.comparingDouble(TrailPopularityDTO::getTrendingScore));
+    }
+
+    public List<TrailPopularityDTO> getMostSaved(int limit) {
+        return top(limit, Comparator.comparingLong(TrailPopularityDTO::getSavedCount));
+    }
+
+    /**
+     * Grava os deltas pendentes em uma transação própria. Os deltas só voltam para a próxima gravação se
+     * a transação for desfeita (ou nem chegar a começar); com o resultado do commit desconhecido eles
+     * não são regravados, para não contar duas vezes, e a releitura periódica corrige os totais.
+     */
+    @Scheduled(fixedDelayString = "${app.trail-popularity.flush-interval-ms:30000}")
+    public void flush() {
+        synchronized (flushLock) {
+            flushPending();
+        }
+    }
+
+    /**
+     * Grava os deltas pendentes e substitui os totais em memória pelos da tabela, somados ao que ainda
+     * não foi gravado: cada instância só conhece os próprios eventos entre uma releitura e outra.
+     */
+    @Scheduled(fixedDelayString = "${app.trail-popularity.refresh-interval-ms:300000}",
+               initialDelayString = "${app.trail-popularity.refresh-interval-ms:300000}")
+    public void refresh() {
+        synchronized (flushLock) {
+            flushPending();
+            List<TrailPopularity> totals = readOnlyTransactionTemplate.execute(status -> trailPopularityRepository.findAll());
+            applyTotals(totals);
+            log.debug("Contadores de popularidade relidos para {} trilhas", totals.size());
+        }
+    }
+
+    private void flushPending() {
+        Map<UUID, PendingDelta> pending = new LinkedHashMap<>();
+        for (Map.Entry<UUID, TrailCounter> entry : counters.entrySet()) {
+            TrailCounter counter = entry.getValue();
+            synchronized (counter) {
+                if (counter.pendingCount != 0 || counter.pendingScore != 0.0) {
+                    pending.put(entry.getKey(), new PendingDelta(counter.pendingCount, counter.pendingScore));
+                    counter.pendingCount = 0;
+                    counter.pendingScore = 0.0;
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        double decayToNow = 1.0 / weightAt(now);
+        AtomicBoolean started = new AtomicBoolean();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                started.set(true);
+                TransactionCallbacks.afterRollback(() -> requeue(pending));
+                pending.forEach((trailId, delta) -> trailPopularityRepository.addDeltas(
+                        trailId, delta.count(), delta.score() * decayToNow, now, halfLifeSeconds));
+            });
+        } catch (RuntimeException e) {
+            if (!started.get()) {
+                requeue(pending); // sem transação, nada foi gravado
+            }
+            throw e;
+        }
+        log.debug("Contadores de popularidade gravados para {} trilhas", pending.size());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("Não foi possível gravar contadores de popularidade no encerramento: {}", e.getMessage());
+        }
+    }
+
+    private void requeue(Map<UUID, PendingDelta> pending) {
+        pending.forEach((trailId, delta) -> {
+            TrailCounter counter = counters.computeIfAbsent(trailId, id -> new TrailCounter());
+            synchronized (counter) {
+                counter.pendingCount += delta.count();
+                counter.pendingScore += delta.score();
+            }
+        });
+    }
+
+    /**
+     * Total = valor gravado na tabela + delta local ainda não gravado. Trilhas ausentes da tabela
+     * ficam apenas com o delta pendente.
+     */
+    private void applyTotals(List<TrailPopularity> totals) {
+        Map<UUID, TrailPopularity> byTrailId = new LinkedHashMap<>();
+        for (TrailPopularity popularity : totals) {
+            byTrailId.put(popularity.getTrailId(), popularity);
+            counters.computeIfAbsent(popularity.getTrailId(), id -> new TrailCounter());
+        }
+        for (Map.Entry<UUID, TrailCounter> entry : counters.entrySet()) {
+            TrailPopularity popularity = byTrailId.get(entry.getKey());
+            TrailCounter counter = entry.getValue();
+            synchronized (counter) {
+                counter.savedCount = counter.pendingCount;
+                counter.score = counter.pendingScore;
+                if (popularity != null) {
+                    counter.savedCount += popularity.getSavedCount();
+                    counter.score += popularity.getTrendingScore() * weightAt(popularity.getScoreUpdatedAt());
+                }
+            }
+        }
+    }
+
+    private void apply(UUID trailId, int delta) {
+        double weight = weightAt(LocalDateTime.now());
+        TrailCounter counter = counters.computeIfAbsent(trailId, id -> new TrailCounter());
+        synchronized (counter) {
+            counter.savedCount += delta;
+            counter.score += delta * weight;
+            counter.pendingCount += delta;
+            counter.pendingScore += delta * weight;
+        }
+    }
+
+    private List<TrailPopularityDTO> top(int limit, Comparator<TrailPopularityDTO> order) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        double decayToNow = 1.0 / weightAt(LocalDateTime.now());
+        PriorityQueue<TrailPopularityDTO> heap = new PriorityQueue<>(boundedLimit + 1, order);
+        for (Map.Entry<UUID, TrailCounter> entry : counters.entrySet()) {
+            TrailCounter counter = entry.getValue();
+            TrailPopularityDTO dto;
+            synchronized (counter) {
+                if (counter.savedCount <= 0) {
+                    continue;
+                }
+                dto = TrailPopularityDTO.builder()
+                        .trailId(entry.getKey())
+                        .savedCount(counter.savedCount)
+                        .trendingScore(Math.max(counter.score * decayToNow, 0.0))
+                        .build();
+            }
+            heap.offer(dto);
+            if (heap.size() > boundedLimit) {
+                heap.poll();
+            }
+        }
+        List<TrailPopularityDTO> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result;
+    }
+
+    /**
+     * Peso de um evento no instante informado, relativo ao epoch deste processo.
+     */
+    private double weightAt(LocalDateTime time) {
+        double elapsedSeconds = Duration.between(epoch, time.atZone(ZoneId.systemDefault()).toInstant()).toMillis() / 1000.0;
+        return Math.pow(2, elapsedSeconds / halfLifeSeconds);
+    }
+
+    private record PendingDelta(long count, double score) {
+    }
+
+    private static final class TrailCounter {
+        long savedCount;
+        double score;
+        long pendingCount;
+        double pendingScore;
+    }
+}
@@ -1,6 +1,9 @@
 package com.namata.userprofile.service;
 
+import com.namata.userprofile.client.AuthServiceClient;
 import com.namata.userprofile.dto.CreateUserProfileRequest;
+import com.namata.userprofile.dto.ProfileSummaryDTO;
+import com.namata.userprofile.dto.SimilarProfileDTO;
 import com.namata.userprofile.dto.UpdateUserProfileRequest;
 import com.namata.userprofile.dto.UserProfileDTO;
 import com.namata.userprofile.entity.Statistics;
@@ -11,20 +14,37 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.server.resource.authentication.JwtAuthenticationToken;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -34,13 +54,35 @@ public class UserProfileService {
 
     private final UserProfileRepository userProfileRepository;
     private final StatisticsRepository statisticsRepository;
+    private final DisplayNameIndex displayNameIndex;
+    private final SimilarProfileIndex similarProfileIndex;
+    private final ProfilePictureStore profilePictureStore;
+    private final ProfilePictureProcessor profilePictureProcessor;
+    private final AuthServiceClient authServiceClient;
+
+    private static final long TRANSFER_CHUNK_SIZE = 1024 * 1024;
+
+    private static final Set<String> SUMMARY_PROFILE_FIELDS = Set.of(
+            "displayName", "profilePictureUrl", "location", "experienceLevel", "isVerified");
+    private static final Set<String> SUMMARY_STATISTICS_FIELDS = Set.of(
+            "totalTrailsCompleted", "totalBadgesEarned", "totalPoints");
     
     @Value("${app.upload.profile-pictures.directory}")
     private String uploadDir;
 
+    @Value("${app.services.auth-service.validation-enabled:true}")
+    private boolean authServiceValidationEnabled;
+
+    // Sem resposta do auth-service (nem em cache): false (padrão) rejeita, true cria o perfil mesmo assim
+    @Value("${app.services.auth-service.fail-open:false}")
+    private boolean authServiceFailOpen;
+
     public UserProfileDTO createProfile(CreateUserProfileRequest request) {
         log.info("Criando perfil para usuário ID: {}", request.getUserId());
 
+        // Antes de qualquer consulta: a conexão do pool só é obtida no primeiro acesso ao banco
+        validateUserExists(request.getUserId());
+
         // Verificar se já existe perfil para este usuário
         if (userProfileRepository.existsByUserId(request.getUserId())) {
             throw new IllegalArgumentException("Perfil já existe para este usuário");
@@ -58,6 +100,7 @@ public class UserProfileService {
                 .experienceLevel(request.getExperienceLevel() != null ? 
                     request.getExperienceLevel() : UserProfile.ExperienceLevel.BEGINNER)
                 .interests(request.getInterests())
+                .interestsMask(UserProfile.Interest.toMask(request.getInterests()))
                 .explorationType(request.getExplorationType())
                 .privacyLevel(request.getPrivacyLevel() != null ? 
                     request.getPrivacyLevel() : UserProfile.PrivacyLevel.PUBLIC)
@@ -73,6 +116,10 @@ public class UserProfileService {
                 .build();
         statisticsRepository.save(statistics);
 
+        displayNameIndex.upsert(savedProfile.getUserId(), savedProfile.getDisplayName(),
+                savedProfile.getProfilePictureUrl(), statistics.getTotalPoints());
+        similarProfileIndex.upsertProfile(savedProfile);
+
         log.info("Perfil criado com sucesso para usuário ID: {}", request.getUserId());
         return convertToDTO(savedProfile);
     }
@@ -100,8 +147,11 @@ public class UserProfileService {
         if (request.getBio() != null) {
             profile.setBio(request.getBio());
         }
-        if (request.getProfilePictureUrl() != null) {
+        if (request.getProfilePictureUrl() != null
+                && !request.getProfilePictureUrl().equals(profile.getProfilePictureUrl())) {
             profile.setProfilePictureUrl(request.getProfilePictureUrl());
+            // Só o upload agenda miniaturas; para uma foto já armazenada a reconciliação periódica grava a marca
+            profile.setProfilePictureThumbnails(false);
         }
         if (request.getDateOfBirth() != null) {
             profile.setDateOfBirth(request.getDateOfBirth());
@@ -120,6 +170,7 @@ public class UserProfileService {
         }
         if (request.getInterests() != null) {
             profile.setInterests(request.getInterests());
+            profile.setInterestsMask(UserProfile.Interest.toMask(request.getInterests()));
         }
         if (request.getExplorationType() != null) {
             profile.setExplorationType(request.getExplorationType());
@@ -131,7 +182,12 @@ public class UserProfileService {
         UserProfile updatedProfile = userProfileRepository.save(profile);
         log.info("Perfil atualizado com sucesso para usuário ID: {}", userId);
         
-        return convertToDTO(updatedProfile);
+        UserProfileDTO dto = convertToDTO(updatedProfile);
+        refreshDisplayNameIndex(dto);
+        if (Boolean.TRUE.equals(updatedProfile.getIsActive())) {
+            similarProfileIndex.upsertProfile(updatedProfile);
+        }
+        return dto;
     }
 
     public void deactivateProfile(UUID userId) {
@@ -142,6 +198,8 @@ public class UserProfileService {
 
         profile.setIsActive(false);
         userProfileRepository.save(profile);
+        displayNameIndex.remove(userId);
+        similarProfileIndex.remove(userId);
 
         log.info("Perfil desativado com sucesso para usuário ID: {}", userId);
     }
@@ -158,6 +216,72 @@ public class UserProfileService {
         log.info("Perfil verificado com sucesso para usuário ID: {}", userId);
     }
 
+    /**
+     * Busca resumos de vários perfis em uma única query.
+     * Com {@code fields} vazio todos os campos são retornados; caso contrário apenas os informados
+     * (userId sempre incluso). A junção com estatísticas só é feita se algum campo de estatística for pedido.
+     */
+    @Transactional(readOnly = true)
+    public List<ProfileSummaryDTO> getProfileSummaries(List<UUID> userIds, Set<String> fields) {
+        for (String field : fields) {
+            if (!field.equals("userId") && !SUMMARY_PROFILE_FIELDS.contains(field)
+                    && !SUMMARY_STATISTICS_FIELDS.contains(field)) {
+                throw new IllegalArgumentException("Campo inválido: " + field);
+            }
+        }
+        Set<UUID> distinctIds = new LinkedHashSet<>(userIds);
+        boolean allFields = fields.isEmpty();
+        boolean needsStatistics = allFields || fields.stream().anyMatch(SUMMARY_STATISTICS_FIELDS::contains);
+
+        List<ProfileSummaryDTO> summaries = needsStatistics
+                ? userProfileRepository.findSummariesByUserIdIn(distinctIds)
+                : userProfileRepository.findProfileSummariesWithoutStatisticsByUserIdIn(distinctIds);
+
+        Map<UUID, ProfileSummaryDTO> byUserId = summaries.stream()
+                .collect(Collectors.toMap(ProfileSummaryDTO::getUserId, Function.identity()));
+
+        // Mantém a ordem da requisição; IDs sem perfil são omitidos
+        List<ProfileSummaryDTO> result = new ArrayList<>(byUserId.size());
+        for (UUID userId : distinctIds) {
+            ProfileSummaryDTO summary = byUserId.get(userId);
+            if (summary != null) {
+                result.add(allFields ? summary : project(summary, fields));
+            }
+        }
+        return result;
+    }
+
+    @Transactional(readOnly = true)
+    public List<SimilarProfileDTO> getSimilarProfiles(UUID userId, int limit) {
+        if (!similarProfileIndex.contains(userId)) {
+            throw new IllegalArgumentException("Perfil não encontrado ou inativo");
+        }
+
+        List<SimilarProfileIndex.Neighbour> neighbours = similarProfileIndex.findNearest(userId, limit);
+        List<UUID> neighbourIds = neighbours.stream().map(SimilarProfileIndex.Neighbour::userId).toList();
+        Map<UUID, ProfileSummaryDTO> summaries = neighbourIds.isEmpty() ? Map.of()
+                : userProfileRepository.findSummariesByUserIdIn(neighbourIds).stream()
+                        .collect(Collectors.toMap(ProfileSummaryDTO::getUserId, Function.identity()));
+
+        List<SimilarProfileDTO> result = new ArrayList<>(neighbours.size());
+        for (SimilarProfileIndex.Neighbour neighbour : neighbours) {
+            ProfileSummaryDTO summary = summaries.get(neighbour.userId());
+            if (summary != null) {
+                result.add(SimilarProfileDTO.builder()
+                        .userId(summary.getUserId())
+                        .displayName(summary.getDisplayName())
+                        .profilePictureUrl(summary.getProfilePictureUrl())
+                        .location(summary.getLocation())
+                        .experienceLevel(summary.getExperienceLevel())
+                        .totalTrailsCompleted(summary.getTotalTrailsCompleted())
+                        .totalPoints(summary.getTotalPoints())
+                        .similarity(neighbour.similarity())
+                        .build());
+            }
+        }
+        return result;
+    }
+
     @Transactional(readOnly = true)
     public List<UserProfileDTO> getActiveProfiles() {
         return userProfileRepository.findByIsActiveTrue()
@@ -174,8 +298,22 @@ public class UserProfileService {
     @Transactional(readOnly = true)
     public Page<UserProfileDTO> searchProfiles(String displayName, String location, 
                                               UserProfile.ExperienceLevel experienceLevel, 
+                                              List<UserProfile.Interest> interests, boolean matchAllInterests,
                                               Pageable pageable) {
-        return userProfileRepository.findProfilesWithFilters(displayName, location, experienceLevel, pageable)
+        return userProfileRepository.findProfilesWithFilters(blankToNull(displayName), blankToNull(location),
+                        experienceLevel != null ? experienceLevel.name() : null,
+                        interestMasksFilter(interests, matchAllInterests), unsorted(pageable))
+                .map(this::convertToDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<UserProfileDTO> searchProfilesSlice(String displayName, String location,
+                                                    UserProfile.ExperienceLevel experienceLevel,
+                                                    List<UserProfile.Interest> interests, boolean matchAllInterests,
+                                                    Pageable pageable) {
+        return userProfileRepository.findProfilesSliceWithFilters(blankToNull(displayName), blankToNull(location),
+                        experienceLevel != null ? experienceLevel.name() : null,
+                        interestMasksFilter(interests, matchAllInterests), unsorted(pageable))
                 .map(this::convertToDTO);
     }
 
@@ -195,6 +333,7 @@ public class UserProfileService {
                 .toList();
     }
 
+    @Transactional(readOnly = true)
     public Page<UserProfileDTO> getRankingByPoints(Pageable pageable) {
         log.info("Buscando ranking por pontos");
         
@@ -216,6 +355,7 @@ public class UserProfileService {
         return new PageImpl<>(pageContent, pageable, profileDTOs.size());
     }
     
+    @Transactional(readOnly = true)
     public Page<UserProfileDTO> getRankingByTrails(Pageable pageable) {
         log.info("Buscando ranking por trilhas");
         
@@ -237,43 +377,167 @@ public class UserProfileService {
         return new PageImpl<>(pageContent, pageable, profileDTOs.size());
     }
 
+    /**
+     * Grava a foto enviada e atualiza a URL no perfil.
+     * Roda sem transação: a cópia do upload (até vários MB) não pode segurar uma conexão do pool;
+     * apenas a atualização final da URL usa uma transação curta.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public UserProfileDTO updateProfilePicture(UUID userId, MultipartFile file) {
         log.info("Atualizando foto de perfil para usuário ID: {}", userId);
         
-        UserProfile profile = userProfileRepository.findByUserId(userId)
-                .orElseThrow(() -> new RuntimeException("Perfil não encontrado para o usuário: " + userId));
+        if (!userProfileRepository.existsByUserId(userId)) {
+            throw new RuntimeException("Perfil não encontrado para o usuário: " + userId);
+        }
         
+        Path tempFile = null;
         try {
-            // Criar diretório se não existir
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-            
-            // Gerar nome único para o arquivo
-            String originalFilename = file.getOriginalFilename();
-            String fileExtension = originalFilename != null && originalFilename.contains(".")
-                    ? originalFilename.substring(originalFilename.lastIndexOf("."))
-                    : ".jpg";
-            String filename = userId + "_" + System.currentTimeMillis() + fileExtension;
-            
-            // Salvar arquivo
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+            Path uploadPath = ensureUploadDirectory();
             
-            // Atualizar URL no perfil
-            String profilePictureUrl = "/uploads/profile-pictures/" + filename;
-            profile.setProfilePictureUrl(profilePictureUrl);
-            
-            UserProfile savedProfile = userProfileRepository.save(profile);
-            log.info("Foto de perfil atualizada com sucesso para usuário ID: {}", userId);
+            // Upload gravado primeiro em arquivo temporário no mesmo diretório (permite move atômico)
+            tempFile = Files.createTempFile(uploadPath, ".upload-", ".tmp");
+            try (ReadableByteChannel source = Channels.newChannel(file.getInputStream());
+                 FileChannel target = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = target.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                    position += transferred;
+                }
+            }
             
-            return convertToDTO(savedProfile);
+            return applyProfilePicture(userId, tempFile, extensionOf(file.getOriginalFilename()));
             
         } catch (IOException e) {
             log.error("Erro ao salvar arquivo de imagem: {}", e.getMessage(), e);
             throw new RuntimeException("Erro ao salvar imagem: " + e.getMessage());
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    /**
+     * Grava no armazenamento de fotos um arquivo de imagem já em disco e o define como foto de perfil.
+     * O arquivo de origem deve estar no mesmo sistema de arquivos do diretório de uploads.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public UserProfileDTO applyProfilePicture(UUID userId, Path pictureFile, String fileExtension) throws IOException {
+        String profilePictureUrl = profilePictureStore.store(pictureFile, fileExtension);
+        
+        // Transação curta apenas para a URL; a foto anterior fica sem referência e é removida pelo coletor
+        if (userProfileRepository.updateProfilePictureUrl(userId, profilePictureUrl, LocalDateTime.now()) == 0) {
+            throw new RuntimeException("Perfil não encontrado para o usuário: " + userId);
         }
+        log.info("Foto de perfil atualizada com sucesso para usuário ID: {}", userId);
+        // Depois da URL gravada: a marca de miniaturas prontas precisa encontrar o perfil
+        profilePictureProcessor.ensureThumbnails(profilePictureUrl);
+        
+        UserProfile savedProfile = userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new RuntimeException("Perfil não encontrado para o usuário: " + userId));
+        UserProfileDTO dto = convertToDTO(savedProfile);
+        refreshDisplayNameIndex(dto);
+        return dto;
+    }
+
+    private void validateUserExists(UUID userId) {
+        if (!authServiceValidationEnabled) {
+            return;
+        }
+        Boolean exists = authServiceClient.userExists(userId, currentBearerToken()).join();
+        if (Boolean.FALSE.equals(exists)) {
+            throw new IllegalArgumentException("Usuário não encontrado no serviço de autenticação: " + userId);
+        }
+        if (exists == null) {
+            // auth-service indisponível e sem resposta em cache
+            if (!authServiceFailOpen) {
+                throw new RuntimeException("Serviço de autenticação indisponível para validar o usuário: " + userId);
+            }
+            log.warn("Serviço de autenticação indisponível; perfil criado sem validar o usuário ID: {}", userId);
+        }
+    }
+
+    private static String currentBearerToken() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication instanceof JwtAuthenticationToken jwtAuthentication
+                ? jwtAuthentication.getToken().getTokenValue()
+                : null;
+    }
+
+    private Path ensureUploadDirectory() throws IOException {
+        Path uploadPath = Paths.get(uploadDir);
+        if (!Files.exists(uploadPath)) {
+            Files.createDirectories(uploadPath);
+        }
+        return uploadPath;
+    }
+
+    static String extensionOf(String originalFilename) {
+        return originalFilename != null && originalFilename.contains(".")
+                ? originalFilename.substring(originalFilename.lastIndexOf("."))
+                : ".jpg";
+    }
+
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("Não foi possível remover o arquivo {}: {}", path, e.getMessage());
+        }
+    }
+
+    private static ProfileSummaryDTO project(ProfileSummaryDTO summary, Set<String> fields) {
+        return ProfileSummaryDTO.builder()
+                .userId(summary.getUserId())
+                .displayName(fields.contains("displayName") ? summary.getDisplayName() : null)
+                .profilePictureUrl(fields.contains("profilePictureUrl") ? summary.getProfilePictureUrl() : null)
+                .location(fields.contains("location") ? summary.getLocation() : null)
+                .experienceLevel(fields.contains("experienceLevel") ? summary.getExperienceLevel() : null)
+                .isVerified(fields.contains("isVerified") ? summary.getIsVerified() : null)
+                .totalTrailsCompleted(fields.contains("totalTrailsCompleted") ? summary.getTotalTrailsCompleted() : null)
+                .totalBadgesEarned(fields.contains("totalBadgesEarned") ? summary.getTotalBadgesEarned() : null)
+                .totalPoints(fields.contains("totalPoints") ? summary.getTotalPoints() : null)
+                .build();
+    }
+
+    private void refreshDisplayNameIndex(UserProfileDTO dto) {
+        if (Boolean.TRUE.equals(dto.getIsActive())) {
+            displayNameIndex.upsert(dto.getUserId(), dto.getDisplayName(), dto.getProfilePictureUrl(), dto.getTotalPoints());
+        } else {
+            displayNameIndex.remove(dto.getUserId());
+        }
+    }
+
+    /**
+     * Monta o array (literal PostgreSQL) de todos os valores de interests_mask que satisfazem o filtro.
+     * Com poucos interesses o universo de máscaras é pequeno, e "interests_mask = ANY(...)" usa o índice B-tree,
+     * o que não acontece com um predicado "(interests_mask & x) <> 0".
+     */
+    private static String interestMasksFilter(List<UserProfile.Interest> interests, boolean matchAll) {
+        if (interests == null || interests.isEmpty()) {
+            return null;
+        }
+        int required = UserProfile.Interest.toMask(interests);
+        int universe = 1 << UserProfile.Interest.values().length;
+
+        StringJoiner masks = new StringJoiner(",", "{", "}");
+        for (int mask = 0; mask < universe; mask++) {
+            boolean matches = matchAll ? (mask & required) == required : (mask & required) != 0;
+            if (matches) {
+                masks.add(Integer.toString(mask));
+            }
+        }
+        return masks.toString();
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value.trim() : null;
+    }
+
+    // A busca já é ordenada por similaridade; ordenações do cliente não se aplicam à query nativa
+    private static Pageable unsorted(Pageable pageable) {
+        return pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()) : pageable;
     }
 
     private UserProfileDTO convertToDTO(UserProfile profile) {
@@ -291,12 +555,14 @@ public class UserProfileService {
                 .displayName(profile.getDisplayName())
                 .bio(profile.getBio())
                 .profilePictureUrl(profile.getProfilePictureUrl())
+                .profilePictureThumbnailUrls(profilePictureProcessor.thumbnailUrls(profile.getProfilePictureUrl(),
+                        Boolean.TRUE.equals(profile.getProfilePictureThumbnails())))
                 .dateOfBirth(profile.getDateOfBirth())
                 .gender(profile.getGender())
                 .location(profile.getLocation())
                 .phoneNumber(profile.getPhoneNumber())
                 .experienceLevel(profile.getExperienceLevel())
-                .interests(null) // Interests são ignorados na serialização
+                .interests(UserProfile.Interest.fromMask(profile.getInterestsMask())) // Sem carregar a coleção
                 .explorationType(profile.getExplorationType())
                 .privacyLevel(profile.getPrivacyLevel())
                 .isActive(profile.getIsActive())
@@ -309,19 +575,21 @@ public class UserProfileService {
                 .build();
     }
     
-    private UserProfileDTO convertToDTOWithoutStats(UserProfile profile) {
+    UserProfileDTO convertToDTOWithoutStats(UserProfile profile) {
         return UserProfileDTO.builder()
                 .id(profile.getId())
                 .userId(profile.getUserId())
                 .displayName(profile.getDisplayName())
                 .bio(profile.getBio())
                 .profilePictureUrl(profile.getProfilePictureUrl())
+                .profilePictureThumbnailUrls(profilePictureProcessor.thumbnailUrls(profile.getProfilePictureUrl(),
+                        Boolean.TRUE.equals(profile.getProfilePictureThumbnails())))
                 .dateOfBirth(profile.getDateOfBirth())
                 .gender(profile.getGender())
                 .location(profile.getLocation())
                 .phoneNumber(profile.getPhoneNumber())
                 .experienceLevel(profile.getExperienceLevel())
-                .interests(null) // Interests são ignorados na serialização
+                .interests(UserProfile.Interest.fromMask(profile.getInterestsMask())) // Sem carregar a coleção
                 .explorationType(profile.getExplorationType())
                 .privacyLevel(profile.getPrivacyLevel())
                 .isActive(profile.getIsActive())
@@ -0,0 +1,144 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.SaveTrailRequest;
+import com.namata.userprofile.dto.UserSavedTrailDTO;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.entity.UserSavedTrail;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.repository.UserSavedTrailRepository;
+import com.namata.userprofile.util.UuidV7Generator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Parte transacional das trilhas salvas: leitura e gravação no banco e atualização dos índices em memória.
+ * Os DTOs saem sem os detalhes da trilha, que vêm do catálogo remoto e são preenchidos por
+ * {@link UserSavedTrailService} depois do fim da transação.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class UserSavedTrailDataService {
+
+    private final UserSavedTrailRepository userSavedTrailRepository;
+    private final UserProfileRepository userProfileRepository;
+    private final SavedTrailIndex savedTrailIndex;
+    private final TrailPopularityIndex trailPopularityIndex;
+
+    public UserSavedTrailDTO saveTrail(UUID userId, SaveTrailRequest request) {
+        log.info("Salvando trilha {} para usuário ID: {}", request.getTrailId(), userId);
+
+        // Insere ou reativa em um único comando (ON CONFLICT), sem corrida entre toques simultâneos
+        UserSavedTrailRepository.SavedTrailRow saved = userSavedTrailRepository
+                .upsertActive(UuidV7Generator.generate(), userId, request.getTrailId(), request.getNotes())
+                .orElseThrow(() -> userProfileRepository.existsByUserId(userId)
+                        ? new IllegalArgumentException("Trilha já está salva pelo usuário")
+                        : new IllegalArgumentException("Perfil de usuário não encontrado"));
+
+        // Uma linha retornada é sempre uma transição para ativa
+        savedTrailIndex.add(userId, request.getTrailId());
+        trailPopularityIndex.recordSaved(request.getTrailId());
+        log.info("Trilha {} salva com sucesso para usuário ID: {}", request.getTrailId(), userId);
+        return convertToDTO(saved);
+    }
+
+    public void unsaveTrail(UUID userId, UUID trailId) {
+        log.info("Removendo trilha {} salva do usuário ID: {}", trailId, userId);
+
+        // Soft delete em um único comando
+        if (userSavedTrailRepository.deactivate(userId, trailId) == 0) {
+            throw userProfileRepository.existsByUserId(userId)
+                    ? new IllegalArgumentException("Trilha salva não encontrada")
+                    : new IllegalArgumentException("Perfil de usuário não encontrado");
+        }
+        savedTrailIndex.remove(userId, trailId);
+        trailPopularityIndex.recordUnsaved(trailId);
+
+        log.info("Trilha {} removida com sucesso do usuário ID: {}", trailId, userId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UserSavedTrailDTO> getSavedTrails(UUID userId) {
+        log.info("Buscando trilhas salvas do usuário ID: {}", userId);
+
+        UserProfile userProfile = findUserProfile(userId);
+        return convertToDTOs(userSavedTrailRepository.findByUserProfileAndIsActiveTrueOrderBySavedAtDesc(userProfile));
+    }
+
+    @Transactional(readOnly = true)
+    public Page<UserSavedTrailDTO> getSavedTrailsPaginated(UUID userId, Pageable pageable) {
+        log.info("Buscando trilhas salvas paginadas do usuário ID: {}", userId);
+
+        UserProfile userProfile = findUserProfile(userId);
+        return userSavedTrailRepository.findByUserProfileAndIsActiveTrueOrderBySavedAtDesc(userProfile, pageable)
+                .map(this::convertToDTO);
+    }
+
+    @Transactional(readOnly = true)
+    public long getSavedTrailsCount(UUID userId) {
+        return userSavedTrailRepository.countByUserProfileAndIsActiveTrue(findUserProfile(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public long getSavedTrailsCount(UserProfile userProfile) {
+        return userSavedTrailRepository.countByUserProfileAndIsActiveTrue(userProfile);
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> getSavedTrailIds(UUID userId) {
+        return userSavedTrailRepository.findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(findUserProfile(userId));
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserSavedTrailDTO> getSavedTrailDetails(UUID userId, UUID trailId) {
+        return userSavedTrailRepository.findByUserProfileAndTrailIdAndIsActiveTrue(findUserProfile(userId), trailId)
+                .map(this::convertToDTO);
+    }
+
+    private UserProfile findUserProfile(UUID userId) {
+        return userProfileRepository.findByUserId(userId)
+                .orElseThrow(() -> new IllegalArgumentException("Perfil de usuário não encontrado"));
+    }
+
+    private List<UserSavedTrailDTO> convertToDTOs(List<UserSavedTrail> savedTrails) {
+        return savedTrails.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    private UserSavedTrailDTO convertToDTO(UserSavedTrailRepository.SavedTrailRow savedTrail) {
+        return UserSavedTrailDTO.builder()
+                .id(savedTrail.getId())
+                .userProfileId(savedTrail.getUserProfileId())
+                .userDisplayName(savedTrail.getUserDisplayName())
+                .userProfilePictureUrl(savedTrail.getUserProfilePictureUrl())
+                .trailId(savedTrail.getTrailId())
+                .notes(savedTrail.getNotes())
+                .savedAt(savedTrail.getSavedAt())
+                .isActive(savedTrail.getIsActive())
+                .build();
+    }
+
+    private UserSavedTrailDTO convertToDTO(UserSavedTrail savedTrail) {
+        return UserSavedTrailDTO.builder()
+                .id(savedTrail.getId())
+                .userProfileId(savedTrail.getUserProfile().getId())
+                .userDisplayName(savedTrail.getUserProfile().getDisplayName())
+                .userProfilePictureUrl(savedTrail.getUserProfile().getProfilePictureUrl())
+                .trailId(savedTrail.getTrailId())
+                .notes(savedTrail.getNotes())
+                .savedAt(savedTrail.getSavedAt())
+                .isActive(savedTrail.getIsActive())
+                .build();
+    }
+}
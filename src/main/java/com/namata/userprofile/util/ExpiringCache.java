@@ -0,0 +1,100 @@
+package com.namata.userprofile.util;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+/**
+ * Mapa concorrente com prazo de validade por entrada e número máximo de entradas.
+ * Acima da capacidade sai a entrada gravada há mais tempo (FIFO): cada gravação entra em uma fila e a
+ * remoção custa O(1) amortizado, sem varrer o mapa na thread de quem grava. Entradas expiradas não são
+ * servidas por {@link #get}, mas continuam disponíveis em {@link #getIncludingExpired} até saírem pela fila.
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Queue<Node<K>> insertionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicLong stamps = new AtomicLong();
+
+    public ExpiringCache(int maxEntries) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries deve ser positivo: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Retorna o valor se a entrada existir e não tiver expirado; caso contrário {@code null}.
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null && entry.isFresh(System.nanoTime()) ? entry.value() : null;
+    }
+
+    /**
+     * Retorna o último valor gravado para a chave, mesmo expirado, enquanto ainda estiver no cache.
+     */
+    public V getIncludingExpired(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry != null ? entry.value() : null;
+    }
+
+    public void put(K key, V value, Duration ttl) {
+        long stamp = stamps.incrementAndGet();
+        entries.put(key, new Entry<>(value, System.nanoTime() + ttl.toNanos(), stamp));
+        insertionOrder.add(new Node<>(key, stamp));
+        if (queued.incrementAndGet() > maxEntries) {
+            trim();
+        }
+    }
+
+    /**
+     * Substitui o valor de uma entrada válida mantendo seu prazo; entradas ausentes ou expiradas não são alteradas.
+     */
+    public void updateIfPresent(K key, UnaryOperator<V> update) {
+        long now = System.nanoTime();
+        entries.computeIfPresent(key, (k, entry) -> entry.isFresh(now)
+                ? new Entry<>(update.apply(entry.value()), entry.expiresAt(), entry.stamp())
+                : entry);
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Descarta as gravações mais antigas até a fila voltar à capacidade. Nós de chaves regravadas
+     * ou removidas depois são ignorados: só sai a entrada cujo carimbo ainda é o do nó.
+     */
+    private void trim() {
+        while (queued.get() > maxEntries) {
+            Node<K> oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            entries.computeIfPresent(oldest.key(), (k, entry) -> entry.stamp() == oldest.stamp() ? null : entry);
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt, long stamp) {
+
+        boolean isFresh(long now) {
+            return expiresAt - now > 0;
+        }
+    }
+
+    private record Node<K>(K key, long stamp) {
+    }
+}
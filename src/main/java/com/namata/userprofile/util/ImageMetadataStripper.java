@@ -0,0 +1,279 @@
+package com.namata.userprofile.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Utilitário para remover metadados (EXIF, GPS, XMP, IPTC, comentários) de imagens sem decodificá-las.
+ * JPEG e PNG são reescritos segmento a segmento, sem perda; outros formatos não são alterados.
+ * Do EXIF de um JPEG só sobrevive a orientação, regravada em um APP1 mínimo: sem ela a foto tirada com
+ * o celular na vertical seria exibida deitada.
+ */
+public class ImageMetadataStripper {
+
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+    private static final Set<String> PNG_METADATA_CHUNKS = Set.of("tEXt", "zTXt", "iTXt", "eXIf", "tIME");
+
+    private static final int JPEG_SOI = 0xD8;
+    private static final int JPEG_EOI = 0xD9;
+    private static final int JPEG_SOS = 0xDA;
+    private static final int JPEG_COM = 0xFE;
+    private static final int JPEG_APP1 = 0xE1;
+    private static final int JPEG_APP2 = 0xE2;
+    private static final int JPEG_APP14 = 0xEE;
+    private static final int JPEG_APP15 = 0xEF;
+
+    public static final int ORIENTATION_NORMAL = 1;
+
+    private static final byte[] EXIF_HEADER = {'E', 'x', 'i', 'f', 0, 0};
+    private static final int EXIF_ORIENTATION_TAG = 0x0112;
+    private static final int EXIF_TYPE_SHORT = 3;
+
+    /**
+     * Remove os metadados do arquivo, substituindo-o atomicamente
+     * @param file Arquivo de imagem
+     * @return true se o formato é suportado e o arquivo foi reescrito
+     * @throws IOException se o arquivo for um JPEG/PNG malformado
+     */
+    public static boolean strip(Path file) throws IOException {
+        byte[] header = new byte[PNG_SIGNATURE.length];
+        int read;
+        try (InputStream input = Files.newInputStream(file)) {
+            read = input.readNBytes(header, 0, header.length);
+        }
+        boolean jpeg = read >= 2 && (header[0] & 0xFF) == 0xFF && (header[1] & 0xFF) == JPEG_SOI;
+        boolean png = read == header.length && Arrays.equals(header, PNG_SIGNATURE);
+        if (!jpeg && !png) {
+            return false;
+        }
+
+        Path temp = Files.createTempFile(file.getParent(), ".strip-", ".tmp");
+        try {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                if (jpeg) {
+                    stripJpeg(input, output);
+                } else {
+                    stripPng(input, output);
+                }
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Orientação EXIF (1 a 8) de um JPEG; {@link #ORIENTATION_NORMAL} para outros formatos ou sem a tag.
+     * Lê apenas os segmentos anteriores aos dados da imagem.
+     */
+    public static int jpegOrientation(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readUnsignedByte() != 0xFF || input.readUnsignedByte() != JPEG_SOI) {
+                return ORIENTATION_NORMAL;
+            }
+            while (true) {
+                if (input.readUnsignedByte() != 0xFF) {
+                    return ORIENTATION_NORMAL;
+                }
+                int marker = input.readUnsignedByte();
+                while (marker == 0xFF) {
+                    marker = input.readUnsignedByte();
+                }
+                if (marker == JPEG_SOS || marker == JPEG_EOI) {
+                    return ORIENTATION_NORMAL;
+                }
+                if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) {
+                    continue;
+                }
+                int length = input.readUnsignedShort();
+                if (length < 2) {
+                    return ORIENTATION_NORMAL;
+                }
+                if (marker == JPEG_APP1) {
+                    byte[] payload = readSegment(input, length);
+                    if (isExif(payload)) {
+                        return exifOrientation(payload);
+                    }
+                } else {
+                    input.skipNBytes(length - 2);
+                }
+            }
+        } catch (EOFException e) {
+            return ORIENTATION_NORMAL;
+        }
+    }
+
+    /**
+     * Copia os segmentos até o início dos dados da imagem (SOS), descartando APP1 (EXIF/XMP), APP3-APP13,
+     * APP15 e comentários. APP0 (JFIF), APP2 (perfil ICC) e APP14 (Adobe) são mantidos por afetarem as cores.
+     * A orientação do primeiro EXIF, se diferente da normal, volta em um APP1 com apenas essa tag.
+     */
+    private static void stripJpeg(DataInputStream input, DataOutputStream output) throws IOException {
+        output.writeShort(input.readUnsignedShort()); // SOI
+        boolean exifSeen = false;
+        while (true) {
+            int prefix = input.readUnsignedByte();
+            if (prefix != 0xFF) {
+                throw new IOException("JPEG inválido: marcador esperado");
+            }
+            int marker = input.readUnsignedByte();
+            while (marker == 0xFF) { // bytes de preenchimento
+                marker = input.readUnsignedByte();
+            }
+            if (marker == JPEG_SOS || marker == JPEG_EOI) {
+                output.writeByte(0xFF);
+                output.writeByte(marker);
+                input.transferTo(output);
+                return;
+            }
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD7)) { // marcadores sem segmento
+                output.writeByte(0xFF);
+                output.writeByte(marker);
+                continue;
+            }
+            int length = input.readUnsignedShort();
+            if (length < 2) {
+                throw new IOException("JPEG inválido: segmento com tamanho " + length);
+            }
+            boolean metadata = marker == JPEG_COM
+                    || (marker >= JPEG_APP1 && marker <= JPEG_APP15 && marker != JPEG_APP2 && marker != JPEG_APP14);
+            if (marker == JPEG_APP1 && !exifSeen) {
+                byte[] payload = readSegment(input, length);
+                exifSeen = isExif(payload);
+                int orientation = exifSeen ? exifOrientation(payload) : ORIENTATION_NORMAL;
+                if (orientation != ORIENTATION_NORMAL) {
+                    output.write(orientationSegment(orientation));
+                }
+            } else if (metadata) {
+                input.skipNBytes(length - 2);
+            } else {
+                output.writeByte(0xFF);
+                output.writeByte(marker);
+                output.writeShort(length);
+                copy(input, output, length - 2);
+            }
+        }
+    }
+
+    private static byte[] readSegment(DataInputStream input, int length) throws IOException {
+        byte[] payload = input.readNBytes(length - 2);
+        if (payload.length < length - 2) {
+            throw new EOFException("Imagem truncada");
+        }
+        return payload;
+    }
+
+    private static boolean isExif(byte[] payload) {
+        return payload.length >= EXIF_HEADER.length
+                && Arrays.equals(payload, 0, EXIF_HEADER.length, EXIF_HEADER, 0, EXIF_HEADER.length);
+    }
+
+    /**
+     * Procura a tag Orientation no IFD0 do bloco TIFF que segue o cabeçalho "Exif".
+     * EXIF malformado ou valor fora de 1-8 conta como orientação normal.
+     */
+    private static int exifOrientation(byte[] payload) {
+        ByteBuffer tiff = ByteBuffer.wrap(payload, EXIF_HEADER.length, payload.length - EXIF_HEADER.length).slice();
+        if (tiff.limit() < 8) {
+            return ORIENTATION_NORMAL;
+        }
+        switch (tiff.getShort(0)) {
+            case 0x4949 -> tiff.order(ByteOrder.LITTLE_ENDIAN); // "II"
+            case 0x4D4D -> tiff.order(ByteOrder.BIG_ENDIAN); // "MM"
+            default -> {
+                return ORIENTATION_NORMAL;
+            }
+        }
+        long ifdOffset = tiff.getInt(4) & 0xFFFFFFFFL;
+        if (tiff.getShort(2) != 42 || ifdOffset + 2 > tiff.limit()) {
+            return ORIENTATION_NORMAL;
+        }
+        int ifd = (int) ifdOffset;
+        int entries = tiff.getShort(ifd) & 0xFFFF;
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > tiff.limit()) {
+                break;
+            }
+            if ((tiff.getShort(entry) & 0xFFFF) == EXIF_ORIENTATION_TAG) {
+                int type = tiff.getShort(entry + 2) & 0xFFFF;
+                int value = tiff.getShort(entry + 8) & 0xFFFF;
+                return type == EXIF_TYPE_SHORT && value >= 1 && value <= 8 ? value : ORIENTATION_NORMAL;
+            }
+        }
+        return ORIENTATION_NORMAL;
+    }
+
+    // APP1 com um IFD0 de uma única entrada (Orientation), em big-endian
+    private static byte[] orientationSegment(int orientation) {
+        int payloadLength = EXIF_HEADER.length + 8 + 2 + 12 + 4;
+        return ByteBuffer.allocate(4 + payloadLength)
+                .put((byte) 0xFF).put((byte) JPEG_APP1).putShort((short) (payloadLength + 2))
+                .put(EXIF_HEADER)
+                .putShort((short) 0x4D4D).putShort((short) 42).putInt(8) // cabeçalho TIFF, IFD0 logo depois
+                .putShort((short) 1)
+                .putShort((short) EXIF_ORIENTATION_TAG).putShort((short) EXIF_TYPE_SHORT).putInt(1)
+                .putShort((short) orientation).putShort((short) 0)
+                .putInt(0) // sem próximo IFD
+                .array();
+    }
+
+    private static void stripPng(DataInputStream input, DataOutputStream output) throws IOException {
+        output.write(input.readNBytes(PNG_SIGNATURE.length));
+        while (true) {
+            int length;
+            try {
+                length = input.readInt();
+            } catch (EOFException e) {
+                throw new IOException("PNG inválido: IEND ausente");
+            }
+            if (length < 0) {
+                throw new IOException("PNG inválido: chunk com tamanho " + length);
+            }
+            byte[] type = input.readNBytes(4);
+            if (type.length < 4) {
+                throw new EOFException("Imagem truncada");
+            }
+            String typeName = new String(type, StandardCharsets.ISO_8859_1);
+            if (PNG_METADATA_CHUNKS.contains(typeName)) {
+                input.skipNBytes(length + 4L); // dados + CRC
+                continue;
+            }
+            output.writeInt(length);
+            output.write(type);
+            copy(input, output, length + 4L);
+            if (typeName.equals("IEND")) {
+                return;
+            }
+        }
+    }
+
+    private static void copy(InputStream input, OutputStream output, long length) throws IOException {
+        byte[] buffer = new byte[8192];
+        long remaining = length;
+        while (remaining > 0) {
+            int read = input.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                throw new EOFException("Imagem truncada");
+            }
+            output.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.namata.userprofile.util;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Gerador de identificadores UUID versão 7 (RFC 9562): 48 bits de timestamp em milissegundos,
+ * 12 bits de contador e 62 bits aleatórios. Os valores crescem com o tempo, de modo que as inserções
+ * vão para o fim dos índices B-tree em vez de páginas aleatórias.
+ * Dentro do mesmo milissegundo o contador garante ordem estritamente crescente neste processo;
+ * se ele se esgotar, o timestamp avança 1 ms.
+ */
+public class UuidV7Generator implements IdentifierGenerator {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final int COUNTER_BITS = 12;
+
+    // Timestamp (ms) e contador juntos em um único valor, atualizado por CAS
+    private static final AtomicLong LAST = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return generate();
+    }
+
+    public static UUID generate() {
+        long next;
+        long previous;
+        do {
+            previous = LAST.get();
+            long now = System.currentTimeMillis() << COUNTER_BITS;
+            // Novo milissegundo: contador recomeça de um valor aleatório na metade inferior, deixando folga
+            next = now > previous ? now | RANDOM.nextInt(1 << (COUNTER_BITS - 1)) : previous + 1;
+        } while (!LAST.compareAndSet(previous, next));
+
+        long timestamp = next >>> COUNTER_BITS;
+        long counter = next & ((1L << COUNTER_BITS) - 1);
+        long mostSignificantBits = (timestamp << 16) | (0x7L << 12) | counter;
+        long leastSignificantBits = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSignificantBits, leastSignificantBits);
+    }
+}
@@ -0,0 +1,162 @@
+-- Esquema base, espelhando as entidades JPA (identificadores UUID).
+-- Idempotente: em bancos criados antes pelo ddl-auto (baseline na versão 0) apenas completa o que falta.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- unaccent() não é IMMUTABLE; este wrapper permite usá-lo em colunas geradas e índices
+CREATE OR REPLACE FUNCTION f_unaccent(text)
+RETURNS text AS $$
+    SELECT public.unaccent('public.unaccent', $1)
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+CREATE OR REPLACE FUNCTION update_updated_at_column()
+RETURNS TRIGGER AS $$
+BEGIN
+    NEW.updated_at = CURRENT_TIMESTAMP;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TABLE IF NOT EXISTS user_profiles (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    display_name VARCHAR(100),
+    bio VARCHAR(500),
+    profile_picture_url VARCHAR(255),
+    date_of_birth DATE,
+    gender VARCHAR(255),
+    location VARCHAR(255),
+    phone_number VARCHAR(255),
+    experience_level VARCHAR(255),
+    interests_mask INTEGER NOT NULL DEFAULT 0,
+    exploration_type VARCHAR(255),
+    privacy_level VARCHAR(255),
+    is_active BOOLEAN,
+    is_verified BOOLEAN,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_user_profiles_user_id UNIQUE (user_id)
+);
+
+-- Bitmask dos interesses (bit = ordinal de UserProfile.Interest); ausente em bancos antigos
+ALTER TABLE user_profiles ADD COLUMN IF NOT EXISTS interests_mask INTEGER NOT NULL DEFAULT 0;
+
+-- Colunas normalizadas (minúsculas, sem acentos) mantidas pelo próprio banco para a busca por trigramas
+ALTER TABLE user_profiles
+    ADD COLUMN IF NOT EXISTS display_name_normalized TEXT
+        GENERATED ALWAYS AS (lower(f_unaccent(display_name))) STORED,
+    ADD COLUMN IF NOT EXISTS location_normalized TEXT
+        GENERATED ALWAYS AS (lower(f_unaccent(location))) STORED;
+
+CREATE TABLE IF NOT EXISTS user_profile_interests (
+    user_profile_id UUID NOT NULL REFERENCES user_profiles(id) ON DELETE CASCADE,
+    interest VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS statistics (
+    id UUID PRIMARY KEY,
+    user_profile_id UUID NOT NULL REFERENCES user_profiles(id) ON DELETE CASCADE,
+    total_trails_completed INTEGER,
+    total_distance_km DOUBLE PRECISION,
+    total_time_minutes INTEGER,
+    total_elevation_gain_m DOUBLE PRECISION,
+    longest_trail_km INTEGER,
+    highest_elevation_m INTEGER,
+    total_photos_shared INTEGER,
+    total_reviews_posted INTEGER,
+    total_likes_received INTEGER,
+    total_comments_received INTEGER,
+    total_badges_earned INTEGER,
+    total_points INTEGER,
+    current_streak INTEGER,
+    longest_streak INTEGER,
+    total_followers INTEGER,
+    total_following INTEGER,
+    total_guides_booked INTEGER,
+    global_rank INTEGER,
+    local_rank INTEGER,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    last_activity_at TIMESTAMP(6),
+    CONSTRAINT uk_statistics_user_profile_id UNIQUE (user_profile_id)
+);
+
+CREATE TABLE IF NOT EXISTS badges (
+    id UUID PRIMARY KEY,
+    name VARCHAR(100) NOT NULL,
+    description VARCHAR(500) NOT NULL,
+    icon_url VARCHAR(255) NOT NULL,
+    type VARCHAR(255),
+    rarity VARCHAR(255),
+    points_required INTEGER,
+    max_progress INTEGER,
+    criteria VARCHAR(1000),
+    is_active BOOLEAN,
+    created_at TIMESTAMP(6),
+    updated_at TIMESTAMP(6),
+    CONSTRAINT uk_badges_name UNIQUE (name)
+);
+
+CREATE TABLE IF NOT EXISTS achievements (
+    id UUID PRIMARY KEY,
+    user_profile_id UUID NOT NULL REFERENCES user_profiles(id) ON DELETE CASCADE,
+    badge_id UUID NOT NULL REFERENCES badges(id) ON DELETE CASCADE,
+    description VARCHAR(500),
+    progress INTEGER,
+    is_completed BOOLEAN,
+    earned_at TIMESTAMP(6),
+    completed_at TIMESTAMP(6),
+    metadata TEXT
+);
+
+CREATE TABLE IF NOT EXISTS activities (
+    id UUID PRIMARY KEY,
+    user_profile_id UUID NOT NULL REFERENCES user_profiles(id) ON DELETE CASCADE,
+    type VARCHAR(255) NOT NULL,
+    title VARCHAR(200) NOT NULL,
+    description VARCHAR(1000),
+    trail_id UUID,
+    distance DOUBLE PRECISION,
+    duration INTEGER,
+    elevation_gain DOUBLE PRECISION,
+    difficulty INTEGER,
+    location VARCHAR(255),
+    photo_urls VARCHAR(255),
+    likes INTEGER,
+    comments INTEGER,
+    is_public BOOLEAN,
+    created_at TIMESTAMP(6),
+    completed_at TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS user_saved_trails (
+    id UUID PRIMARY KEY,
+    user_profile_id UUID NOT NULL REFERENCES user_profiles(id) ON DELETE CASCADE,
+    trail_id UUID NOT NULL,
+    saved_at TIMESTAMP(6) NOT NULL,
+    notes VARCHAR(500),
+    is_active BOOLEAN NOT NULL,
+    -- Alvo do ON CONFLICT do upsert de trilhas salvas
+    CONSTRAINT uk_user_saved_trails_profile_trail UNIQUE (user_profile_id, trail_id)
+);
+
+-- Contadores de popularidade por trilha (mantidos em memória e gravados periodicamente)
+CREATE TABLE IF NOT EXISTS trail_popularity (
+    trail_id UUID PRIMARY KEY,
+    saved_count BIGINT NOT NULL DEFAULT 0,
+    trending_score DOUBLE PRECISION NOT NULL DEFAULT 0,
+    score_updated_at TIMESTAMP(6) NOT NULL
+);
+
+DROP TRIGGER IF EXISTS update_user_profiles_updated_at ON user_profiles;
+CREATE TRIGGER update_user_profiles_updated_at
+    BEFORE UPDATE ON user_profiles
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
+DROP TRIGGER IF EXISTS update_statistics_updated_at ON statistics;
+CREATE TRIGGER update_statistics_updated_at
+    BEFORE UPDATE ON statistics
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
@@ -1,38 +0,0 @@
--- Create user_profiles table
-CREATE TABLE user_profiles (
-    id BIGSERIAL PRIMARY KEY,
-    user_id BIGINT UNIQUE NOT NULL,
-    display_name VARCHAR(100),
-    bio VARCHAR(500),
-    profile_picture_url TEXT,
-    date_of_birth DATE,
-    gender VARCHAR(20),
-    location TEXT,
-    phone_number VARCHAR(20),
-    experience_level VARCHAR(20) DEFAULT 'BEGINNER',
-    exploration_type VARCHAR(30),
-    privacy_level VARCHAR(20) DEFAULT 'PUBLIC',
-    is_active BOOLEAN DEFAULT TRUE,
-    is_verified BOOLEAN DEFAULT FALSE,
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-    updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
-);
-
--- Create trigger to update updated_at column
-CREATE OR REPLACE FUNCTION update_updated_at_column()
-RETURNS TRIGGER AS $$
-BEGIN
-    NEW.updated_at = CURRENT_TIMESTAMP;
-    RETURN NEW;
-END;
-$$ language 'plpgsql';
-
-CREATE TRIGGER update_user_profiles_updated_at
-    BEFORE UPDATE ON user_profiles
-    FOR EACH ROW
-    EXECUTE FUNCTION update_updated_at_column();
-
--- Create index on user_id for better performance
-CREATE INDEX idx_user_profiles_user_id ON user_profiles(user_id);
-CREATE INDEX idx_user_profiles_is_active ON user_profiles(is_active);
-CREATE INDEX idx_user_profiles_created_at ON user_profiles(created_at);
\ No newline at end of file
@@ -0,0 +1,117 @@
+-- Índices para as consultas dos repositórios (comentário = métodos atendidos).
+-- CONCURRENTLY para não bloquear escritas em bancos já populados; o Flyway executa este script fora de transação.
+-- badges não recebe índices além da chave única: a tabela tem dezenas de linhas e a varredura sequencial é o melhor plano.
+
+-- user_profiles ---------------------------------------------------------------
+
+-- Busca por trigramas (findProfilesWithFilters, findProfilesSliceWithFilters, findByLocationContainingAndIsActiveTrue)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_display_name_trgm
+    ON user_profiles USING gin (display_name_normalized gin_trgm_ops)
+    WHERE is_active = TRUE;
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_location_trgm
+    ON user_profiles USING gin (location_normalized gin_trgm_ops)
+    WHERE is_active = TRUE;
+
+-- Filtro por interesses como interests_mask = ANY(...) (findProfilesWithFilters, findProfilesSliceWithFilters)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_interests_mask
+    ON user_profiles (interests_mask)
+    WHERE is_active = TRUE;
+
+-- findByExperienceLevelAndIsActiveTrue e filtro de nível da busca
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_experience_level
+    ON user_profiles (experience_level)
+    WHERE is_active = TRUE;
+
+-- findByIsVerifiedTrue, findActiveVerifiedProfiles, countVerifiedProfiles (perfis verificados são minoria)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_verified
+    ON user_profiles (is_active)
+    WHERE is_verified = TRUE;
+
+-- Igualdade exata de localização no ranking (StatisticsRepository.findByLocationOrderByTotalPointsDesc)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_location
+    ON user_profiles (location);
+
+-- Coleta de fotos sem referência (findReferencedProfilePictureUrls)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_profile_picture_url
+    ON user_profiles (profile_picture_url)
+    WHERE profile_picture_url IS NOT NULL;
+
+-- Carga da coleção de interesses por perfil
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profile_interests_user_profile_id
+    ON user_profile_interests (user_profile_id);
+
+-- statistics ------------------------------------------------------------------
+-- findByUserProfile/existsByUserProfile usam a chave única de user_profile_id.
+
+-- findAllOrderByTotalPointsDesc, findByTotalPointsGreaterThanEqual..., getMaxPoints, AVG por varredura só do índice
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_statistics_total_points
+    ON statistics (total_points DESC);
+
+-- findAllOrderByTotalTrailsCompletedDesc, findByTotalTrailsCompletedGreaterThanEqual..., getMaxTrailsCompleted
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_statistics_total_trails_completed
+    ON statistics (total_trails_completed DESC);
+
+-- findAllOrderByTotalDistanceKmDesc, getMaxDistance
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_statistics_total_distance_km
+    ON statistics (total_distance_km DESC);
+
+-- activities ------------------------------------------------------------------
+
+-- findByUserProfileOrderByCreatedAtDesc (lista, página, stream de exportação), findRecentByUserProfile,
+-- findRecentActivities, findPublicActivitiesByUserProfile, countByUserProfile, somas de distância/duração
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_user_profile_created_at
+    ON activities (user_profile_id, created_at DESC);
+
+-- findByUserProfileAndTypeOrderByCreatedAtDesc, findByUserProfileAndType, countByUserProfileAndType
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_user_profile_type_created_at
+    ON activities (user_profile_id, type, created_at DESC);
+
+-- findAllByOrderByCreatedAtDesc (atividades recentes)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_created_at
+    ON activities (created_at DESC);
+
+-- findByIsPublicTrueOrderByCreatedAtDesc, findPublicActivities
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_public_created_at
+    ON activities (created_at DESC)
+    WHERE is_public = TRUE;
+
+-- findByTypeAndIsPublicTrue
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_public_type_created_at
+    ON activities (type, created_at DESC)
+    WHERE is_public = TRUE;
+
+-- findByTrailIdOrderByCreatedAtDesc, findByUserProfileAndTrailId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_activities_trail_created_at
+    ON activities (trail_id, created_at DESC)
+    WHERE trail_id IS NOT NULL;
+
+-- achievements ----------------------------------------------------------------
+
+-- findByUserProfileOrderByEarnedAtDesc, findWithBadgeByUserProfile, findByUserProfileAndIsCompletedFalse...,
+-- findInProgressByUserProfile, findByUserProfileAndBadgeType, countByUserProfile
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_achievements_user_profile_earned_at
+    ON achievements (user_profile_id, earned_at DESC);
+
+-- findByUserProfileAndBadge, existsByUserProfileAndBadge
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_achievements_user_profile_badge
+    ON achievements (user_profile_id, badge_id);
+
+-- findByUserProfileAndIsCompletedTrueOrderByCompletedAtDesc, countByUserProfileAndIsCompletedTrue,
+-- countCompletedByUserProfile, findEarnedBadgesByUserProfile
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_achievements_user_profile_completed_at
+    ON achievements (user_profile_id, completed_at DESC)
+    WHERE is_completed = TRUE;
+
+-- findByBadgeOrderByCompletedAtDesc e exclusão em cascata de badges
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_achievements_badge_completed_at
+    ON achievements (badge_id, completed_at DESC);
+
+-- user_saved_trails -----------------------------------------------------------
+-- findByUserProfileAndTrailId..., existsBy..., upsertActive e deactivate usam a chave única (user_profile_id, trail_id).
+
+-- findByUserProfileAndIsActiveTrueOrderBySavedAtDesc (lista e página), countByUserProfileAndIsActiveTrue;
+-- com trail_id incluído, findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc é atendida só pelo índice
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_saved_trails_active_saved_at
+    ON user_saved_trails (user_profile_id, saved_at DESC)
+    INCLUDE (trail_id)
+    WHERE is_active = TRUE;
@@ -0,0 +1,32 @@
+-- Contadores de alta frequência saem da linha larga de statistics para uma tabela estreita.
+-- Só a chave primária é indexada e não há gatilho de updated_at, então cada incremento pode ser uma
+-- atualização HOT; o fillfactor deixa espaço livre na página para a nova versão da linha.
+
+CREATE TABLE statistics_counters (
+    user_profile_id UUID PRIMARY KEY REFERENCES user_profiles(id) ON DELETE CASCADE,
+    total_likes_received INTEGER NOT NULL DEFAULT 0,
+    total_comments_received INTEGER NOT NULL DEFAULT 0,
+    current_streak INTEGER NOT NULL DEFAULT 0,
+    longest_streak INTEGER NOT NULL DEFAULT 0,
+    last_activity_at TIMESTAMP(6)
+) WITH (fillfactor = 70);
+
+-- Autovacuum mais frequente: a tabela é pequena e recebe muitas atualizações
+ALTER TABLE statistics_counters SET (autovacuum_vacuum_scale_factor = 0.05, autovacuum_analyze_scale_factor = 0.05);
+
+INSERT INTO statistics_counters (user_profile_id, total_likes_received, total_comments_received,
+                                 current_streak, longest_streak, last_activity_at)
+SELECT user_profile_id,
+       COALESCE(total_likes_received, 0),
+       COALESCE(total_comments_received, 0),
+       COALESCE(current_streak, 0),
+       COALESCE(longest_streak, 0),
+       last_activity_at
+FROM statistics;
+
+ALTER TABLE statistics
+    DROP COLUMN total_likes_received,
+    DROP COLUMN total_comments_received,
+    DROP COLUMN current_streak,
+    DROP COLUMN longest_streak,
+    DROP COLUMN last_activity_at;
@@ -0,0 +1,25 @@
+-- Preenche interests_mask (bit = ordinal de UserProfile.Interest) a partir de user_profile_interests.
+-- Bancos criados pelo ddl-auto já tinham a coluna com 0 em todas as linhas, então o ADD COLUMN da V1 não a preenche.
+-- Idempotente: só altera perfis cujo mask difere da coleção, que a aplicação mantém em sincronia.
+UPDATE user_profiles up
+SET interests_mask = sub.mask
+FROM (
+    SELECT user_profile_id,
+           bit_or(CASE interest
+                      WHEN 'HIKING' THEN 1
+                      WHEN 'TREKKING' THEN 2
+                      WHEN 'MOUNTAIN_CLIMBING' THEN 4
+                      WHEN 'NATURE_PHOTOGRAPHY' THEN 8
+                      WHEN 'BIRD_WATCHING' THEN 16
+                      WHEN 'CAMPING' THEN 32
+                      WHEN 'ROCK_CLIMBING' THEN 64
+                      WHEN 'TRAIL_RUNNING' THEN 128
+                      WHEN 'ADVENTURE_SPORTS' THEN 256
+                      WHEN 'ECO_TOURISM' THEN 512
+                      ELSE 0
+                  END) AS mask
+    FROM user_profile_interests
+    GROUP BY user_profile_id
+) sub
+WHERE up.id = sub.user_profile_id
+  AND up.interests_mask IS DISTINCT FROM sub.mask;
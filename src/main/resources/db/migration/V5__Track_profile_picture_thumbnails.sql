@@ -0,0 +1,5 @@
+-- Marca de miniaturas geradas para a foto de perfil atual: a montagem das URLs deixa de consultar o disco.
+-- Fotos existentes começam sem a marca e são conferidas pela reconciliação periódica, que marca as que já
+-- têm miniaturas e agenda a geração das demais.
+ALTER TABLE user_profiles
+    ADD COLUMN IF NOT EXISTS profile_picture_thumbnails BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,5 @@
+-- Fotos ainda sem miniaturas (findProfilePictureUrlsWithoutThumbnails). Parcial: o índice só contém as
+-- poucas linhas pendentes. CONCURRENTLY, fora de transação, como na V2.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_user_profiles_pending_thumbnails
+    ON user_profiles (profile_picture_url)
+    WHERE profile_picture_thumbnails = FALSE AND profile_picture_url IS NOT NULL;
@@ -0,0 +1,24 @@
+-- Callback do Flyway: roda ao fim de todo migrate, mesmo sem migração pendente.
+-- Um CREATE INDEX CONCURRENTLY interrompido (cancelamento, deadlock, violação de unicidade) não desfaz o índice:
+-- ele fica INVALID, continua sendo mantido nas escritas e nunca é usado pelo planejador. Reexecutar a migração
+-- não resolve, porque o IF NOT EXISTS (V2) encontra o índice inválido e o pula. Por isso o migrate falha enquanto
+-- houver índice inválido no esquema. Para corrigir: DROP INDEX CONCURRENTLY <índice>; recriar o índice com o
+-- comando da migração que o define e reiniciar a aplicação.
+DO $$
+DECLARE
+    invalid_indexes TEXT;
+BEGIN
+    SELECT string_agg(format('%I', c.relname), ', ' ORDER BY c.relname)
+    INTO invalid_indexes
+    FROM pg_index i
+    JOIN pg_class c ON c.oid = i.indexrelid
+    JOIN pg_namespace n ON n.oid = c.relnamespace
+    WHERE NOT i.indisvalid
+      AND n.nspname = current_schema();
+
+    IF invalid_indexes IS NOT NULL THEN
+        RAISE EXCEPTION 'Índices inválidos deixados por CREATE INDEX CONCURRENTLY interrompido: %. '
+            'Remova com DROP INDEX CONCURRENTLY e recrie com o comando da migração correspondente.', invalid_indexes;
+    END IF;
+END
+$$;
@@ -0,0 +1,174 @@
+package com.namata.userprofile.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache e circuit breaker do auth-service contra um servidor HTTP de verdade (JDK HttpServer) como stub.
+ */
+class CachingAuthServiceClientTest {
+
+    private static final Duration LONG = Duration.ofMinutes(5);
+
+    private HttpServer server;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile int status = 200;
+    private volatile String body = "true";
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/api/v1/users/", this::handle);
+        server.start();
+    }
+
+    @AfterEach
+    void stopServer() {
+        release.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    void concurrentLookupsOfTheSameUserShareOneCall() throws Exception {
+        release = new CountDownLatch(1);
+        CachingAuthServiceClient client = client(LONG, LONG, new CircuitBreaker("auth", 5, LONG));
+        UUID userId = UUID.randomUUID();
+
+        List<CompletableFuture<Boolean>> lookups = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            lookups.add(client.userExists(userId, "token"));
+        }
+        release.countDown();
+
+        for (CompletableFuture<Boolean> lookup : lookups) {
+            assertThat(lookup.get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        assertThat(requests.get()).isEqualTo(1);
+        // Depois da resposta, o cache atende sem nova chamada
+        assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void unknownUsersAreCachedForTheNegativeTtl() throws Exception {
+        status = 404;
+        CachingAuthServiceClient client = client(LONG, LONG, new CircuitBreaker("auth", 5, LONG));
+        UUID userId = UUID.randomUUID();
+
+        assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isFalse();
+        assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isFalse();
+
+        assertThat(requests.get()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredNegativeAnswersAreAskedAgain() throws Exception {
+        status = 404;
+        CachingAuthServiceClient client = client(LONG, Duration.ZERO, new CircuitBreaker("auth", 5, LONG));
+        UUID userId = UUID.randomUUID();
+
+        assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isFalse();
+        status = 200;
+        assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void openCircuitStopsCallingAndServesTheLastKnownAnswer() throws Exception {
+        CircuitBreaker circuitBreaker = new CircuitBreaker("auth", 2, LONG);
+        CachingAuthServiceClient client = client(Duration.ZERO, Duration.ZERO, circuitBreaker);
+        UUID knownUser = UUID.randomUUID();
+        UUID unknownUser = UUID.randomUUID();
+        assertThat(client.userExists(knownUser, "token").get(5, TimeUnit.SECONDS)).isTrue();
+
+        status = 500;
+        assertThat(client.userExists(knownUser, "token").get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.userExists(unknownUser, "token").get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(circuitBreaker.isOpen()).isTrue();
+        int requestsWhenOpened = requests.get();
+
+        // Circuito aberto: nenhuma chamada; resposta expirada conhecida ou desconhecido (null)
+        assertThat(client.userExists(knownUser, "token").get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.userExists(unknownUser, "token").get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(client.usersExist(List.of(knownUser, unknownUser), "token").get(5, TimeUnit.SECONDS))
+                .containsEntry(knownUser, true)
+                .containsEntry(unknownUser, null);
+        assertThat(requests.get()).isEqualTo(requestsWhenOpened);
+    }
+
+    @Test
+    void lastKnownAnswersAreBoundedByTheCacheSize() throws Exception {
+        CachingAuthServiceClient client = new CachingAuthServiceClient(delegate(), new CircuitBreaker("auth", 5, LONG),
+                2, Duration.ZERO, Duration.ZERO, Duration.ofSeconds(5));
+        UUID oldest = UUID.randomUUID();
+        UUID recent = UUID.randomUUID();
+        UUID latest = UUID.randomUUID();
+        for (UUID userId : List.of(oldest, recent, latest)) {
+            assertThat(client.userExists(userId, "token").get(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        status = 500;
+
+        // A resposta mais antiga saiu do cache ao entrar a terceira; as demais seguem conhecidas mesmo expiradas
+        assertThat(client.userExists(oldest, "token").get(5, TimeUnit.SECONDS)).isNull();
+        assertThat(client.userExists(recent, "token").get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(client.userExists(latest, "token").get(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void slowResponsesCountAsFailures() throws Exception {
+        release = new CountDownLatch(1);
+        CircuitBreaker circuitBreaker = new CircuitBreaker("auth", 1, LONG);
+        CachingAuthServiceClient client = new CachingAuthServiceClient(delegate(), circuitBreaker, 100,
+                LONG, LONG, Duration.ofMillis(200));
+
+        assertThat(client.userExists(UUID.randomUUID(), "token").get(5, TimeUnit.SECONDS)).isNull();
+
+        assertThat(circuitBreaker.isOpen()).isTrue();
+    }
+
+    private CachingAuthServiceClient client(Duration positiveTtl, Duration negativeTtl, CircuitBreaker circuitBreaker) {
+        return new CachingAuthServiceClient(delegate(), circuitBreaker, 100, positiveTtl, negativeTtl, Duration.ofSeconds(5));
+    }
+
+    private HttpAuthServiceClient delegate() {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        return new HttpAuthServiceClient(HttpClient.newHttpClient(), new ObjectMapper(), baseUrl, Duration.ofSeconds(5));
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] response = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, response.length);
+        exchange.getResponseBody().write(response);
+        exchange.close();
+    }
+}
@@ -0,0 +1,190 @@
+package com.namata.userprofile.client;
+
+import com.namata.userprofile.dto.TrailSummaryDTO;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache do catálogo de trilhas na frente do {@link StubTrailCatalogClient}, que conta as chamadas recebidas.
+ */
+class CachingTrailCatalogClientTest {
+
+    private static final Duration LONG = Duration.ofMinutes(5);
+
+    private final ControllableCatalog catalog = new ControllableCatalog();
+
+    @AfterEach
+    void releaseCatalog() {
+        catalog.release.countDown();
+    }
+
+    @Test
+    void missesAreResolvedInOneBulkCallAndThenServedFromTheCache() {
+        CachingTrailCatalogClient client = client(100, LONG, LONG);
+        TrailSummaryDTO serra = register("Serra do Mar");
+        TrailSummaryDTO pico = register("Pico da Bandeira");
+        UUID missing = UUID.randomUUID();
+
+        Map<UUID, TrailSummaryDTO> first = client.getTrails(List.of(serra.getId(), pico.getId(), missing, serra.getId()));
+        Map<UUID, TrailSummaryDTO> second = client.getTrails(List.of(pico.getId(), missing, serra.getId()));
+
+        assertThat(first).containsOnlyKeys(serra.getId(), pico.getId());
+        assertThat(second).isEqualTo(first);
+        assertThat(catalog.getCallCount()).isEqualTo(1);
+        assertThat(catalog.lastBatch).containsExactly(serra.getId(), pico.getId(), missing);
+    }
+
+    @Test
+    void largeLookupsAreSplitIntoBatches() {
+        CachingTrailCatalogClient client = client(2, LONG, LONG);
+        List<UUID> trailIds = List.of(register("A").getId(), register("B").getId(), register("C").getId(),
+                register("D").getId(), register("E").getId());
+
+        assertThat(client.getTrails(trailIds)).hasSize(5);
+
+        assertThat(catalog.getCallCount()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownTrailsAreCachedForTheNegativeTtl() {
+        CachingTrailCatalogClient client = client(100, LONG, LONG);
+        UUID trailId = UUID.randomUUID();
+
+        assertThat(client.getTrail(trailId)).isEmpty();
+        catalog.register(trail(trailId, "Nova trilha"));
+        assertThat(client.getTrail(trailId)).isEmpty();
+
+        assertThat(catalog.getCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    void expiredNegativeEntriesAreAskedAgain() {
+        CachingTrailCatalogClient client = client(100, LONG, Duration.ZERO);
+        UUID trailId = UUID.randomUUID();
+
+        assertThat(client.getTrail(trailId)).isEmpty();
+        catalog.register(trail(trailId, "Nova trilha"));
+        assertThat(client.getTrail(trailId)).isPresent();
+        assertThat(client.getTrail(trailId)).isPresent();
+
+        assertThat(catalog.getCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    void concurrentLookupsOfTheSameTrailShareOneCall() throws Exception {
+        CachingTrailCatalogClient client = client(100, LONG, LONG);
+        TrailSummaryDTO serra = register("Serra do Mar");
+        catalog.blockNextCalls();
+
+        CompletableFuture<Map<UUID, TrailSummaryDTO>> owner = CompletableFuture.supplyAsync(
+                () -> client.getTrails(List.of(serra.getId())));
+        assertThat(catalog.entered.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<Map<UUID, TrailSummaryDTO>> waiter = CompletableFuture.supplyAsync(
+                () -> client.getTrails(List.of(serra.getId())));
+        Thread.sleep(100);
+        assertThat(waiter).isNotDone();
+        catalog.release.countDown();
+
+        assertThat(owner.get(5, TimeUnit.SECONDS)).containsEntry(serra.getId(), serra);
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).containsEntry(serra.getId(), serra);
+        assertThat(catalog.getCallCount()).isEqualTo(1);
+    }
+
+    @Test
+    void waitingLookupGivesUpAfterTheTimeout() throws Exception {
+        CachingTrailCatalogClient client = new CachingTrailCatalogClient(catalog, 1000, 100, LONG, LONG,
+                Duration.ofMillis(100));
+        TrailSummaryDTO serra = register("Serra do Mar");
+        catalog.blockNextCalls();
+        CompletableFuture.runAsync(() -> client.getTrails(List.of(serra.getId())));
+        assertThat(catalog.entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // Sem os detalhes, mas sem esperar pela chamada lenta
+        assertThat(client.getTrails(List.of(serra.getId()))).isEmpty();
+    }
+
+    @Test
+    void failuresAreNotCached() {
+        CachingTrailCatalogClient client = client(100, LONG, LONG);
+        TrailSummaryDTO serra = register("Serra do Mar");
+        catalog.failures.set(1);
+
+        assertThat(client.getTrail(serra.getId())).isEmpty();
+        assertThat(client.getTrail(serra.getId())).contains(serra);
+        assertThat(client.getTrail(serra.getId())).contains(serra);
+
+        assertThat(catalog.getCallCount()).isEqualTo(2);
+    }
+
+    @Test
+    void invalidatedTrailIsFetchedAgain() {
+        CachingTrailCatalogClient client = client(100, LONG, LONG);
+        TrailSummaryDTO serra = register("Serra do Mar");
+        client.getTrail(serra.getId());
+        TrailSummaryDTO renamed = trail(serra.getId(), "Serra do Mar - Trecho Norte");
+        catalog.register(renamed);
+
+        client.invalidate(serra.getId());
+
+        assertThat(client.getTrail(serra.getId())).contains(renamed);
+        assertThat(catalog.getCallCount()).isEqualTo(2);
+    }
+
+    private CachingTrailCatalogClient client(int batchSize, Duration ttl, Duration negativeTtl) {
+        return new CachingTrailCatalogClient(catalog, 1000, batchSize, ttl, negativeTtl, Duration.ofSeconds(5));
+    }
+
+    private TrailSummaryDTO register(String name) {
+        TrailSummaryDTO trail = trail(UUID.randomUUID(), name);
+        catalog.register(trail);
+        return trail;
+    }
+
+    private static TrailSummaryDTO trail(UUID id, String name) {
+        return TrailSummaryDTO.builder().id(id).name(name).difficultyLevel("MODERATE").build();
+    }
+
+    /**
+     * Stub que pode segurar as chamadas até o teste liberar ou falhar um número de vezes.
+     */
+    private static final class ControllableCatalog extends StubTrailCatalogClient {
+
+        final AtomicInteger failures = new AtomicInteger();
+        volatile CountDownLatch entered = new CountDownLatch(0);
+        volatile CountDownLatch release = new CountDownLatch(0);
+        volatile List<UUID> lastBatch;
+
+        void blockNextCalls() {
+            entered = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+
+        @Override
+        public Map<UUID, TrailSummaryDTO> getTrails(Collection<UUID> trailIds) {
+            Map<UUID, TrailSummaryDTO> result = super.getTrails(trailIds);
+            lastBatch = List.copyOf(trailIds);
+            entered.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (failures.getAndUpdate(remaining -> Math.max(0, remaining - 1)) > 0) {
+                throw new IllegalStateException("trail-service indisponível");
+            }
+            return result;
+        }
+    }
+}
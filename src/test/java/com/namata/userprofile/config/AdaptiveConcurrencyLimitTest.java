@@ -0,0 +1,71 @@
+package com.namata.userprofile.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = 1_000_000;
+
+    @Test
+    void rejectsAboveTheLimit() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10);
+
+        AdaptiveConcurrencyLimit.Permit first = limit.tryAcquire();
+        assertThat(limit.tryAcquire()).isNotNull();
+        assertThat(limit.tryAcquire()).isNull();
+
+        first.release(RTT, false);
+        assertThat(limit.getInFlight()).isEqualTo(1);
+        assertThat(limit.tryAcquire()).isNotNull();
+    }
+
+    @Test
+    void dropsBackOffMultiplicatively() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 1, 100);
+
+        limit.tryAcquire().release(RTT, true);
+
+        assertThat(limit.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    void growsWhenTheSampleStartedWithTheLimitInUse() {
+        AdaptiveConcurrencyLimit limit = warmedUp();
+        List<AdaptiveConcurrencyLimit.Permit> crowd = acquire(limit, 30);
+
+        crowd.get(crowd.size() - 1).release(RTT, false);
+
+        assertThat(limit.getLimit()).isGreaterThan(50);
+    }
+
+    @Test
+    void concurrencyIsTheOneSeenWhenTheRequestStarted() {
+        AdaptiveConcurrencyLimit limit = warmedUp();
+        // Começou sozinha: a latência dela não diz nada sobre o limite, mesmo terminando no meio de um pico
+        AdaptiveConcurrencyLimit.Permit lonely = limit.tryAcquire();
+        acquire(limit, 30);
+
+        lonely.release(RTT, false);
+
+        assertThat(limit.getLimit()).isEqualTo(50);
+    }
+
+    private static AdaptiveConcurrencyLimit warmedUp() {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 1, 100);
+        limit.tryAcquire().release(RTT, false);
+        return limit;
+    }
+
+    private static List<AdaptiveConcurrencyLimit.Permit> acquire(AdaptiveConcurrencyLimit limit, int count) {
+        List<AdaptiveConcurrencyLimit.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            permits.add(limit.tryAcquire());
+        }
+        return permits;
+    }
+}
@@ -0,0 +1,88 @@
+package com.namata.userprofile.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Custo por requisição da verificação do JWT: decodificação completa pelo Nimbus (parse, HMAC e validação das
+ * claims) contra um acerto no {@link CachingJwtDecoder}, com o mesmo decoder HS256 da configuração de segurança.
+ * Roda com {@code mvn test -Pbenchmark}; os tempos são impressos na saída do teste.
+ */
+@Tag("benchmark")
+class CachingJwtDecoderBenchmarkTest {
+
+    private static final byte[] SECRET = "10a4fbca7931c103edca921d87fa434fbd45f944e1c2ffc05d96408283201e60"
+            .getBytes(StandardCharsets.UTF_8);
+    // Tokens distintos em uso ao mesmo tempo (usuários ativos)
+    private static final int TOKENS = 1_000;
+    private static final int DECODES_PER_ROUND = 200_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void cacheHitIsCheaperThanAFullDecode() throws Exception {
+        NimbusJwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SECRET, "HmacSHA256"))
+                .macAlgorithm(MacAlgorithm.HS256)
+                .build();
+        CachingJwtDecoder caching = new CachingJwtDecoder(nimbus, 50_000, Duration.ofMinutes(15));
+        List<String> tokens = IntStream.range(0, TOKENS).mapToObj(CachingJwtDecoderBenchmarkTest::token).toList();
+        tokens.forEach(caching::decode);
+
+        // Rodadas alternadas, ficando com a melhor de cada lado: tira o viés de aquecimento do JIT
+        double bestNimbus = Double.MAX_VALUE;
+        double bestCached = Double.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            bestNimbus = Math.min(bestNimbus, nanosPerDecode(nimbus, tokens));
+            bestCached = Math.min(bestCached, nanosPerDecode(caching, tokens));
+        }
+
+        System.out.printf("JWT HS256, %d tokens: Nimbus %.2f µs/decodificação, acerto no cache %.2f µs (%.1fx)%n",
+                TOKENS, bestNimbus / 1e3, bestCached / 1e3, bestNimbus / bestCached);
+        // Limite folgado: o acerto ainda calcula o SHA-256 do token, mas não faz parse nem HMAC
+        assertThat(bestCached).isLessThan(bestNimbus / 2);
+    }
+
+    private static double nanosPerDecode(JwtDecoder decoder, List<String> tokens) {
+        long subjects = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < DECODES_PER_ROUND; i++) {
+            subjects += decoder.decode(tokens.get(i % TOKENS)).getSubject().length();
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(subjects).isPositive();
+        return (double) elapsed / DECODES_PER_ROUND;
+    }
+
+    private static String token(int user) {
+        try {
+            SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), new JWTClaimsSet.Builder()
+                    .subject("usuario-" + user)
+                    .claim("roles", List.of("USER"))
+                    .issueTime(Date.from(Instant.now().minusSeconds(30)))
+                    .expirationTime(Date.from(Instant.now().plus(Duration.ofHours(1))))
+                    .build());
+            jwt.sign(new MACSigner(SECRET));
+            return jwt.serialize();
+        } catch (JOSEException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
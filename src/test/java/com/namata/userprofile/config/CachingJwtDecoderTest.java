@@ -0,0 +1,151 @@
+package com.namata.userprofile.config;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.JWSHeader;
+import com.nimbusds.jose.crypto.MACSigner;
+import com.nimbusds.jwt.JWTClaimsSet;
+import com.nimbusds.jwt.SignedJWT;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.jose.jws.MacAlgorithm;
+import org.springframework.security.oauth2.jwt.Jwt;
+import org.springframework.security.oauth2.jwt.JwtDecoder;
+import org.springframework.security.oauth2.jwt.JwtException;
+import org.springframework.security.oauth2.jwt.NimbusJwtDecoder;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CachingJwtDecoderTest {
+
+    private static final byte[] SECRET = "10a4fbca7931c103edca921d87fa434fbd45f944e1c2ffc05d96408283201e60"
+            .getBytes(StandardCharsets.UTF_8);
+    private static final Duration LONG = Duration.ofMinutes(15);
+
+    private final AtomicInteger verifications = new AtomicInteger();
+    private final NimbusJwtDecoder nimbus = NimbusJwtDecoder.withSecretKey(new SecretKeySpec(SECRET, "HmacSHA256"))
+            .macAlgorithm(MacAlgorithm.HS256)
+            .build();
+    private final JwtDecoder countingDecoder = token -> {
+        verifications.incrementAndGet();
+        return nimbus.decode(token);
+    };
+
+    @Test
+    void reusedTokenIsVerifiedOnce() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 100, LONG);
+        String token = token("usuario", Instant.now().plus(Duration.ofHours(1)));
+
+        Jwt first = decoder.decode(token);
+        for (int i = 0; i < 100; i++) {
+            assertThat(decoder.decode(token)).isSameAs(first);
+        }
+
+        assertThat(verifications.get()).isEqualTo(1);
+    }
+
+    @Test
+    void cachedEntryDoesNotOutliveTheTokenExpiry() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 100, LONG);
+        Instant expiresAt = Instant.now().plusSeconds(2);
+        String token = token("usuario", expiresAt);
+        decoder.decode(token);
+
+        Thread.sleep(Duration.between(Instant.now(), expiresAt).plusMillis(200).toMillis());
+        verifications.set(0);
+        // O delegate ainda aceita o token (tolerância de relógio), mas precisa ser consultado de novo
+        decoder.decode(token);
+
+        assertThat(verifications.get()).isEqualTo(1);
+    }
+
+    @Test
+    void slowVerificationDoesNotExtendTheEntryPastTheTokenExpiry() throws Exception {
+        JwtDecoder slowDecoder = token -> {
+            try {
+                Thread.sleep(800);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return countingDecoder.decode(token);
+        };
+        CachingJwtDecoder decoder = new CachingJwtDecoder(slowDecoder, 100, LONG);
+        String token = token("usuario", Instant.now().plusSeconds(2));
+        Instant expiresAt = decoder.decode(token).getExpiresAt();
+
+        // Depois do exp, mas antes de exp + tempo da verificação
+        Thread.sleep(Duration.between(Instant.now(), expiresAt).plusMillis(200).toMillis());
+        decoder.decode(token);
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cachedEntryDoesNotOutliveTheMaximumTtl() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 100, Duration.ofMillis(200));
+        String token = token("usuario", Instant.now().plus(Duration.ofHours(1)));
+        decoder.decode(token);
+
+        Thread.sleep(300);
+        decoder.decode(token);
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void alreadyExpiredTokensAreNotCached() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 100, LONG);
+        // Expirado há 10s: ainda dentro da tolerância de 60s do delegate
+        String token = token("usuario", Instant.now().minusSeconds(10));
+
+        decoder.decode(token);
+        decoder.decode(token);
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedTokensAreNotCached() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 100, LONG);
+        String token = token("usuario", Instant.now().plus(Duration.ofHours(1)));
+        String tampered = token.substring(0, token.length() - 2) + (token.endsWith("AA") ? "BB" : "AA");
+
+        assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+        assertThatThrownBy(() -> decoder.decode(tampered)).isInstanceOf(JwtException.class);
+
+        assertThat(verifications.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheSizeIsBounded() throws Exception {
+        CachingJwtDecoder decoder = new CachingJwtDecoder(countingDecoder, 10, LONG);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+        String first = token("usuario-0", expiresAt);
+        decoder.decode(first);
+        for (int i = 1; i <= 10; i++) {
+            decoder.decode(token("usuario-" + i, expiresAt));
+        }
+        verifications.set(0);
+
+        decoder.decode(first);
+
+        assertThat(verifications.get()).isEqualTo(1);
+    }
+
+    private static String token(String subject, Instant expiresAt) throws JOSEException {
+        SignedJWT jwt = new SignedJWT(new JWSHeader(JWSAlgorithm.HS256), new JWTClaimsSet.Builder()
+                .subject(subject)
+                .issueTime(Date.from(Instant.now().minusSeconds(30)))
+                .expirationTime(Date.from(expiresAt))
+                .build());
+        jwt.sign(new MACSigner(SECRET));
+        return jwt.serialize();
+    }
+}
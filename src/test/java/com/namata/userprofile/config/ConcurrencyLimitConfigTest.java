@@ -0,0 +1,136 @@
+package com.namata.userprofile.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tetos dos grupos derivados do pool de conexões: com ranking e busca no teto, as leituras ainda obtêm
+ * conexão de um pool do mesmo tamanho do real (H2 atrás do {@link ConnectionLimitingDataSource}).
+ * Os limites começam acima do teto para que cada grupo já parta do máximo permitido.
+ */
+class ConcurrencyLimitConfigTest {
+
+    private static final int POOL = DatabaseConfig.MAXIMUM_POOL_SIZE;
+
+    private final ConcurrencyLimitConfig config = new ConcurrencyLimitConfig();
+    private final ConnectionLimitingDataSource pool = new ConnectionLimitingDataSource(
+            new DriverManagerDataSource("jdbc:h2:mem:concurrency-limit;DB_CLOSE_DELAY=-1"), POOL, Duration.ofMillis(200));
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final List<Thread> requests = new ArrayList<>();
+
+    private ConcurrencyLimitFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(config, "minLimit", 2);
+        ReflectionTestUtils.setField(config, "retryAfterSeconds", 1);
+        ReflectionTestUtils.setField(config, "rankingInitialLimit", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(config, "rankingPoolShare", 0.25);
+        ReflectionTestUtils.setField(config, "searchInitialLimit", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(config, "searchPoolShare", 0.25);
+        ReflectionTestUtils.setField(config, "writesInitialLimit", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(config, "writesPoolShare", 0.5);
+        ReflectionTestUtils.setField(config, "readsInitialLimit", Integer.MAX_VALUE);
+        ReflectionTestUtils.setField(config, "readsPoolShare", 1.0);
+        filter = config.concurrencyLimitFilter(new SimpleMeterRegistry()).getFilter();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        for (Thread request : requests) {
+            request.join(5_000);
+        }
+    }
+
+    @Test
+    void rankingAndSearchTogetherTakeAtMostHalfThePool() throws Exception {
+        int ranking = holdConnections("/api/v1/statistics/ranking/points", POOL);
+        int search = holdConnections("/api/v1/profiles/search", POOL);
+
+        assertThat(ranking).isEqualTo(POOL / 4);
+        assertThat(search).isEqualTo(POOL / 4);
+        assertThat(pool.getAvailablePermits()).isEqualTo(POOL / 2);
+    }
+
+    @Test
+    void readsGetThroughWhileRankingAndSearchAreSaturated() throws Exception {
+        int heavy = holdConnections("/api/v1/statistics/ranking/points", POOL)
+                + holdConnections("/api/v1/profiles/search", POOL);
+        assertThat(rejected("/api/v1/statistics/ranking/points")).isTrue();
+        assertThat(rejected("/api/v1/profiles/search")).isTrue();
+
+        // Todas as conexões restantes vão para leituras simples, ao mesmo tempo
+        int reads = holdConnections("/api/v1/profiles/" + UUID.randomUUID(), POOL - heavy);
+
+        assertThat(reads).isEqualTo(POOL - heavy).isGreaterThanOrEqualTo(POOL / 2);
+        assertThat(pool.getAvailablePermits()).isZero();
+    }
+
+    @Test
+    void heavyGroupsCannotTakeTheWholePool() {
+        ReflectionTestUtils.setField(config, "searchPoolShare", 0.75);
+
+        assertThatThrownBy(() -> config.concurrencyLimitFilter(new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    /**
+     * Dispara {@code attempts} requisições, uma de cada vez, cada uma segurando uma conexão até o fim do teste.
+     * Devolve quantas passaram pelo limite do grupo e obtiveram conexão.
+     */
+    private int holdConnections(String path, int attempts) throws InterruptedException {
+        AtomicInteger connected = new AtomicInteger();
+        for (int i = 0; i < attempts; i++) {
+            CountDownLatch settled = new CountDownLatch(1);
+            requests.add(Thread.ofVirtual().start(() -> {
+                try {
+                    filter.doFilter(get(path), new MockHttpServletResponse(), (req, res) -> {
+                        try (Connection connection = pool.getConnection()) {
+                            connected.incrementAndGet();
+                            settled.countDown();
+                            release.await(10, TimeUnit.SECONDS);
+                        } catch (SQLException | InterruptedException e) {
+                            // Sem conexão dentro do prazo: não conta
+                        }
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    settled.countDown();
+                }
+            }));
+            assertThat(settled.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+        return connected.get();
+    }
+
+    private boolean rejected(String path) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(get(path), response, (req, res) -> { });
+        return response.getStatus() == 503;
+    }
+
+    private static MockHttpServletRequest get(String path) {
+        return new MockHttpServletRequest("GET", path);
+    }
+}
@@ -0,0 +1,96 @@
+package com.namata.userprofile.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimitFilterTest {
+
+    private final AdaptiveConcurrencyLimit readLimit = new AdaptiveConcurrencyLimit(20, 1, 100);
+    private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(group("ranking"), group("search"),
+            group("writes"), new ConcurrencyLimitFilter.LimitGroup("reads", readLimit,
+                    new SimpleMeterRegistry().counter("rejected")), 1);
+
+    @Test
+    void serverErrorsThatAreNotOverloadKeepTheLimit() throws Exception {
+        MockHttpServletRequest request = request();
+        request.setAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE, new IllegalStateException("bug"));
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) ->
+                ((MockHttpServletResponse) res).setStatus(500));
+
+        assertThat(readLimit.getLimit()).isEqualTo(20);
+        assertThat(readLimit.getInFlight()).isZero();
+    }
+
+    @Test
+    void handledPoolExhaustionShrinksTheLimit() throws Exception {
+        MockHttpServletRequest request = request();
+
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(DispatcherServlet.EXCEPTION_ATTRIBUTE, new CannotGetJdbcConnectionException(
+                    "Sem conexão", new SQLTransientConnectionException("Connection is not available")));
+            ((MockHttpServletResponse) res).setStatus(500);
+        });
+
+        assertThat(readLimit.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    void propagatedTimeoutShrinksTheLimit() {
+        FilterChain timingOut = (req, res) -> {
+            throw new QueryTimeoutException("Consulta cancelada");
+        };
+
+        assertThatThrownBy(() -> filter.doFilter(request(), new MockHttpServletResponse(), timingOut))
+                .isInstanceOf(QueryTimeoutException.class);
+
+        assertThat(readLimit.getLimit()).isEqualTo(18);
+        assertThat(readLimit.getInFlight()).isZero();
+    }
+
+    @Test
+    void recognizesOverloadAnywhereInTheCauseChain() {
+        assertThat(ConcurrencyLimitFilter.isOverload(new RuntimeException(
+                new SQLException("canceling statement due to statement timeout", "57014")))).isTrue();
+        assertThat(ConcurrencyLimitFilter.isOverload(new RuntimeException(new SQLException("syntax", "42601"))))
+                .isFalse();
+        assertThat(ConcurrencyLimitFilter.isOverload(null)).isFalse();
+    }
+
+    @Test
+    void rejectsWithRetryAfterAboveTheLimit() throws Exception {
+        AdaptiveConcurrencyLimit.Permit[] held = new AdaptiveConcurrencyLimit.Permit[20];
+        for (int i = 0; i < held.length; i++) {
+            held[i] = readLimit.tryAcquire();
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        filter.doFilter(request(), response, (req, res) -> {
+            throw new AssertionError("não deveria chegar ao controller");
+        });
+
+        assertThat(response.getStatus()).isEqualTo(503);
+        assertThat(response.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/api/v1/profiles/123");
+    }
+
+    private static ConcurrencyLimitFilter.LimitGroup group(String name) {
+        return new ConcurrencyLimitFilter.LimitGroup(name, new AdaptiveConcurrencyLimit(20, 1, 100),
+                new SimpleMeterRegistry().counter("rejected"));
+    }
+}
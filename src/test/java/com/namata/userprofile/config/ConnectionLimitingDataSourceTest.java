@@ -0,0 +1,89 @@
+package com.namata.userprofile.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConnectionLimitingDataSourceTest {
+
+    private static final int POOL_SIZE = 4;
+
+    private final HikariDataSource pool = pool();
+
+    @AfterEach
+    void closePool() {
+        pool.close();
+    }
+
+    @Test
+    void manyVirtualThreadsNeverHoldMoreConnectionsThanThePool() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, POOL_SIZE, Duration.ofSeconds(30));
+        AtomicInteger holding = new AtomicInteger();
+        AtomicInteger maxHolding = new AtomicInteger();
+
+        List<Future<?>> tasks = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 500; i++) {
+                tasks.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        maxHolding.accumulateAndGet(holding.incrementAndGet(), Math::max);
+                        connection.createStatement().execute("SELECT 1");
+                        Thread.sleep(2);
+                        holding.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        }
+
+        assertThat(maxHolding.get()).isLessThanOrEqualTo(POOL_SIZE);
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(POOL_SIZE);
+    }
+
+    @Test
+    void waitingBeyondTheTimeoutFailsAsATransientError() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 1, Duration.ofMillis(100));
+
+        try (Connection held = dataSource.getConnection()) {
+            assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+        }
+        try (Connection connection = dataSource.getConnection()) {
+            assertThat(connection.isValid(1)).isTrue();
+        }
+    }
+
+    @Test
+    void closingTwiceReleasesThePermitOnce() throws Exception {
+        ConnectionLimitingDataSource dataSource = new ConnectionLimitingDataSource(pool, 2, Duration.ofSeconds(1));
+
+        Connection connection = dataSource.getConnection();
+        connection.close();
+        connection.close();
+
+        assertThat(dataSource.getAvailablePermits()).isEqualTo(2);
+    }
+
+    private static HikariDataSource pool() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:h2:mem:connection-limit-test;DB_CLOSE_DELAY=-1");
+        config.setMaximumPoolSize(POOL_SIZE);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,220 @@
+package com.namata.userprofile.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Roteamento entre dois bancos H2 (primário e réplica). As funções de replicação do PostgreSQL usadas na
+ * verificação de atraso são simuladas no primário e na réplica por aliases para os métodos estáticos abaixo
+ * (por isso a classe é pública: o H2 precisa acessá-los), e o tipo pg_lsn por um domínio sobre VARCHAR.
+ */
+public class ReadWriteRoutingDataSourceTest {
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica";
+    private static final Duration MAX_LAG = Duration.ofSeconds(2);
+
+    private static volatile long replicaLagMillis;
+    private static volatile String primaryLsn;
+    private static volatile String replayLsn;
+
+    private ReadWriteRoutingDataSource routingDataSource;
+    private DataSource dataSource;
+    private DataSourceTransactionManager transactionManager;
+
+    public static boolean pgIsInRecovery() {
+        return true;
+    }
+
+    public static String pgCurrentWalLsn() {
+        return primaryLsn;
+    }
+
+    public static String pgLastWalReplayLsn() {
+        return replayLsn;
+    }
+
+    public static Long pgWalLsnDiff(String a, String b) {
+        return a == null || b == null ? null : lsn(a) - lsn(b);
+    }
+
+    public static Timestamp pgLastXactReplayTimestamp() {
+        return Timestamp.from(Instant.now().minusMillis(replicaLagMillis));
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        replicaLagMillis = 0;
+        primaryLsn = "0/1";
+        replayLsn = "0/1";
+        String owner = ReadWriteRoutingDataSourceTest.class.getName();
+        DataSource primary = new DriverManagerDataSource(PRIMARY_URL + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = primary.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ALIAS IF NOT EXISTS pg_current_wal_lsn FOR '" + owner + ".pgCurrentWalLsn'");
+        }
+        DataSource replica = new DriverManagerDataSource(REPLICA_URL + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = replica.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE DOMAIN IF NOT EXISTS pg_lsn AS VARCHAR(32)");
+            statement.execute("CREATE ALIAS IF NOT EXISTS pg_is_in_recovery FOR '" + owner + ".pgIsInRecovery'");
+            statement.execute("CREATE ALIAS IF NOT EXISTS pg_last_wal_replay_lsn FOR '" + owner + ".pgLastWalReplayLsn'");
+            statement.execute("CREATE ALIAS IF NOT EXISTS pg_wal_lsn_diff FOR '" + owner + ".pgWalLsnDiff'");
+            statement.execute("CREATE ALIAS IF NOT EXISTS pg_last_xact_replay_timestamp FOR '"
+                    + owner + ".pgLastXactReplayTimestamp'");
+        }
+
+        routingDataSource = new ReadWriteRoutingDataSource(new DriverManagerDataSource(PRIMARY_URL + ";DB_CLOSE_DELAY=-1"), List.of(replica),
+                MAX_LAG, Duration.ofMillis(50), Duration.ofSeconds(30));
+        routingDataSource.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        awaitRoute(true, REPLICA_URL);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        SecurityContextHolder.clearContext();
+        routingDataSource.close();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToTheReplica() {
+        assertThat(databaseUsedBy(true)).isEqualTo(REPLICA_URL);
+    }
+
+    @Test
+    void writeTransactionsGoToThePrimary() {
+        assertThat(databaseUsedBy(false)).isEqualTo(PRIMARY_URL);
+    }
+
+    @Test
+    void readsAfterACommittedWriteStayOnThePrimaryForTheSameSubject() {
+        authenticateAs("ana");
+        databaseUsedBy(false);
+
+        assertThat(databaseUsedBy(true)).isEqualTo(PRIMARY_URL);
+
+        authenticateAs("bruno");
+        assertThat(databaseUsedBy(true)).isEqualTo(REPLICA_URL);
+    }
+
+    @Test
+    void readsReturnToTheReplicaWhenTheReadYourWritesWindowEnds() throws Exception {
+        routingDataSource.close();
+        routingDataSource = new ReadWriteRoutingDataSource(new DriverManagerDataSource(PRIMARY_URL + ";DB_CLOSE_DELAY=-1"),
+                List.of(new DriverManagerDataSource(REPLICA_URL + ";DB_CLOSE_DELAY=-1")),
+                MAX_LAG, Duration.ofMillis(50), Duration.ofMillis(200));
+        routingDataSource.afterPropertiesSet();
+        dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        awaitRoute(true, REPLICA_URL);
+        authenticateAs("ana");
+
+        databaseUsedBy(false);
+        assertThat(databaseUsedBy(true)).isEqualTo(PRIMARY_URL);
+
+        Thread.sleep(300);
+        assertThat(databaseUsedBy(true)).isEqualTo(REPLICA_URL);
+    }
+
+    @Test
+    void rolledBackWritesDoNotPinTheSubjectToThePrimary() {
+        authenticateAs("ana");
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            databaseUrl();
+            status.setRollbackOnly();
+        });
+
+        assertThat(databaseUsedBy(true)).isEqualTo(REPLICA_URL);
+    }
+
+    @Test
+    void laggingReplicaIsSkippedUntilItCatchesUp() {
+        primaryLsn = "0/2";
+        replicaLagMillis = MAX_LAG.toMillis() * 5;
+        awaitRoute(true, PRIMARY_URL);
+
+        replayLsn = "0/2";
+        awaitRoute(true, REPLICA_URL);
+    }
+
+    @Test
+    void disconnectedReplicaIsSkippedEvenWithNothingLeftToReplay() {
+        // Receptor de WAL desconectado: a réplica aplicou tudo o que recebeu, mas o primário seguiu em frente
+        replicaLagMillis = MAX_LAG.toMillis() * 5;
+        primaryLsn = "0/3000060";
+        replayLsn = "0/2000028";
+
+        awaitRoute(true, PRIMARY_URL);
+    }
+
+    @Test
+    void replicaBehindByLessThanTheMaximumLagKeepsServingReads() {
+        replicaLagMillis = MAX_LAG.toMillis() / 4;
+        primaryLsn = "0/3000060";
+        replayLsn = "0/2000028";
+
+        routeStaysFor(Duration.ofMillis(300), REPLICA_URL);
+    }
+
+    private void awaitRoute(boolean readOnly, String expectedUrl) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!expectedUrl.equals(databaseUsedBy(readOnly)) && System.nanoTime() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertThat(databaseUsedBy(readOnly)).isEqualTo(expectedUrl);
+    }
+
+    private void routeStaysFor(Duration duration, String expectedUrl) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        while (System.nanoTime() < deadline) {
+            assertThat(databaseUsedBy(true)).isEqualTo(expectedUrl);
+        }
+    }
+
+    private String databaseUsedBy(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> databaseUrl());
+    }
+
+    private String databaseUrl() {
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+
+    private static long lsn(String value) {
+        String[] parts = value.split("/");
+        return (Long.parseLong(parts[0], 16) << 32) | Long.parseLong(parts[1], 16);
+    }
+
+    private static void authenticateAs(String subject) {
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(subject, null, List.of()));
+    }
+}
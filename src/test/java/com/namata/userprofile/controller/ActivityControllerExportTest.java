@@ -0,0 +1,130 @@
+package com.namata.userprofile.controller;
+
+import com.namata.userprofile.service.ActivityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Acesso à exportação de atividades: só o dono do histórico (sub do token) ou um administrador.
+ */
+class ActivityControllerExportTest {
+
+    private static final String LINE = "{\"title\":\"Serra do Cipó\"}\n";
+
+    private final UUID userId = UUID.randomUUID();
+
+    private ActivityService activityService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        activityService = mock(ActivityService.class);
+        when(activityService.userProfileExists(userId)).thenReturn(true);
+        when(activityService.exportUserActivities(eq(userId), any())).thenAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write(LINE.getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        });
+        mockMvc = MockMvcBuilders.standaloneSetup(new ActivityController(activityService)).build();
+    }
+
+    @Test
+    void ownerExportsTheirHistory() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/activities/user/{userId}/export", userId)
+                        .principal(authentication(userId.toString())))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"activities-" + userId + ".ndjson\""))
+                .andExpect(content().bytes(LINE.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void gzipExportIsCompressed() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/activities/user/{userId}/export", userId)
+                        .param("gzip", "true")
+                        .principal(authentication(userId.toString())))
+                .andReturn();
+
+        byte[] body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(LINE);
+        }
+    }
+
+    @Test
+    void anotherUsersHistoryIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/activities/user/{userId}/export", userId)
+                        .principal(authentication(UUID.randomUUID().toString())))
+                .andExpect(status().isForbidden());
+
+        verify(activityService, never()).userProfileExists(any());
+        verify(activityService, never()).exportUserActivities(any(), any());
+    }
+
+    @Test
+    void adminExportsAnyHistory() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/activities/user/{userId}/export", userId)
+                        .principal(authentication(UUID.randomUUID().toString(), "ROLE_ADMIN")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(LINE.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void unknownUserIsNotFoundForAnAdmin() throws Exception {
+        UUID unknown = UUID.randomUUID();
+
+        mockMvc.perform(get("/api/v1/activities/user/{userId}/export", unknown)
+                        .principal(authentication(UUID.randomUUID().toString(), "ROLE_ADMIN")))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void unauthenticatedRequestIsForbidden() throws Exception {
+        mockMvc.perform(get("/api/v1/activities/user/{userId}/export", userId))
+                .andExpect(status().isForbidden());
+    }
+
+    private static TestingAuthenticationToken authentication(String subject, String... authorities) {
+        TestingAuthenticationToken authentication = new TestingAuthenticationToken(subject, null, authorities);
+        authentication.setAuthenticated(true);
+        return authentication;
+    }
+}
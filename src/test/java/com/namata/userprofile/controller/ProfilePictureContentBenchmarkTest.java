@@ -0,0 +1,126 @@
+package com.namata.userprofile.controller;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServer;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazão da entrega de fotos em um Tomcat embutido real: o handler dedicado (sendfile, ETag forte) contra o
+ * handler de recursos estáticos padrão do Spring que servia o mesmo diretório antes dele.
+ * Roda com {@code mvn test -Pbenchmark}; os resultados são impressos na saída do teste.
+ */
+@Tag("benchmark")
+class ProfilePictureContentBenchmarkTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final int FILE_SIZE = 256 * 1024;
+    private static final int CLIENTS = 8;
+    private static final int WARMUP_REQUESTS = 500;
+    private static final int MEASURED_REQUESTS = 4_000;
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    static Path root;
+
+    @Test
+    void dedicatedHandlerAgainstTheDefaultResourceHandler() throws Exception {
+        byte[] content = new byte[FILE_SIZE];
+        new Random(1).nextBytes(content);
+        Files.createDirectories(root.resolve("ab/ab"));
+        Files.write(root.resolve("ab/ab/" + HASH + ".jpg"), content);
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        ProfilePictureContentController controller = new ProfilePictureContentController();
+        ReflectionTestUtils.setField(controller, "profilePicturesDirectory", root.toString());
+        context.addBeanFactoryPostProcessor(beanFactory -> beanFactory.registerSingleton("profilePictureContentController", controller));
+        context.register(WebConfig.class);
+        WebServer server = new TomcatServletWebServerFactory(0).getWebServer(servletContext ->
+                servletContext.addServlet("dispatcher", new DispatcherServlet(context)).addMapping("/"));
+        server.start();
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            String base = "http://localhost:" + server.getPort();
+            URI dedicatedUri = URI.create(base + "/uploads/profile-pictures/ab/ab/" + HASH + ".jpg");
+            URI standardUri = URI.create(base + "/static-pictures/ab/ab/" + HASH + ".jpg");
+            // Rodadas alternadas; vale a melhor de cada handler, para o aquecimento da JIT não favorecer nenhum
+            double dedicated = 0;
+            double standard = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                dedicated = Math.max(dedicated, throughput(client, dedicatedUri));
+                standard = Math.max(standard, throughput(client, standardUri));
+            }
+
+            System.out.printf("Fotos de perfil (%d KiB, %d clientes, %d processadores): handler dedicado %.0f req/s, "
+                            + "handler padrão %.0f req/s (%.2fx)%n", FILE_SIZE / 1024, CLIENTS,
+                    Runtime.getRuntime().availableProcessors(), dedicated, standard, dedicated / standard);
+            // Limite folgado: só acusa regressões grosseiras em relação ao handler substituído
+            assertThat(dedicated).isGreaterThan(standard * 0.5);
+        } finally {
+            server.stop();
+            context.close();
+        }
+    }
+
+    private static double throughput(HttpClient client, URI uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).build();
+        run(client, request, WARMUP_REQUESTS);
+        long start = System.nanoTime();
+        run(client, request, MEASURED_REQUESTS);
+        return MEASURED_REQUESTS / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static void run(HttpClient client, HttpRequest request, int requests) throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(CLIENTS)) {
+            List<Future<?>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                results.add(executor.submit(() -> {
+                    for (int i = 0; i < requests / CLIENTS; i++) {
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() != 200 || response.body().length != FILE_SIZE) {
+                            throw new IllegalStateException("Resposta inesperada: " + response.statusCode());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+    }
+
+    // O handler antigo: recursos estáticos do Spring servindo o diretório de uploads
+    @Configuration
+    @EnableWebMvc
+    static class WebConfig implements WebMvcConfigurer {
+
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/static-pictures/**")
+                    .addResourceLocations("file:" + root + "/");
+        }
+    }
+}
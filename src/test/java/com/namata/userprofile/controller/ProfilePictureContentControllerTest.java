@@ -0,0 +1,176 @@
+package com.namata.userprofile.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProfilePictureContentControllerTest {
+
+    private static final String HASH = "ab".repeat(32);
+    private static final String PATH = "/uploads/profile-pictures/ab/ab/" + HASH + ".jpg";
+    private static final String ETAG = "\"" + HASH + "\"";
+
+    // O diretório servido fica um nível abaixo do temporário, para o teste de path traversal ter onde pôr o segredo
+    @TempDir
+    Path tempDir;
+
+    private Path root;
+
+    private final byte[] content = "0123456789abcdefghij".getBytes(StandardCharsets.US_ASCII);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = tempDir.resolve("profile-pictures");
+        Files.createDirectories(root.resolve("ab/ab"));
+        Files.write(root.resolve("ab/ab/" + HASH + ".jpg"), content);
+        ProfilePictureContentController controller = new ProfilePictureContentController();
+        ReflectionTestUtils.setField(controller, "profilePicturesDirectory", root.toString());
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    void servesContentAddressedFilesAsImmutable() throws Exception {
+        mockMvc.perform(get(PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void headSendsHeadersWithoutBody() throws Exception {
+        mockMvc.perform(head(PATH))
+                .andExpect(status().isOk())
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, content.length))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void singleRange() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/20"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 2, 6)));
+    }
+
+    @Test
+    void openEndedRangeIsClampedToTheFile() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=15-100"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 15-19/20"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 15, 20)));
+    }
+
+    @Test
+    void suffixRange() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=-3"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 17-19/20"))
+                .andExpect(content().bytes(Arrays.copyOfRange(content, 17, 20)));
+    }
+
+    @Test
+    void unsatisfiableRange() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=20-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */20"));
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=-0"))
+                .andExpect(status().isRequestedRangeNotSatisfiable());
+    }
+
+    @Test
+    void multipleRangesFallBackToTheWholeFile() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(content().bytes(content));
+    }
+
+    @Test
+    void ifRangeWithAStaleEtagSendsTheWholeFile() throws Exception {
+        mockMvc.perform(get(PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, "\"outro\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(content));
+
+        mockMvc.perform(get(PATH)
+                        .header(HttpHeaders.RANGE, "bytes=2-5")
+                        .header(HttpHeaders.IF_RANGE, ETAG))
+                .andExpect(status().isPartialContent());
+    }
+
+    @Test
+    void matchingEtagIsNotModified() throws Exception {
+        mockMvc.perform(get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"outro\", " + ETAG))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, ETAG))
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(PATH).header(HttpHeaders.IF_NONE_MATCH, "W/" + ETAG))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(PATH).header(HttpHeaders.IF_NONE_MATCH, "\"outro\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void legacyFilesGetAShortCacheAndAValidatorFromMtimeAndSize() throws Exception {
+        Files.write(root.resolve("user-1_1700000000.png"), content);
+
+        String etag = mockMvc.perform(get("/uploads/profile-pictures/user-1_1700000000.png"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "public, max-age=3600"))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(content))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/uploads/profile-pictures/user-1_1700000000.png").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void missingFileIsNotFound() throws Exception {
+        mockMvc.perform(get("/uploads/profile-pictures/cd/cd/" + "cd".repeat(32) + ".jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void pathTraversalAndHiddenFilesAreNotServed() throws Exception {
+        Files.writeString(root.getParent().resolve("secret.txt"), "segredo");
+        Files.createDirectories(root.resolve(".resumable"));
+        Files.writeString(root.resolve(".resumable/data.jpg"), "sessão");
+        Files.writeString(root.resolve(".upload-1.tmp"), "temporário");
+
+        for (String path : new String[] {
+                "../secret.txt",
+                "..%2Fsecret.txt",
+                "ab/ab/../../../secret.txt",
+                ".resumable/data.jpg",
+                ".upload-1.tmp",
+                "ab/ab/" + HASH + ".jpg/..",
+        }) {
+            mockMvc.perform(get("/uploads/profile-pictures/" + path))
+                    .andExpect(status().isNotFound());
+        }
+    }
+}
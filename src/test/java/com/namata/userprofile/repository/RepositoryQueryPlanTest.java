@@ -0,0 +1,247 @@
+package com.namata.userprofile.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jakarta.persistence.EntityManager;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.FlywayException;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Executa cada consulta declarada nos repositórios contra o esquema real do Flyway (PostgreSQL embutido, mesma
+ * versão major do docker-compose) e confere o plano genérico com {@code EXPLAIN}: com varredura sequencial
+ * desligada, um "Seq Scan" que sobra significa que nenhum índice atende a consulta.
+ * O PostgreSQL recusa rodar como root; nesse caso o teste é ignorado.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class RepositoryQueryPlanTest {
+
+    private static final Pattern SEQ_SCAN = Pattern.compile("Seq Scan on (\\w+)");
+
+    // badges tem dezenas de linhas e não recebe índices além da chave única (ver V2)
+    private static final Set<String> UNINDEXED_TABLES = Set.of("badges");
+
+    private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL embutido não roda como root");
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @Test
+    void everyRepositoryQueryIsServedByAnIndex() throws Exception {
+        jdbcTemplate.execute("SET LOCAL enable_seqscan = off");
+        jdbcTemplate.execute("SET LOCAL plan_cache_mode = force_generic_plan");
+
+        List<String> seqScans = new ArrayList<>();
+        int checked = 0;
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            Class<?> repository = repositories.getRequiredRepositoryInformation(domainType).getRepositoryInterface();
+            Object bean = repositories.getRepositoryFor(domainType).orElseThrow();
+            for (Method method : repository.getDeclaredMethods()) {
+                String name = repository.getSimpleName() + "." + method.getName();
+                STATEMENTS.clear();
+                invoke(bean, method);
+                assertThat(STATEMENTS).as("SQL executado por %s", name).isNotEmpty();
+                for (String sql : List.copyOf(STATEMENTS)) {
+                    checked++;
+                    String plan = explain(sql);
+                    Matcher matcher = SEQ_SCAN.matcher(plan);
+                    while (matcher.find()) {
+                        if (!UNINDEXED_TABLES.contains(matcher.group(1))) {
+                            seqScans.add(name + " -> " + matcher.group(1) + "\n" + sql + "\n" + plan);
+                        }
+                    }
+                }
+            }
+        }
+
+        assertThat(checked).isGreaterThan(50);
+        assertThat(seqScans).as("consultas sem índice").isEmpty();
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void migrateFailsWhileAnInterruptedConcurrentIndexIsLeftInvalid() throws Exception {
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE plan_test_duplicates (value INTEGER)");
+            statement.execute("INSERT INTO plan_test_duplicates VALUES (1), (1)");
+            // Falha por violação de unicidade e deixa o índice criado, mas inválido
+            assertThatThrownBy(() -> statement.execute(
+                    "CREATE UNIQUE INDEX CONCURRENTLY idx_plan_test_duplicates ON plan_test_duplicates (value)"))
+                    .hasMessageContaining("could not create unique index");
+            try {
+                Flyway flyway = Flyway.configure()
+                        .dataSource(postgres.getPostgresDatabase())
+                        .locations("classpath:db/migration")
+                        .load();
+
+                assertThatThrownBy(flyway::migrate)
+                        .isInstanceOf(FlywayException.class)
+                        .hasMessageContaining("idx_plan_test_duplicates");
+            } finally {
+                statement.execute("DROP TABLE plan_test_duplicates");
+            }
+        }
+    }
+
+    private void invoke(Object bean, Method method) throws Exception {
+        Parameter[] parameters = method.getParameters();
+        Object[] arguments = new Object[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            arguments[i] = argument(parameters[i]);
+        }
+        Object result = method.invoke(bean, arguments);
+        if (result instanceof Stream<?> stream) {
+            try (stream) {
+                stream.forEach(row -> { });
+            }
+        }
+        entityManager.flush();
+    }
+
+    private Object argument(Parameter parameter) {
+        Class<?> type = parameter.getType();
+        if (type.isAnnotationPresent(jakarta.persistence.Entity.class)) {
+            return entityManager.getReference(type, UUID.randomUUID());
+        }
+        if (type.isEnum()) {
+            return type.getEnumConstants()[0];
+        }
+        if (type == String.class) {
+            return switch (parameter.getName()) {
+                case "experienceLevel" -> "BEGINNER";
+                case "interestMasks" -> "{1}";
+                default -> "serra";
+            };
+        }
+        if (Collection.class.isAssignableFrom(type)) {
+            ParameterizedType collectionType = (ParameterizedType) parameter.getParameterizedType();
+            return List.of(collectionType.getActualTypeArguments()[0] == UUID.class ? UUID.randomUUID() : "serra");
+        }
+        if (type == UUID.class) {
+            return UUID.randomUUID();
+        }
+        if (type == Pageable.class) {
+            return PageRequest.of(0, 10);
+        }
+        if (type == LocalDateTime.class) {
+            return LocalDateTime.now();
+        }
+        if (type == Integer.class || type == int.class) {
+            return 1;
+        }
+        if (type == Long.class || type == long.class) {
+            return 1L;
+        }
+        if (type == Double.class || type == double.class) {
+            return 1.0;
+        }
+        throw new IllegalArgumentException("Tipo de parâmetro sem valor de teste: " + parameter);
+    }
+
+    /**
+     * Plano genérico da consulta (o mesmo para qualquer valor dos parâmetros), via PREPARE e EXPLAIN EXECUTE.
+     */
+    private String explain(String sql) {
+        int parameters = 0;
+        StringBuilder positional = new StringBuilder();
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                positional.append('$').append(++parameters);
+            } else {
+                positional.append(c);
+            }
+        }
+        jdbcTemplate.execute("PREPARE plan_check AS " + positional);
+        try {
+            String arguments = parameters == 0 ? ""
+                    : "(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+            return String.join("\n", jdbcTemplate.queryForList("EXPLAIN EXECUTE plan_check" + arguments, String.class));
+        } finally {
+            jdbcTemplate.execute("DEALLOCATE plan_check");
+        }
+    }
+
+    @TestConfiguration
+    static class StatementCapture {
+
+        @Bean
+        HibernatePropertiesCustomizer statementInspector() {
+            StatementInspector inspector = sql -> {
+                STATEMENTS.add(sql);
+                return sql;
+            };
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+        }
+    }
+}
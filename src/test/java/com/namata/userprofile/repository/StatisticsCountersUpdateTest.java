@@ -0,0 +1,91 @@
+package com.namata.userprofile.repository;
+
+import com.namata.userprofile.entity.Statistics;
+import com.namata.userprofile.entity.StatisticsCounters;
+import com.namata.userprofile.entity.UserProfile;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.EntityStatistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Confere, pelas estatísticas do Hibernate, que mudar só os contadores de alta frequência grava apenas a linha
+ * estreita de statistics_counters, sem UPDATE na linha larga de statistics (nem no seu updated_at).
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class StatisticsCountersUpdateTest {
+
+    @Autowired
+    private StatisticsRepository statisticsRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private org.hibernate.stat.Statistics hibernateStatistics;
+    private UserProfile userProfile;
+
+    @BeforeEach
+    void setUp() {
+        hibernateStatistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        userProfile = userProfileRepository.save(UserProfile.builder()
+                .userId(UUID.randomUUID())
+                .displayName("Ana")
+                .build());
+        statisticsRepository.save(Statistics.builder().userProfile(userProfile).build());
+        entityManager.flush();
+        entityManager.clear();
+        hibernateStatistics.clear();
+    }
+
+    @Test
+    void counterOnlyChangeDoesNotUpdateTheStatisticsRow() {
+        Statistics statistics = statisticsRepository.findByUserProfile(userProfile).orElseThrow();
+        LocalDateTime updatedAt = statistics.getUpdatedAt();
+
+        statistics.getCounters().setTotalLikesReceived(5);
+        statistics.getCounters().setLastActivityAt(LocalDateTime.now());
+        statisticsRepository.save(statistics);
+        entityManager.flush();
+
+        assertThat(updates(Statistics.class)).isZero();
+        assertThat(updates(StatisticsCounters.class)).isEqualTo(1);
+
+        entityManager.clear();
+        Statistics reloaded = statisticsRepository.findByUserProfile(userProfile).orElseThrow();
+        assertThat(reloaded.getCounters().getTotalLikesReceived()).isEqualTo(5);
+        assertThat(reloaded.getUpdatedAt()).isEqualTo(updatedAt);
+    }
+
+    @Test
+    void statisticsChangeDoesNotTouchTheCounters() {
+        Statistics statistics = statisticsRepository.findByUserProfile(userProfile).orElseThrow();
+
+        statistics.setTotalPoints(120);
+        statisticsRepository.save(statistics);
+        entityManager.flush();
+
+        assertThat(updates(Statistics.class)).isEqualTo(1);
+        assertThat(updates(StatisticsCounters.class)).isZero();
+    }
+
+    private long updates(Class<?> entity) {
+        EntityStatistics entityStatistics = hibernateStatistics.getEntityStatistics(entity.getName());
+        return entityStatistics.getUpdateCount();
+    }
+}
@@ -0,0 +1,220 @@
+package com.namata.userprofile.repository;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Vazão de escrita dos contadores de alta frequência (uma curtida por transação) nos dois layouts:
+ * <ul>
+ *   <li>largo: a tabela statistics antes da V3, com os contadores, o gatilho de updated_at e o UPDATE de todas as
+ *       colunas que o Hibernate gerava sem atualização dinâmica;</li>
+ *   <li>estreito: statistics_counters da V3 (fillfactor 70, sem gatilho), com o UPDATE só das colunas alteradas.</li>
+ * </ul>
+ * Além da vazão, compara o WAL gerado por atualização e a fração de atualizações HOT. As rodadas alternam entre
+ * os layouts e fica a melhor de cada. Roda com {@code mvn test -Pbenchmark}; o PostgreSQL recusa rodar como root.
+ */
+@Tag("benchmark")
+class StatisticsCountersWriteBenchmarkTest {
+
+    private static final int PROFILES = 20_000;
+    private static final int UPDATES_PER_ROUND = 20_000;
+    private static final int ROUNDS = 4;
+
+    private static final String WIDE_UPDATE = """
+            UPDATE bench_statistics_wide SET user_profile_id = ?, total_trails_completed = ?, total_distance_km = ?,
+                total_time_minutes = ?, total_elevation_gain_m = ?, longest_trail_km = ?, highest_elevation_m = ?,
+                total_photos_shared = ?, total_reviews_posted = ?, total_likes_received = total_likes_received + 1,
+                total_comments_received = ?, total_badges_earned = ?, total_points = ?, current_streak = ?,
+                longest_streak = ?, total_followers = ?, total_following = ?, total_guides_booked = ?,
+                global_rank = ?, local_rank = ?, created_at = created_at, updated_at = ?, last_activity_at = ?
+            WHERE id = ?
+            """;
+
+    private static final String NARROW_UPDATE = """
+            UPDATE statistics_counters SET total_likes_received = total_likes_received + 1, last_activity_at = ?
+            WHERE user_profile_id = ?
+            """;
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL embutido não roda como root");
+        postgres = EmbeddedPostgres.builder()
+                // Sem autovacuum durante a medição: as duas tabelas contam só com o espaço livre das próprias páginas
+                .setServerConfig("autovacuum", "off")
+                .start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void narrowCountersWriteFasterWithLessWal() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(postgres.getJdbcUrl("postgres", "postgres"))) {
+            UUID[] profileIds = createProfiles(connection);
+            Random random = new Random(42);
+
+            double bestWide = 0;
+            double bestNarrow = 0;
+            long wideWal = 0;
+            long narrowWal = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long lsn = currentLsn(connection);
+                long nanos = updateWide(connection, profileIds, random);
+                wideWal += currentLsn(connection) - lsn;
+                bestWide = Math.max(bestWide, UPDATES_PER_ROUND / (nanos / 1e9));
+
+                lsn = currentLsn(connection);
+                nanos = updateNarrow(connection, profileIds, random);
+                narrowWal += currentLsn(connection) - lsn;
+                bestNarrow = Math.max(bestNarrow, UPDATES_PER_ROUND / (nanos / 1e9));
+            }
+
+            long updates = (long) UPDATES_PER_ROUND * ROUNDS;
+            double wideHot = hotRatio(connection, "bench_statistics_wide");
+            double narrowHot = hotRatio(connection, "statistics_counters");
+            System.out.printf("Contadores, %d atualizações por layout: largo %.0f/s, %d bytes de WAL cada, %.0f%% HOT; "
+                            + "estreito %.0f/s, %d bytes de WAL cada, %.0f%% HOT (%.2fx)%n",
+                    updates, bestWide, wideWal / updates, wideHot * 100,
+                    bestNarrow, narrowWal / updates, narrowHot * 100, bestNarrow / bestWide);
+
+            assertThat(narrowWal).isLessThan(wideWal);
+            assertThat(narrowHot).isGreaterThanOrEqualTo(wideHot);
+            assertThat(bestNarrow).isGreaterThan(bestWide * 0.9);
+        }
+    }
+
+    /**
+     * Perfis com a linha de statistics, a de statistics_counters e a cópia no layout largo antigo.
+     */
+    private static UUID[] createProfiles(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    INSERT INTO user_profiles (id, user_id, display_name, is_active, is_verified, created_at, updated_at)
+                    SELECT gen_random_uuid(), gen_random_uuid(), 'Perfil ' || n, true, false, now(), now()
+                    FROM generate_series(1, %d) n
+                    """.formatted(PROFILES));
+            statement.execute("""
+                    INSERT INTO statistics (id, user_profile_id, total_trails_completed, total_distance_km,
+                        total_time_minutes, total_elevation_gain_m, longest_trail_km, highest_elevation_m,
+                        total_photos_shared, total_reviews_posted, total_badges_earned, total_points,
+                        total_followers, total_following, total_guides_booked, global_rank, local_rank,
+                        created_at, updated_at)
+                    SELECT id, id, 10, 52.5, 900, 3200, 12, 1800, 5, 3, 4, 480, 20, 15, 1, 100, 10, now(), now()
+                    FROM user_profiles
+                    """);
+            statement.execute("INSERT INTO statistics_counters (user_profile_id) SELECT id FROM user_profiles");
+
+            // Layout de antes da V3: mesmas colunas, índices e gatilho, mais os contadores
+            statement.execute("CREATE TABLE bench_statistics_wide (LIKE statistics INCLUDING ALL)");
+            statement.execute("""
+                    ALTER TABLE bench_statistics_wide
+                        ADD COLUMN total_likes_received INTEGER NOT NULL DEFAULT 0,
+                        ADD COLUMN total_comments_received INTEGER NOT NULL DEFAULT 0,
+                        ADD COLUMN current_streak INTEGER NOT NULL DEFAULT 0,
+                        ADD COLUMN longest_streak INTEGER NOT NULL DEFAULT 0,
+                        ADD COLUMN last_activity_at TIMESTAMP(6)
+                    """);
+            statement.execute("""
+                    CREATE TRIGGER update_bench_statistics_wide_updated_at
+                        BEFORE UPDATE ON bench_statistics_wide
+                        FOR EACH ROW EXECUTE FUNCTION update_updated_at_column()
+                    """);
+            statement.execute("INSERT INTO bench_statistics_wide SELECT * FROM statistics");
+            statement.execute("VACUUM ANALYZE bench_statistics_wide");
+            statement.execute("VACUUM ANALYZE statistics_counters");
+        }
+
+        UUID[] ids = new UUID[PROFILES];
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id FROM user_profiles")) {
+            for (int i = 0; resultSet.next(); i++) {
+                ids[i] = resultSet.getObject(1, UUID.class);
+            }
+        }
+        return ids;
+    }
+
+    private static long updateWide(Connection connection, UUID[] profileIds, Random random) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement update = connection.prepareStatement(WIDE_UPDATE)) {
+            for (int i = 0; i < UPDATES_PER_ROUND; i++) {
+                UUID id = profileIds[random.nextInt(profileIds.length)];
+                Timestamp now = Timestamp.from(Instant.now());
+                // Mesmos valores da carga inicial: só o contador, updated_at e last_activity_at mudam
+                Object[] values = {id, 10, 52.5, 900, 3200.0, 12, 1800, 5, 3, 0, 4, 480, 0, 0, 20, 15, 1, 100, 10,
+                        now, now, id};
+                for (int p = 0; p < values.length; p++) {
+                    update.setObject(p + 1, values[p]);
+                }
+                update.executeUpdate();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long updateNarrow(Connection connection, UUID[] profileIds, Random random) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement update = connection.prepareStatement(NARROW_UPDATE)) {
+            for (int i = 0; i < UPDATES_PER_ROUND; i++) {
+                update.setTimestamp(1, Timestamp.from(Instant.now()));
+                update.setObject(2, profileIds[random.nextInt(profileIds.length)]);
+                update.executeUpdate();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long currentLsn(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')")) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static double hotRatio(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT pg_stat_force_next_flush()");
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT n_tup_hot_upd::float / NULLIF(n_tup_upd, 0) FROM pg_stat_user_tables WHERE relname = ?")) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getDouble(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.namata.userprofile.repository;
+
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.util.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Os comandos únicos de {@link UserSavedTrailRepository#upsertActive} e {@link UserSavedTrailRepository#deactivate}
+ * dependem de ON CONFLICT e UPDATE ... FROM do PostgreSQL, então rodam contra o esquema real do Flyway
+ * (PostgreSQL embutido). Cada chamada usa a sua própria transação, como no serviço, para que as concorrentes
+ * disputem a chave única de verdade. O PostgreSQL recusa rodar como root; nesse caso o teste é ignorado.
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserSavedTrailUpsertTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @Autowired
+    private UserSavedTrailRepository userSavedTrailRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transaction;
+    private UUID userId;
+    private final UUID trailId = UUID.randomUUID();
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL embutido não roda como root");
+        postgres = EmbeddedPostgres.start();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> postgres.getJdbcUrl("postgres", "postgres"));
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "postgres");
+    }
+
+    @BeforeEach
+    void setUp() {
+        transaction = new TransactionTemplate(transactionManager);
+        userId = UUID.randomUUID();
+        transaction.executeWithoutResult(status -> userProfileRepository.save(UserProfile.builder()
+                .userId(userId)
+                .displayName("Ana")
+                .build()));
+    }
+
+    @Test
+    void firstSaveReturnsTheNewRow() {
+        UserSavedTrailRepository.SavedTrailRow row = save("primeira").orElseThrow();
+
+        assertThat(row.getTrailId()).isEqualTo(trailId);
+        assertThat(row.getNotes()).isEqualTo("primeira");
+        assertThat(row.getIsActive()).isTrue();
+        assertThat(row.getUserDisplayName()).isEqualTo("Ana");
+        assertThat(row.getSavedAt()).isNotNull();
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedSaveReturnsNoRowAndKeepsTheNotes() {
+        save("primeira");
+
+        assertThat(save("segunda")).isEmpty();
+
+        assertThat(rows()).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT notes FROM user_saved_trails WHERE trail_id = ?",
+                String.class, trailId)).isEqualTo("primeira");
+    }
+
+    @Test
+    void saveAfterUnsaveReactivatesTheSameRow() {
+        UUID original = save("primeira").orElseThrow().getId();
+        assertThat(unsave()).isEqualTo(1);
+
+        UserSavedTrailRepository.SavedTrailRow reactivated = save("de novo").orElseThrow();
+
+        assertThat(reactivated.getId()).isEqualTo(original);
+        assertThat(reactivated.getIsActive()).isTrue();
+        assertThat(reactivated.getNotes()).isEqualTo("de novo");
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    @Test
+    void secondUnsaveDeactivatesNothing() {
+        save(null);
+
+        assertThat(unsave()).isEqualTo(1);
+        assertThat(unsave()).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT is_active FROM user_saved_trails WHERE trail_id = ?",
+                Boolean.class, trailId)).isFalse();
+    }
+
+    @Test
+    void unknownProfileSavesAndUnsavesNothing() {
+        UUID unknown = UUID.randomUUID();
+
+        Optional<UserSavedTrailRepository.SavedTrailRow> saved = transaction.execute(status -> userSavedTrailRepository
+                .upsertActive(UuidV7Generator.generate(), unknown, trailId, null));
+        Long deactivated = transaction.execute(status -> userSavedTrailRepository.deactivate(unknown, trailId));
+
+        assertThat(saved).isEmpty();
+        assertThat(deactivated).isZero();
+        assertThat(rows()).isZero();
+    }
+
+    @Test
+    void concurrentSavesCreateExactlyOneRow() throws Exception {
+        int threads = 8;
+        CyclicBarrier start = new CyclicBarrier(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await(5, TimeUnit.SECONDS);
+                    return save("toque").isPresent();
+                }));
+            }
+        }
+
+        int returned = 0;
+        for (Future<Boolean> result : results) {
+            returned += result.get() ? 1 : 0;
+        }
+        assertThat(returned).isEqualTo(1);
+        assertThat(rows()).isEqualTo(1);
+    }
+
+    private Optional<UserSavedTrailRepository.SavedTrailRow> save(String notes) {
+        return transaction.execute(status -> userSavedTrailRepository
+                .upsertActive(UuidV7Generator.generate(), userId, trailId, notes));
+    }
+
+    private long unsave() {
+        return transaction.execute(status -> userSavedTrailRepository.deactivate(userId, trailId));
+    }
+
+    private long rows() {
+        return jdbcTemplate.queryForObject("SELECT count(*) FROM user_saved_trails WHERE trail_id = ?",
+                Long.class, trailId);
+    }
+}
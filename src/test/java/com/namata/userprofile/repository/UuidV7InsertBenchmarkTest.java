@@ -0,0 +1,140 @@
+package com.namata.userprofile.repository;
+
+import com.namata.userprofile.util.UuidV7Generator;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Vazão de inserção e tamanho da chave primária com UUIDv7 contra UUIDv4 aleatório, em duas cópias da tabela
+ * activities do esquema do Flyway (mesmas colunas e índices, sem as chaves estrangeiras).
+ * O shared_buffers fica bem menor que os índices, como em produção com milhões de linhas: com v4 cada inserção
+ * cai em uma folha aleatória da chave primária, que precisa voltar ao cache e se divide pela metade quando enche.
+ * Os lotes alternam entre as duas tabelas para que checkpoints e aquecimento pesem igual nos dois lados.
+ * Roda com {@code mvn test -Pbenchmark} (linhas em {@code -Dbenchmark.rows}); o PostgreSQL recusa rodar como root.
+ */
+@Tag("benchmark")
+class UuidV7InsertBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 2_000_000);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int CHUNK_ROWS = 50_000;
+    private static final int PROFILES = 10_000;
+
+    private static EmbeddedPostgres postgres;
+
+    @BeforeAll
+    static void startPostgres() throws IOException {
+        assumeFalse("root".equals(System.getProperty("user.name")), "PostgreSQL embutido não roda como root");
+        postgres = EmbeddedPostgres.builder()
+                .setServerConfig("shared_buffers", "16MB")
+                .setServerConfig("max_wal_size", "1GB")
+                .start();
+        Flyway.configure()
+                .dataSource(postgres.getPostgresDatabase())
+                .locations("classpath:db/migration")
+                .configuration(Map.of("flyway.postgresql.transactional.lock", "false"))
+                .load()
+                .migrate();
+    }
+
+    @AfterAll
+    static void stopPostgres() throws IOException {
+        if (postgres != null) {
+            postgres.close();
+        }
+    }
+
+    @Test
+    void v7KeysInsertFasterAndKeepASmallerPrimaryKey() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(
+                postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE bench_activities_v4 (LIKE activities INCLUDING ALL)");
+                statement.execute("CREATE TABLE bench_activities_v7 (LIKE activities INCLUDING ALL)");
+            }
+            connection.setAutoCommit(false);
+
+            UUID[] profileIds = new UUID[PROFILES];
+            for (int i = 0; i < PROFILES; i++) {
+                profileIds[i] = UUID.randomUUID();
+            }
+            Random random = new Random(42);
+            long v4Nanos = 0;
+            long v7Nanos = 0;
+            for (int inserted = 0; inserted < ROWS; inserted += CHUNK_ROWS) {
+                int rows = Math.min(CHUNK_ROWS, ROWS - inserted);
+                v4Nanos += insert(connection, "bench_activities_v4", rows, UUID::randomUUID, profileIds, random);
+                v7Nanos += insert(connection, "bench_activities_v7", rows, UuidV7Generator::generate, profileIds, random);
+            }
+
+            long v4Index = primaryKeySize(connection, "bench_activities_v4");
+            long v7Index = primaryKeySize(connection, "bench_activities_v7");
+            double v4Rate = ROWS / (v4Nanos / 1e9);
+            double v7Rate = ROWS / (v7Nanos / 1e9);
+            System.out.printf("Inserção de %d atividades: v4 %.0f linhas/s, v7 %.0f linhas/s (%.2fx); "
+                            + "chave primária v4 %d MB, v7 %d MB (%.0f%%)%n",
+                    ROWS, v4Rate, v7Rate, v7Rate / v4Rate, v4Index >> 20, v7Index >> 20, 100.0 * v7Index / v4Index);
+
+            // Limites folgados: folhas preenchidas em ordem ficam ~90% cheias, divididas ao acaso ~70%
+            assertThat(v7Index).isLessThan(v4Index * 85 / 100);
+            assertThat(v7Rate).isGreaterThan(v4Rate * 0.9);
+        }
+    }
+
+    private static long insert(Connection connection, String table, int rows, Supplier<UUID> ids,
+                               UUID[] profileIds, Random random) throws SQLException {
+        long start = System.nanoTime();
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + table
+                + " (id, user_profile_id, type, title, distance, duration, likes, comments, is_public, created_at)"
+                + " VALUES (?, ?, 'TRAIL_COMPLETED', ?, ?, ?, 0, 0, true, ?)")) {
+            for (int i = 0; i < rows; i++) {
+                insert.setObject(1, ids.get());
+                insert.setObject(2, profileIds[random.nextInt(profileIds.length)]);
+                insert.setString(3, "Trilha " + i);
+                insert.setDouble(4, random.nextDouble() * 20);
+                insert.setInt(5, random.nextInt(600));
+                insert.setTimestamp(6, Timestamp.from(Instant.now()));
+                insert.addBatch();
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    insert.executeBatch();
+                    connection.commit();
+                }
+            }
+            insert.executeBatch();
+            connection.commit();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long primaryKeySize(Connection connection, String table) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT pg_relation_size(indexrelid) FROM pg_index WHERE indrelid = CAST(? AS regclass) AND indisprimary")) {
+            statement.setString(1, table);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getLong(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.namata.userprofile.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.namata.userprofile.entity.Activity;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.ActivityRepository;
+import com.namata.userprofile.repository.UserProfileRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Exportação NDJSON do histórico de atividades: um objeto JSON por linha, da mais recente para a mais antiga.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class ActivityServiceExportTest {
+
+    // Mesma configuração do ObjectMapper do Spring Boot: datas em ISO-8601
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private ActivityService activityService;
+    private UserProfile userProfile;
+
+    @BeforeEach
+    void setUp() {
+        activityService = new ActivityService(activityRepository, userProfileRepository, entityManager, objectMapper);
+        userProfile = userProfileRepository.save(UserProfile.builder()
+                .userId(UUID.randomUUID())
+                .displayName("Ana")
+                .build());
+    }
+
+    @Test
+    void writesOneJsonObjectPerLineNewestFirst() throws Exception {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Activity oldest = activity("Pico da Bandeira", now.minusDays(2));
+        Activity newest = activity("Serra do Cipó", now);
+        Activity middle = activity("Trilha do Ouro \"Caminho Velho\"\nparte 2", now.minusDays(1));
+        entityManager.clear();
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long exported = activityService.exportUserActivities(userProfile.getUserId(), output);
+
+        String body = output.toString(StandardCharsets.UTF_8);
+        assertThat(exported).isEqualTo(3);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : lines) {
+            records.add(objectMapper.readTree(line));
+        }
+        assertThat(records).extracting(record -> record.get("id").asText())
+                .containsExactly(newest.getId().toString(), middle.getId().toString(), oldest.getId().toString());
+        // Quebras de linha dentro dos campos são escapadas e não partem o registro
+        assertThat(records.get(1).get("title").asText()).isEqualTo("Trilha do Ouro \"Caminho Velho\"\nparte 2");
+        assertThat(records.get(0).get("type").asText()).isEqualTo("TRAIL_COMPLETED");
+        assertThat(records.get(0).get("createdAt").asText()).startsWith(now.toLocalDate().toString());
+    }
+
+    @Test
+    void emptyHistoryProducesAnEmptyBody() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        long exported = activityService.exportUserActivities(userProfile.getUserId(), output);
+
+        assertThat(exported).isZero();
+        assertThat(output.size()).isZero();
+    }
+
+    @Test
+    void unknownUserIsRejected() {
+        assertThatThrownBy(() -> activityService.exportUserActivities(UUID.randomUUID(), new ByteArrayOutputStream()))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private Activity activity(String title, LocalDateTime createdAt) {
+        Activity activity = activityRepository.save(Activity.builder()
+                .userProfile(userProfile)
+                .type(Activity.ActivityType.TRAIL_COMPLETED)
+                .title(title)
+                .build());
+        entityManager.flush();
+        // created_at é preenchido pelo Hibernate na inserção; o teste fixa a ordem depois
+        entityManager.createQuery("UPDATE Activity a SET a.createdAt = :createdAt WHERE a.id = :id")
+                .setParameter("createdAt", createdAt)
+                .setParameter("id", activity.getId())
+                .executeUpdate();
+        return activity;
+    }
+}
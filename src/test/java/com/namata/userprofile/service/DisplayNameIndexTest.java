@@ -0,0 +1,93 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.ProfileSuggestionDTO;
+import com.namata.userprofile.repository.UserProfileRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DisplayNameIndexTest {
+
+    private final UserProfileRepository repository = mock(UserProfileRepository.class);
+    private final DisplayNameIndex index = new DisplayNameIndex(repository);
+
+    @Test
+    void suggestsByNormalizedPrefixOrderedByPoints() {
+        ProfileSuggestionDTO joao = suggestion("João", 10);
+        ProfileSuggestionDTO joana = suggestion("Joana", 50);
+        ProfileSuggestionDTO maria = suggestion("Maria", 99);
+        when(repository.findActiveProfileSuggestions()).thenReturn(List.of(joao, joana, maria));
+
+        index.rebuild();
+
+        assertThat(index.suggest("jo", 10)).containsExactly(joana, joao);
+        assertThat(index.suggest("JOAO", 10)).containsExactly(joao);
+        assertThat(index.suggest("joã", 10)).containsExactly(joana, joao);
+        assertThat(index.suggest("jo", 1)).containsExactly(joana);
+    }
+
+    @Test
+    void changesAppliedDuringARebuildSurviveTheSwap() {
+        ProfileSuggestionDTO ana = suggestion("Ana", 10);
+        ProfileSuggestionDTO bruno = suggestion("Bruno", 20);
+        UUID carla = UUID.randomUUID();
+        when(repository.findActiveProfileSuggestions()).thenReturn(List.of(ana));
+        index.rebuild();
+
+        // A leitura do banco viu o estado anterior às alterações confirmadas enquanto ela rodava
+        when(repository.findActiveProfileSuggestions()).thenAnswer(invocation -> {
+            index.upsert(carla, "Carla", null, 30);
+            index.updatePoints(ana.getUserId(), 40);
+            index.remove(bruno.getUserId());
+            return List.of(ana, bruno);
+        });
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.suggest("carla", 10)).extracting(ProfileSuggestionDTO::getUserId).containsExactly(carla);
+        assertThat(index.suggest("an", 10)).extracting(ProfileSuggestionDTO::getTotalPoints).containsExactly(40);
+        assertThat(index.suggest("br", 10)).isEmpty();
+    }
+
+    @Test
+    void rebuildReplacesCachedShortPrefixes() {
+        ProfileSuggestionDTO ana = suggestion("Ana", 10);
+        when(repository.findActiveProfileSuggestions()).thenReturn(List.of(ana));
+        index.rebuild();
+        assertThat(index.suggest("a", 10)).containsExactly(ana);
+
+        // Perfil criado por outra instância aparece no próximo rebuild
+        ProfileSuggestionDTO alice = suggestion("Alice", 20);
+        when(repository.findActiveProfileSuggestions()).thenReturn(List.of(ana, alice));
+        index.rebuild();
+
+        assertThat(index.suggest("a", 10)).containsExactly(alice, ana);
+    }
+
+    @Test
+    void failedRebuildKeepsTheCurrentIndex() {
+        ProfileSuggestionDTO ana = suggestion("Ana", 10);
+        when(repository.findActiveProfileSuggestions()).thenReturn(List.of(ana));
+        index.rebuild();
+
+        when(repository.findActiveProfileSuggestions()).thenThrow(new IllegalStateException("banco indisponível"));
+        index.rebuild();
+        index.upsert(UUID.randomUUID(), "Antônio", null, 5);
+
+        assertThat(index.suggest("an", 10)).extracting(ProfileSuggestionDTO::getDisplayName)
+                .containsExactly("Ana", "Antônio");
+    }
+
+    private static ProfileSuggestionDTO suggestion(String displayName, int totalPoints) {
+        return ProfileSuggestionDTO.builder()
+                .userId(UUID.randomUUID())
+                .displayName(displayName)
+                .totalPoints(totalPoints)
+                .build();
+    }
+}
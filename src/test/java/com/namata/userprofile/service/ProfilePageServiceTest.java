@@ -0,0 +1,233 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.AchievementDTO;
+import com.namata.userprofile.dto.ActivityDTO;
+import com.namata.userprofile.dto.BadgeDTO;
+import com.namata.userprofile.dto.FormattedStatisticsDTO;
+import com.namata.userprofile.dto.ProfilePageDTO;
+import com.namata.userprofile.dto.UserProfileDTO;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Montagem da página de perfil com seções lentas e com falha. O gerenciador de transações e o EntityManager
+ * são simulados: aqui importa o prazo de cada seção, não o banco.
+ */
+class ProfilePageServiceTest {
+
+    private static final long SLOW_SECTION_MS = 3_000;
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final UserProfileService userProfileService = mock(UserProfileService.class);
+    private final StatisticsService statisticsService = mock(StatisticsService.class);
+    private final AchievementService achievementService = mock(AchievementService.class);
+    private final ActivityService activityService = mock(ActivityService.class);
+    private final UserSavedTrailService userSavedTrailService = mock(UserSavedTrailService.class);
+    private final EntityManager entityManager = mock(EntityManager.class);
+    private final Query statementTimeout = mock(Query.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private final UUID userId = UUID.randomUUID();
+    private final UserProfile userProfile = UserProfile.builder().userId(userId).displayName("Ana").build();
+    private final FormattedStatisticsDTO statistics = FormattedStatisticsDTO.builder()
+            .totalTrailsCompleted(12)
+            .totalBadgesEarned(3)
+            .totalPoints(480)
+            .build();
+    private final List<AchievementDTO> achievements = List.of(AchievementDTO.builder().build());
+    private final List<ActivityDTO> activities = List.of(ActivityDTO.builder().build());
+    private final List<BadgeDTO> badges = List.of(new BadgeDTO());
+
+    private ProfilePageService service;
+
+    @BeforeEach
+    void setUp() {
+        when(userProfileRepository.findByUserId(userId)).thenReturn(Optional.of(userProfile));
+        when(userProfileService.convertToDTOWithoutStats(userProfile))
+                .thenAnswer(invocation -> UserProfileDTO.builder().userId(userId).displayName("Ana").build());
+        when(statisticsService.getFormattedStatistics(userProfile)).thenReturn(statistics);
+        when(achievementService.getAchievements(userProfile)).thenReturn(achievements);
+        when(activityService.getRecentUserActivities(eq(userProfile), anyInt())).thenReturn(activities);
+        when(userSavedTrailService.getSavedTrailsCount(userProfile)).thenReturn(7L);
+        when(achievementService.getEarnedBadges(userProfile)).thenReturn(badges);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(statementTimeout);
+        when(statementTimeout.setParameter(anyString(), any())).thenReturn(statementTimeout);
+
+        service = new ProfilePageService(userProfileRepository, userProfileService, statisticsService,
+                achievementService, activityService, userSavedTrailService, entityManager,
+                mock(PlatformTransactionManager.class));
+        ReflectionTestUtils.setField(service, "recentActivitiesLimit", 10);
+        ReflectionTestUtils.setField(service, "statisticsTimeoutMs", 200L);
+        ReflectionTestUtils.setField(service, "achievementsTimeoutMs", 300L);
+        ReflectionTestUtils.setField(service, "activitiesTimeoutMs", 300L);
+        ReflectionTestUtils.setField(service, "savedTrailsTimeoutMs", 100L);
+        ReflectionTestUtils.setField(service, "badgesTimeoutMs", 200L);
+        service.setMaxConcurrentSections(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void assemblesEverySectionAndTakesTheTotalsFromTheStatistics() {
+        ProfilePageDTO page = service.getProfilePage(userId).orElseThrow();
+
+        assertThat(page.getUnavailableSections()).isEmpty();
+        assertThat(page.getStatistics()).isSameAs(statistics);
+        assertThat(page.getAchievements()).isEqualTo(achievements);
+        assertThat(page.getRecentActivities()).isEqualTo(activities);
+        assertThat(page.getSavedTrailsCount()).isEqualTo(7L);
+        assertThat(page.getBadges()).isEqualTo(badges);
+        assertThat(page.getProfile().getTotalTrailsCompleted()).isEqualTo(12);
+        assertThat(page.getProfile().getTotalBadgesEarned()).isEqualTo(3);
+        assertThat(page.getProfile().getTotalPoints()).isEqualTo(480);
+    }
+
+    @Test
+    void slowSectionIsLeftOutAtItsDeadline() {
+        when(userSavedTrailService.getSavedTrailsCount(userProfile)).thenAnswer(invocation -> {
+            release.await(SLOW_SECTION_MS, TimeUnit.MILLISECONDS);
+            return 7L;
+        });
+
+        long start = System.nanoTime();
+        ProfilePageDTO page = service.getProfilePage(userId).orElseThrow();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // A página sai no prazo da seção mais longa (300 ms), sem esperar a seção lenta
+        assertThat(elapsedMs).isLessThan(SLOW_SECTION_MS / 2);
+        assertThat(page.getSavedTrailsCount()).isNull();
+        assertThat(page.getUnavailableSections()).containsExactly("savedTrailsCount");
+        assertThat(page.getAchievements()).isEqualTo(achievements);
+        assertThat(page.getStatistics()).isSameAs(statistics);
+    }
+
+    @Test
+    void failingSectionIsLeftOutWithoutFailingThePage() {
+        when(achievementService.getAchievements(userProfile)).thenThrow(new IllegalStateException("banco indisponível"));
+
+        ProfilePageDTO page = service.getProfilePage(userId).orElseThrow();
+
+        assertThat(page.getAchievements()).isNull();
+        assertThat(page.getUnavailableSections()).containsExactly("achievements");
+        assertThat(page.getBadges()).isEqualTo(badges);
+        assertThat(page.getSavedTrailsCount()).isEqualTo(7L);
+    }
+
+    @Test
+    void slowAndFailingSectionsAreListedTogether() {
+        when(statisticsService.getFormattedStatistics(userProfile)).thenAnswer(invocation -> {
+            release.await(SLOW_SECTION_MS, TimeUnit.MILLISECONDS);
+            return statistics;
+        });
+        when(achievementService.getEarnedBadges(userProfile)).thenThrow(new IllegalStateException("consulta cancelada"));
+
+        ProfilePageDTO page = service.getProfilePage(userId).orElseThrow();
+
+        assertThat(page.getUnavailableSections()).containsExactlyInAnyOrder("statistics", "badges");
+        // Sem a seção de estatísticas o perfil sai sem os totais, em vez de consultá-los de novo
+        assertThat(page.getProfile().getDisplayName()).isEqualTo("Ana");
+        assertThat(page.getProfile().getTotalPoints()).isNull();
+        assertThat(page.getRecentActivities()).isEqualTo(activities);
+    }
+
+    @Test
+    void statementTimeoutIsTheTimeLeftUntilTheSectionDeadline() {
+        service.getProfilePage(userId);
+
+        verify(statementTimeout, atLeastOnce()).setParameter(eq("timeout"),
+                ArgumentMatchers.<Object>argThat(value -> {
+                    long millis = Long.parseLong(value.toString().replace("ms", ""));
+                    return millis >= 1 && millis <= 300;
+                }));
+    }
+
+    @Test
+    void sectionsOfConcurrentPagesShareTheConnectionSlots() throws Exception {
+        service.setMaxConcurrentSections(2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(activityService.getRecentUserActivities(eq(userProfile), anyInt())).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return activities;
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+        when(achievementService.getAchievements(userProfile)).thenAnswer(invocation -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(50);
+                return achievements;
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        List<Thread> pages = List.of(
+                Thread.ofVirtual().start(() -> service.getProfilePage(userId)),
+                Thread.ofVirtual().start(() -> service.getProfilePage(userId)),
+                Thread.ofVirtual().start(() -> service.getProfilePage(userId)));
+        for (Thread page : pages) {
+            page.join(5_000);
+        }
+
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void sectionWithoutAFreeSlotUntilItsDeadlineIsUnavailable() throws Exception {
+        service.setMaxConcurrentSections(1);
+        CountDownLatch holding = new CountDownLatch(1);
+        when(statisticsService.getFormattedStatistics(userProfile)).thenAnswer(invocation -> {
+            holding.countDown();
+            release.await(SLOW_SECTION_MS, TimeUnit.MILLISECONDS);
+            return statistics;
+        });
+        Thread.ofVirtual().start(() -> service.getProfilePage(userId));
+        assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // A seção lenta da primeira página segura a única vaga até o fim do teste
+        ProfilePageDTO page = service.getProfilePage(userId).orElseThrow();
+
+        assertThat(page.getUnavailableSections()).containsExactlyInAnyOrder(
+                "statistics", "achievements", "recentActivities", "savedTrailsCount", "badges");
+        verify(userSavedTrailService, never()).getSavedTrailsCount(userProfile);
+    }
+
+    @Test
+    void unknownProfileHasNoPage() {
+        assertThat(service.getProfilePage(UUID.randomUUID())).isEmpty();
+    }
+}
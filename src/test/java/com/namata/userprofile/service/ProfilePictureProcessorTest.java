@@ -0,0 +1,181 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.util.ImageMetadataStripper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProfilePictureProcessorTest {
+
+    @TempDir
+    Path root;
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private ProfilePictureProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        processor = processorWith(new SyncTaskExecutor());
+    }
+
+    @Test
+    void thumbnailsFollowTheExifOrientation() throws IOException {
+        // Foto deitada (64 x 32) que a câmera marcou com Orientation=6: exibida girada 90° no sentido horário
+        Path original = root.resolve("photo.jpg");
+        Files.write(original, withOrientation(landscapeJpeg(), 6));
+        ImageMetadataStripper.strip(original);
+
+        processor.generateThumbnails(original);
+
+        BufferedImage thumbnail = ImageIO.read(root.resolve("photo_1024.jpg").toFile());
+        assertThat(thumbnail.getWidth()).isEqualTo(32);
+        assertThat(thumbnail.getHeight()).isEqualTo(64);
+        // A metade esquerda (vermelha) da foto armazenada fica em cima depois da rotação
+        assertThat(isRed(thumbnail.getRGB(16, 8))).isTrue();
+        assertThat(isRed(thumbnail.getRGB(16, 56))).isFalse();
+        BufferedImage smallest = ImageIO.read(root.resolve("photo_64.jpg").toFile());
+        assertThat(smallest.getHeight()).isGreaterThan(smallest.getWidth());
+    }
+
+    @Test
+    void everyOrientationMapsTheTopLeftCornerToItsDisplayPosition() {
+        BufferedImage source = new BufferedImage(3, 2, BufferedImage.TYPE_INT_RGB);
+        source.setRGB(0, 0, 0xFFFFFF);
+        // Posição de exibição do canto superior esquerdo armazenado, por orientação (especificação EXIF)
+        int[][] expected = {null, {0, 0}, {2, 0}, {2, 1}, {0, 1}, {0, 0}, {1, 0}, {1, 2}, {0, 2}};
+        for (int orientation = 1; orientation <= 8; orientation++) {
+            BufferedImage oriented = ProfilePictureProcessor.orient(source, orientation);
+            boolean sidesSwapped = orientation >= 5;
+            assertThat(oriented.getWidth()).as("orientação %d", orientation).isEqualTo(sidesSwapped ? 2 : 3);
+            assertThat(oriented.getRGB(expected[orientation][0], expected[orientation][1]) & 0xFFFFFF)
+                    .as("orientação %d", orientation).isEqualTo(0xFFFFFF);
+        }
+    }
+
+    @Test
+    void thumbnailUrlsComeFromTheRecordedMarkWithoutTouchingTheDisk() {
+        String url = ProfilePictureStore.PUBLIC_PATH + "ab/cd/abcd.png";
+
+        Map<Integer, String> pending = processor.thumbnailUrls(url, false);
+        Map<Integer, String> generated = processor.thumbnailUrls(url, true);
+
+        // O arquivo nem existe: nada é consultado nem agendado
+        assertThat(pending).containsExactly(Map.entry(64, url), Map.entry(256, url), Map.entry(1024, url));
+        assertThat(generated).containsExactly(
+                Map.entry(64, ProfilePictureStore.PUBLIC_PATH + "ab/cd/abcd_64.jpg"),
+                Map.entry(256, ProfilePictureStore.PUBLIC_PATH + "ab/cd/abcd_256.jpg"),
+                Map.entry(1024, ProfilePictureStore.PUBLIC_PATH + "ab/cd/abcd_1024.jpg"));
+        assertThat(processor.thumbnailUrls("https://cdn.example.com/a.jpg", true)).isNull();
+        assertThat(processor.thumbnailUrls(ProfilePictureStore.PUBLIC_PATH + "../etc/passwd", true)).isNull();
+        verify(userProfileRepository, never()).markProfilePictureThumbnails(anyString());
+    }
+
+    @Test
+    void uploadGeneratesThumbnailsAndRecordsTheMark() throws IOException {
+        Files.createDirectories(root.resolve("ab/cd"));
+        Files.write(root.resolve("ab/cd/abcd.jpg"), landscapeJpeg());
+        String url = ProfilePictureStore.PUBLIC_PATH + "ab/cd/abcd.jpg";
+
+        processor.ensureThumbnails(url).join();
+
+        assertThat(root.resolve("ab/cd/abcd_256.jpg")).exists();
+        verify(userProfileRepository).markProfilePictureThumbnails(url);
+    }
+
+    @Test
+    void existingThumbnailsAreMarkedWithoutDecoding() throws IOException {
+        TaskExecutor executor = mock(TaskExecutor.class);
+        processor = processorWith(executor);
+        Files.write(root.resolve("abcd.jpg"), landscapeJpeg());
+        for (int size : ProfilePictureProcessor.THUMBNAIL_SIZES) {
+            Files.write(root.resolve("abcd_" + size + ".jpg"), new byte[]{1});
+        }
+
+        processor.ensureThumbnails(ProfilePictureStore.PUBLIC_PATH + "abcd.jpg");
+
+        verify(userProfileRepository).markProfilePictureThumbnails(ProfilePictureStore.PUBLIC_PATH + "abcd.jpg");
+        verify(executor, never()).execute(any());
+    }
+
+    @Test
+    void reconciliationResumesPicturesWithoutTheMark() throws IOException {
+        Files.write(root.resolve("a.jpg"), landscapeJpeg());
+        String url = ProfilePictureStore.PUBLIC_PATH + "a.jpg";
+        String missing = ProfilePictureStore.PUBLIC_PATH + "removida.jpg";
+        when(userProfileRepository.findProfilePictureUrlsWithoutThumbnails(eq(""), any(Pageable.class)))
+                .thenReturn(List.of(url, missing, "https://cdn.example.com/b.jpg"));
+
+        processor.reconcileThumbnails();
+
+        assertThat(root.resolve("a_64.jpg")).exists();
+        verify(userProfileRepository).markProfilePictureThumbnails(url);
+        verify(userProfileRepository, never()).markProfilePictureThumbnails(missing);
+    }
+
+    private ProfilePictureProcessor processorWith(TaskExecutor executor) {
+        ProfilePictureProcessor created = new ProfilePictureProcessor(executor, userProfileRepository);
+        ReflectionTestUtils.setField(created, "uploadDir", root.toString());
+        return created;
+    }
+
+    private static boolean isRed(int rgb) {
+        Color color = new Color(rgb);
+        return color.getRed() > 200 && color.getBlue() < 60;
+    }
+
+    private static byte[] landscapeJpeg() throws IOException {
+        BufferedImage image = new BufferedImage(64, 32, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        graphics.setColor(Color.RED);
+        graphics.fillRect(0, 0, 32, 32);
+        graphics.setColor(Color.BLUE);
+        graphics.fillRect(32, 0, 32, 32);
+        graphics.dispose();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpeg", output);
+        return output.toByteArray();
+    }
+
+    // Insere logo após o SOI um APP1 EXIF big-endian só com a tag Orientation
+    private static byte[] withOrientation(byte[] jpeg, int orientation) {
+        ByteBuffer segment = ByteBuffer.allocate(4 + 32)
+                .put((byte) 0xFF).put((byte) 0xE1).putShort((short) 34)
+                .put("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1))
+                .putShort((short) 0x4D4D).putShort((short) 42).putInt(8)
+                .putShort((short) 1)
+                .putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0)
+                .putInt(0);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        output.write(jpeg, 0, 2);
+        output.writeBytes(segment.array());
+        output.write(jpeg, 2, jpeg.length - 2);
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,202 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProfilePictureStoreTest {
+
+    private static final FileTime LONG_AGO = FileTime.from(Instant.now().minus(Duration.ofDays(30)));
+
+    @TempDir
+    Path root;
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final Set<String> referencedUrls = new CopyOnWriteArraySet<>();
+    private ProfilePictureStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new ProfilePictureStore(userProfileRepository);
+        ReflectionTestUtils.setField(store, "uploadDir", root.toString());
+        ReflectionTestUtils.setField(store, "gracePeriodHours", 24L);
+        when(userProfileRepository.findReferencedProfilePictureUrls(anyCollection()))
+                .thenAnswer(invocation -> referenced(invocation.getArgument(0)));
+    }
+
+    @Test
+    void storesUnderTheContentHashInShardedDirectories() throws IOException {
+        String url = store.store(upload("foto"), ".JPG");
+
+        String hash = url.substring(url.lastIndexOf('/') + 1, url.lastIndexOf('.'));
+        assertThat(hash).matches("[0-9a-f]{64}");
+        assertThat(url).isEqualTo(ProfilePictureStore.PUBLIC_PATH
+                + hash.substring(0, 2) + "/" + hash.substring(2, 4) + "/" + hash + ".jpg");
+        assertThat(fileOf(url)).hasContent("foto");
+    }
+
+    @Test
+    void identicalUploadsShareOneFile() throws IOException {
+        Path first = upload("mesma foto");
+        Path second = upload("mesma foto");
+
+        String firstUrl = store.store(first, ".jpg");
+        String secondUrl = store.store(second, ".jpg");
+
+        assertThat(secondUrl).isEqualTo(firstUrl);
+        assertThat(first).doesNotExist();
+        assertThat(second).doesNotExist();
+    }
+
+    @Test
+    void sweepDeletesOnlyUnreferencedFilesOlderThanTheGracePeriod() throws IOException {
+        Path referenced = fileOf(store.store(upload("referenciada"), ".jpg"));
+        Path unreferenced = fileOf(store.store(upload("sem referência"), ".jpg"));
+        Path recent = fileOf(store.store(upload("recente"), ".jpg"));
+        Path thumbnail = thumbnailOf(unreferenced, 256);
+        Files.writeString(thumbnail, "miniatura");
+        age(referenced, unreferenced, thumbnail);
+        referencedUrls.add(urlOf(referenced));
+
+        store.sweepUnreferenced();
+
+        assertThat(referenced).exists();
+        assertThat(recent).exists();
+        assertThat(unreferenced).doesNotExist();
+        assertThat(thumbnail).doesNotExist();
+    }
+
+    @Test
+    void sweepKeepsThumbnailsOfReferencedFiles() throws IOException {
+        Path original = fileOf(store.store(upload("com miniaturas"), ".jpg"));
+        Path thumbnail = thumbnailOf(original, 64);
+        Files.writeString(thumbnail, "miniatura");
+        age(original, thumbnail);
+        referencedUrls.add(urlOf(original));
+
+        store.sweepUnreferenced();
+
+        assertThat(original).exists();
+        assertThat(thumbnail).exists();
+    }
+
+    @Test
+    void sweepCollectsLegacyUploadsNamedByUserAndTimestamp() throws IOException {
+        // Formato antigo: "userId_timestamp.ext" direto na raiz; o sufixo numérico não é de miniatura
+        Path orphan = root.resolve("6f1c2a44-9d7e-4b8a-a0d2-3c5e1f7b9a10_1700000000000.jpg");
+        Path inUse = root.resolve("0b9d8e7f-1a2b-4c3d-8e9f-a1b2c3d4e5f6_1700000000001.jpg");
+        Files.writeString(orphan, "antiga");
+        Files.writeString(inUse, "em uso");
+        age(orphan, inUse);
+        referencedUrls.add(urlOf(inUse));
+
+        store.sweepUnreferenced();
+
+        assertThat(orphan).doesNotExist();
+        assertThat(inUse).exists();
+    }
+
+    @Test
+    void duplicateUploadDuringSweepKeepsTheFile() throws IOException {
+        Path existing = fileOf(store.store(upload("reenviada"), ".jpg"));
+        age(existing);
+        // O duplicado chega depois de o coletor consultar as referências e antes de remover
+        when(userProfileRepository.findReferencedProfilePictureUrls(anyCollection())).thenAnswer(invocation -> {
+            store.store(upload("reenviada"), ".jpg");
+            return List.of();
+        });
+
+        store.sweepUnreferenced();
+
+        assertThat(existing).hasContent("reenviada");
+    }
+
+    @Test
+    void storedFileSurvivesAConcurrentSweep() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            String content = "disputa " + round;
+            Path existing = fileOf(store.store(upload(content), ".jpg"));
+            age(existing);
+            Path duplicate = upload(content);
+            CyclicBarrier start = new CyclicBarrier(2);
+
+            CompletableFuture<String> storing = CompletableFuture.supplyAsync(() -> {
+                await(start);
+                try {
+                    return store.store(duplicate, ".jpg");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            CompletableFuture<Void> sweeping = CompletableFuture.runAsync(() -> {
+                await(start);
+                store.sweepUnreferenced();
+            });
+            sweeping.get(10, TimeUnit.SECONDS);
+
+            // Qualquer que seja a ordem, a URL devolvida aponta para um arquivo existente
+            assertThat(fileOf(storing.get(10, TimeUnit.SECONDS))).hasContent(content);
+        }
+    }
+
+    private Path upload(String content) throws IOException {
+        Path uploadDir = Files.createDirectories(root.resolve(".uploads"));
+        Path file = Files.createTempFile(uploadDir, ".upload-", ".tmp");
+        Files.writeString(file, content, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private Path fileOf(String url) {
+        return root.resolve(url.substring(ProfilePictureStore.PUBLIC_PATH.length()));
+    }
+
+    private String urlOf(Path file) {
+        return ProfilePictureStore.PUBLIC_PATH + root.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static Path thumbnailOf(Path original, int size) {
+        String name = original.getFileName().toString();
+        return original.resolveSibling(
+                ProfilePictureProcessor.thumbnailFilename(name.substring(0, name.lastIndexOf('.')), size));
+    }
+
+    private static void age(Path... files) throws IOException {
+        for (Path file : files) {
+            Files.setLastModifiedTime(file, LONG_AGO);
+        }
+    }
+
+    private List<String> referenced(Collection<String> urls) {
+        return urls.stream().filter(referencedUrls::contains).toList();
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
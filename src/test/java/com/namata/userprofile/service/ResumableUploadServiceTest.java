@@ -0,0 +1,297 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.InitiateUploadRequest;
+import com.namata.userprofile.dto.ResumableUploadDTO;
+import com.namata.userprofile.dto.UserProfileDTO;
+import com.namata.userprofile.repository.UserProfileRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResumableUploadServiceTest {
+
+    private static final byte[] PICTURE = "conteúdo da foto de perfil".getBytes(StandardCharsets.UTF_8);
+
+    @TempDir
+    Path uploadDir;
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final UserProfileService userProfileService = mock(UserProfileService.class);
+    private final UUID userId = UUID.randomUUID();
+    private final UserProfileDTO profile = UserProfileDTO.builder().userId(userId).build();
+    private final AtomicReference<byte[]> applied = new AtomicReference<>();
+
+    private ResumableUploadService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        when(userProfileRepository.existsByUserId(userId)).thenReturn(true);
+        when(userProfileService.applyProfilePicture(eq(userId), any(), any())).thenAnswer(invocation -> {
+            // Como o armazenamento real: consome o arquivo recebido
+            Path file = invocation.getArgument(1);
+            applied.set(Files.readAllBytes(file));
+            Files.delete(file);
+            return profile;
+        });
+        service = newService();
+    }
+
+    @Test
+    void chunksAreAppendedAtTheConfirmedOffset() {
+        UUID uploadId = initiate();
+
+        ResumableUploadDTO first = service.uploadChunk(userId, uploadId, 0, slice(0, 10));
+        ResumableUploadDTO second = service.uploadChunk(userId, uploadId, 10, slice(10, PICTURE.length));
+
+        assertThat(first.getReceivedBytes()).isEqualTo(10);
+        assertThat(first.getIsComplete()).isFalse();
+        assertThat(second.getReceivedBytes()).isEqualTo(PICTURE.length);
+        assertThat(second.getIsComplete()).isTrue();
+    }
+
+    @Test
+    void chunkAtAnotherOffsetIsRejectedWithoutWriting() {
+        UUID uploadId = initiate();
+        service.uploadChunk(userId, uploadId, 0, slice(0, 10));
+
+        assertThatThrownBy(() -> service.uploadChunk(userId, uploadId, 5, slice(5, 15)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.uploadChunk(userId, uploadId, 12, slice(12, 15)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(service.getUpload(userId, uploadId).getReceivedBytes()).isEqualTo(10);
+    }
+
+    @Test
+    void chunkBeyondTheDeclaredSizeIsRejected() {
+        UUID uploadId = initiate();
+
+        assertThatThrownBy(() -> service.uploadChunk(userId, uploadId, 0,
+                new ByteArrayInputStream(new byte[PICTURE.length + 1])))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(service.getUpload(userId, uploadId).getReceivedBytes()).isZero();
+    }
+
+    @Test
+    void concurrentChunkForTheSameUploadIsAConflict() throws Exception {
+        UUID uploadId = initiate();
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        // Trecho lento: segura o lock do arquivo de dados até o teste liberar
+        InputStream slow = new InputStream() {
+            private int sent;
+
+            @Override
+            public int read() throws IOException {
+                return -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (sent == 0) {
+                    buffer[offset] = PICTURE[0];
+                    sent = 1;
+                    return 1;
+                }
+                reading.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return -1;
+            }
+        };
+        CompletableFuture<ResumableUploadDTO> first = CompletableFuture.supplyAsync(
+                () -> service.uploadChunk(userId, uploadId, 0, slow));
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.uploadChunk(userId, uploadId, 0, slice(0, 5)))
+                .isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> service.completeUpload(userId, uploadId))
+                .isInstanceOf(IllegalStateException.class);
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getReceivedBytes()).isEqualTo(1);
+    }
+
+    @Test
+    void interruptedChunkConfirmsWhatArrived() {
+        UUID uploadId = initiate();
+        InputStream broken = new InputStream() {
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                if (position == 7) {
+                    throw new IOException("conexão encerrada");
+                }
+                return PICTURE[position++];
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                int read = 0;
+                while (read < length && position < 7) {
+                    buffer[offset + read++] = (byte) read();
+                }
+                return read > 0 ? read : read();
+            }
+        };
+
+        assertThatThrownBy(() -> service.uploadChunk(userId, uploadId, 0, broken)).isInstanceOf(RuntimeException.class);
+
+        assertThat(service.getUpload(userId, uploadId).getReceivedBytes()).isEqualTo(7);
+        service.uploadChunk(userId, uploadId, 7, slice(7, PICTURE.length));
+        service.completeUpload(userId, uploadId);
+        assertThat(applied.get()).isEqualTo(PICTURE);
+    }
+
+    @Test
+    void uploadResumesAfterARestart() {
+        UUID uploadId = initiate();
+        service.uploadChunk(userId, uploadId, 0, slice(0, 12));
+
+        ResumableUploadService restarted = newService();
+
+        assertThat(restarted.getUpload(userId, uploadId).getReceivedBytes()).isEqualTo(12);
+        restarted.uploadChunk(userId, uploadId, 12, slice(12, PICTURE.length));
+        assertThat(restarted.completeUpload(userId, uploadId)).isSameAs(profile);
+        assertThat(applied.get()).isEqualTo(PICTURE);
+    }
+
+    @Test
+    void completionAppliesThePictureAndRemovesTheSession() {
+        UUID uploadId = initiate();
+        service.uploadChunk(userId, uploadId, 0, slice(0, PICTURE.length));
+
+        assertThat(service.completeUpload(userId, uploadId)).isSameAs(profile);
+
+        assertThat(applied.get()).isEqualTo(PICTURE);
+        assertThat(sessionOf(uploadId)).doesNotExist();
+        assertThatThrownBy(() -> service.getUpload(userId, uploadId)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void incompleteUploadCannotBeCompleted() throws IOException {
+        UUID uploadId = initiate();
+        service.uploadChunk(userId, uploadId, 0, slice(0, 3));
+
+        assertThatThrownBy(() -> service.completeUpload(userId, uploadId)).isInstanceOf(IllegalStateException.class);
+        verify(userProfileService, never()).applyProfilePicture(any(), any(), any());
+    }
+
+    @Test
+    void failedCompletionKeepsTheSessionForARetry() throws IOException {
+        UUID uploadId = initiate();
+        service.uploadChunk(userId, uploadId, 0, slice(0, PICTURE.length));
+        when(userProfileService.applyProfilePicture(eq(userId), any(), any()))
+                .thenAnswer(invocation -> {
+                    // Falha depois do armazenamento já ter consumido o arquivo recebido
+                    Files.delete(invocation.<Path>getArgument(1));
+                    throw new RuntimeException("banco indisponível");
+                })
+                .thenAnswer(invocation -> {
+                    applied.set(Files.readAllBytes(invocation.<Path>getArgument(1)));
+                    return profile;
+                });
+
+        assertThatThrownBy(() -> service.completeUpload(userId, uploadId)).hasMessageContaining("banco indisponível");
+        assertThat(service.getUpload(userId, uploadId).getIsComplete()).isTrue();
+
+        assertThat(service.completeUpload(userId, uploadId)).isSameAs(profile);
+        assertThat(applied.get()).isEqualTo(PICTURE);
+        assertThat(sessionOf(uploadId)).doesNotExist();
+    }
+
+    @Test
+    void anotherUsersUploadIsNotFound() {
+        UUID uploadId = initiate();
+        UUID intruder = UUID.randomUUID();
+
+        assertThatThrownBy(() -> service.getUpload(intruder, uploadId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.uploadChunk(intruder, uploadId, 0, slice(0, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.completeUpload(intruder, uploadId)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.abortUpload(intruder, uploadId)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(sessionOf(uploadId)).exists();
+    }
+
+    @Test
+    void expiredSessionsAreRemoved() throws IOException {
+        UUID expired = initiate();
+        UUID active = initiate();
+        FileTime longAgo = FileTime.from(Instant.now().minus(Duration.ofHours(25)));
+        Files.setLastModifiedTime(sessionOf(expired).resolve("upload.properties"), longAgo);
+
+        service.removeExpiredUploads();
+
+        assertThat(sessionOf(expired)).doesNotExist();
+        assertThat(sessionOf(active)).exists();
+        assertThatThrownBy(() -> service.uploadChunk(userId, expired, 0, slice(0, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void initiateValidatesTypeSizeAndProfile() {
+        assertThatThrownBy(() -> service.initiateUpload(userId, request("text/plain", 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.initiateUpload(userId, request("image/jpeg", 10_485_761)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.initiateUpload(UUID.randomUUID(), request("image/jpeg", 10)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ResumableUploadService newService() {
+        ResumableUploadService created = new ResumableUploadService(userProfileRepository, userProfileService);
+        ReflectionTestUtils.setField(created, "uploadDir", uploadDir.toString());
+        ReflectionTestUtils.setField(created, "maxSizeBytes", 10_485_760L);
+        ReflectionTestUtils.setField(created, "expirationHours", 24L);
+        return created;
+    }
+
+    private UUID initiate() {
+        return service.initiateUpload(userId, request("image/jpeg", PICTURE.length)).getUploadId();
+    }
+
+    private static InitiateUploadRequest request(String contentType, long totalSize) {
+        return InitiateUploadRequest.builder()
+                .fileName("foto.jpg")
+                .contentType(contentType)
+                .totalSize(totalSize)
+                .build();
+    }
+
+    private static InputStream slice(int from, int to) {
+        return new ByteArrayInputStream(PICTURE, from, to - from);
+    }
+
+    private Path sessionOf(UUID uploadId) {
+        return uploadDir.resolve(".resumable").resolve(uploadId.toString());
+    }
+}
@@ -0,0 +1,74 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.repository.UserSavedTrailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SavedTrailIndexTest {
+
+    private final UserProfileRepository userProfileRepository = mock(UserProfileRepository.class);
+    private final UserSavedTrailRepository userSavedTrailRepository = mock(UserSavedTrailRepository.class);
+    private final UUID userId = UUID.randomUUID();
+    private final UUID savedTrail = UUID.randomUUID();
+    private final List<UUID> trailsInDatabase = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        when(userProfileRepository.findByUserId(userId)).thenReturn(Optional.of(profile));
+        when(userSavedTrailRepository.findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(any()))
+                .thenAnswer(invocation -> List.copyOf(trailsInDatabase));
+        trailsInDatabase.add(savedTrail);
+    }
+
+    @Test
+    void servesRepeatedChecksFromMemory() {
+        SavedTrailIndex index = new SavedTrailIndex(userProfileRepository, userSavedTrailRepository, 100, 300);
+
+        assertThat(index.contains(userId, savedTrail)).isTrue();
+        assertThat(index.contains(userId, UUID.randomUUID())).isFalse();
+
+        verify(userSavedTrailRepository, times(1)).findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(any());
+    }
+
+    @Test
+    void localChangesUpdateTheLoadedSet() {
+        SavedTrailIndex index = new SavedTrailIndex(userProfileRepository, userSavedTrailRepository, 100, 300);
+        UUID newTrail = UUID.randomUUID();
+        index.contains(userId, savedTrail);
+
+        index.add(userId, newTrail);
+        index.remove(userId, savedTrail);
+
+        assertThat(index.containsAll(userId, List.of(savedTrail, newTrail)))
+                .containsEntry(savedTrail, false)
+                .containsEntry(newTrail, true);
+        verify(userSavedTrailRepository, times(1)).findTrailIdsByUserProfileAndIsActiveTrueOrderBySavedAtDesc(any());
+    }
+
+    @Test
+    void expiredSetsAreReloadedAndSeeChangesFromOtherInstances() {
+        SavedTrailIndex index = new SavedTrailIndex(userProfileRepository, userSavedTrailRepository, 100, 0);
+        UUID savedElsewhere = UUID.randomUUID();
+        assertThat(index.contains(userId, savedElsewhere)).isFalse();
+
+        trailsInDatabase.add(savedElsewhere);
+
+        assertThat(index.contains(userId, savedElsewhere)).isTrue();
+    }
+}
@@ -0,0 +1,71 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.ProfileFeaturesDTO;
+import com.namata.userprofile.repository.UserProfileRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Latência da busca de perfis semelhantes com 1 milhão de perfis em memória (varredura exata paralela).
+ * Roda com {@code mvn test -Pbenchmark}; os percentis são impressos na saída do teste.
+ */
+@Tag("benchmark")
+class SimilarProfileIndexBenchmarkTest {
+
+    private static final int PROFILES = 1_000_000;
+    private static final int WARMUP_QUERIES = 50;
+    private static final int MEASURED_QUERIES = 500;
+
+    @Test
+    void topKLatencyWithOneMillionProfiles() {
+        UserProfileRepository repository = mock(UserProfileRepository.class);
+        Random random = new Random(42);
+        UUID[] userIds = new UUID[PROFILES];
+        when(repository.streamActiveProfileFeatures()).thenAnswer(invocation -> {
+            int[] next = {0};
+            return Stream.generate(() -> {
+                ProfileFeaturesDTO profile = SimilarProfileIndexTest.randomProfile(random);
+                userIds[next[0]++] = profile.getUserId();
+                return profile;
+            }).limit(PROFILES);
+        });
+        SimilarProfileIndex index = new SimilarProfileIndex(repository);
+
+        long buildStart = System.nanoTime();
+        index.rebuild();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        assertThat(index.size()).isEqualTo(PROFILES);
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.findNearest(userIds[random.nextInt(PROFILES)], 20);
+        }
+        long[] latencies = new long[MEASURED_QUERIES];
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            long start = System.nanoTime();
+            assertThat(index.findNearest(userIds[random.nextInt(PROFILES)], 20)).hasSize(20);
+            latencies[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(latencies);
+
+        double p50 = percentileMillis(latencies, 0.50);
+        double p99 = percentileMillis(latencies, 0.99);
+        System.out.printf("Perfis semelhantes, %d perfis, %d processadores: construção %d ms, p50 %.2f ms, p99 %.2f ms, máx %.2f ms%n",
+                PROFILES, Runtime.getRuntime().availableProcessors(), buildMillis, p50, p99,
+                latencies[latencies.length - 1] / 1e6);
+        // Limite folgado: só acusa regressões grosseiras (ex.: varredura sequencial ou cópia do índice por consulta)
+        assertThat(p50).isLessThan(250.0);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1)] / 1e6;
+    }
+}
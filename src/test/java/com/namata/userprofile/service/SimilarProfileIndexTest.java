@@ -0,0 +1,219 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.dto.ProfileFeaturesDTO;
+import com.namata.userprofile.entity.Statistics;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.UserProfileRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SimilarProfileIndexTest {
+
+    private static final String[] LOCATIONS = {"Serra do Mar", "Chapada Diamantina", "Itatiaia", "", null};
+
+    private final UserProfileRepository repository = mock(UserProfileRepository.class);
+    private final SimilarProfileIndex index = new SimilarProfileIndex(repository);
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void topKMatchesABruteForceOracle() {
+        assertMatchesOracle(randomProfiles(new Random(7), 2_000));
+    }
+
+    @Test
+    void parallelScanMatchesABruteForceOracle() {
+        // Acima do limiar a varredura é dividida em blocos paralelos
+        assertMatchesOracle(randomProfiles(new Random(11), 60_000));
+    }
+
+    @Test
+    void unknownUserHasNoNeighbours() {
+        load(randomProfiles(new Random(3), 10));
+
+        assertThat(index.findNearest(UUID.randomUUID(), 5)).isEmpty();
+    }
+
+    @Test
+    void changesAreAppliedOnlyAfterCommit() {
+        ProfileFeaturesDTO existing = randomProfiles(new Random(5), 1).get(0);
+        load(List.of(existing));
+        UserProfile created = UserProfile.builder()
+                .userId(UUID.randomUUID())
+                .experienceLevel(UserProfile.ExperienceLevel.EXPERT)
+                .build();
+
+        TransactionSynchronizationManager.initSynchronization();
+        index.upsertProfile(created);
+        index.remove(existing.getUserId());
+
+        assertThat(index.contains(created.getUserId())).isFalse();
+        assertThat(index.contains(existing.getUserId())).isTrue();
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertThat(index.contains(created.getUserId())).isTrue();
+        assertThat(index.contains(existing.getUserId())).isFalse();
+    }
+
+    @Test
+    void changesCommittedDuringARebuildSurviveTheSwap() {
+        List<ProfileFeaturesDTO> profiles = randomProfiles(new Random(13), 3);
+        ProfileFeaturesDTO removed = profiles.get(0);
+        ProfileFeaturesDTO updated = profiles.get(1);
+        UUID created = UUID.randomUUID();
+        load(profiles);
+
+        // A leitura do banco devolve o estado anterior às alterações confirmadas enquanto ela rodava
+        when(repository.streamActiveProfileFeatures()).thenAnswer(invocation -> {
+            index.upsertProfile(UserProfile.builder().userId(created).build());
+            index.remove(removed.getUserId());
+            index.updateStatistics(updated.getUserId(), Statistics.builder()
+                    .totalDistanceKm(4_000.0)
+                    .totalElevationGainM(150_000.0)
+                    .totalTrailsCompleted(900)
+                    .build());
+            return profiles.stream();
+        });
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.contains(created)).isTrue();
+        assertThat(index.contains(removed.getUserId())).isFalse();
+
+        updated.setTotalDistanceKm(4_000.0);
+        updated.setTotalElevationGainM(150_000.0);
+        updated.setTotalTrailsCompleted(900);
+        List<ProfileFeaturesDTO> expected = new ArrayList<>(profiles.subList(1, 3));
+        expected.add(ProfileFeaturesDTO.builder().userId(created).build());
+        assertNeighboursMatch(expected, updated, 5);
+    }
+
+    @Test
+    void failedRebuildKeepsTheCurrentIndex() {
+        List<ProfileFeaturesDTO> profiles = randomProfiles(new Random(17), 5);
+        load(profiles);
+
+        when(repository.streamActiveProfileFeatures()).thenThrow(new IllegalStateException("banco indisponível"));
+        index.rebuild();
+
+        assertThat(index.size()).isEqualTo(5);
+    }
+
+    private void assertMatchesOracle(List<ProfileFeaturesDTO> profiles) {
+        load(profiles);
+        Random random = new Random(profiles.size());
+        for (int i = 0; i < 20; i++) {
+            assertNeighboursMatch(profiles, profiles.get(random.nextInt(profiles.size())), SimilarProfileIndex.MAX_LIMIT);
+        }
+    }
+
+    /**
+     * Compara com o oráculo pelas similaridades, não pela ordem dos ids: perfis empatados podem sair em qualquer ordem.
+     */
+    private void assertNeighboursMatch(List<ProfileFeaturesDTO> profiles, ProfileFeaturesDTO query, int k) {
+        Map<UUID, Double> oracle = new HashMap<>();
+        for (ProfileFeaturesDTO candidate : profiles) {
+            if (!candidate.getUserId().equals(query.getUserId())) {
+                oracle.put(candidate.getUserId(), similarity(query, candidate));
+            }
+        }
+        List<Double> expected = oracle.values().stream()
+                .sorted(Comparator.reverseOrder())
+                .limit(k)
+                .toList();
+
+        List<SimilarProfileIndex.Neighbour> neighbours = index.findNearest(query.getUserId(), k);
+
+        assertThat(neighbours).hasSameSizeAs(expected);
+        for (int i = 0; i < neighbours.size(); i++) {
+            SimilarProfileIndex.Neighbour neighbour = neighbours.get(i);
+            assertThat(neighbour.similarity()).isCloseTo(expected.get(i), within(1e-4));
+            assertThat(neighbour.similarity()).isCloseTo(oracle.get(neighbour.userId()), within(1e-4));
+        }
+    }
+
+    private void load(List<ProfileFeaturesDTO> profiles) {
+        when(repository.streamActiveProfileFeatures()).thenAnswer(invocation -> profiles.stream());
+        index.rebuild();
+    }
+
+    // Distância euclidiana ponderada recalculada do zero, em double, a partir das características brutas
+    private static double similarity(ProfileFeaturesDTO a, ProfileFeaturesDTO b) {
+        double[] x = features(a);
+        double[] y = features(b);
+        double distance = 0;
+        for (int d = 0; d < x.length; d++) {
+            distance += (x[d] - y[d]) * (x[d] - y[d]);
+        }
+        String location = DisplayNameIndex.normalize(a.getLocation());
+        if (!location.isEmpty() && location.equals(DisplayNameIndex.normalize(b.getLocation()))) {
+            distance -= 0.5;
+        }
+        return 1.0 / (1.0 + Math.max(0, distance));
+    }
+
+    private static double[] features(ProfileFeaturesDTO profile) {
+        List<Double> features = new ArrayList<>();
+        UserProfile.ExperienceLevel level = profile.getExperienceLevel();
+        features.add(level != null ? (double) level.ordinal() / (UserProfile.ExperienceLevel.values().length - 1) : 0);
+        int mask = profile.getInterestsMask() != null ? profile.getInterestsMask() : 0;
+        for (UserProfile.Interest interest : UserProfile.Interest.values()) {
+            features.add((mask & interest.bit()) != 0 ? 0.5 : 0);
+        }
+        for (UserProfile.ExplorationType type : UserProfile.ExplorationType.values()) {
+            features.add(type == profile.getExplorationType() ? 0.7 : 0);
+        }
+        features.add(scaled(profile.getTotalDistanceKm(), 5_000));
+        features.add(scaled(profile.getTotalElevationGainM(), 200_000));
+        features.add(scaled(profile.getTotalTrailsCompleted() != null ? profile.getTotalTrailsCompleted().doubleValue() : null, 1_000));
+        return features.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private static double scaled(Double value, double saturation) {
+        return value == null || value <= 0 ? 0 : Math.min(1.0, Math.log1p(value) / Math.log1p(saturation));
+    }
+
+    static List<ProfileFeaturesDTO> randomProfiles(Random random, int count) {
+        List<ProfileFeaturesDTO> profiles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            profiles.add(randomProfile(random));
+        }
+        return profiles;
+    }
+
+    static ProfileFeaturesDTO randomProfile(Random random) {
+        UserProfile.ExperienceLevel[] levels = UserProfile.ExperienceLevel.values();
+        UserProfile.ExplorationType[] types = UserProfile.ExplorationType.values();
+        return ProfileFeaturesDTO.builder()
+                .userId(UUID.randomUUID())
+                .location(LOCATIONS[random.nextInt(LOCATIONS.length)])
+                .experienceLevel(random.nextInt(5) == 0 ? null : levels[random.nextInt(levels.length)])
+                .interestsMask(random.nextInt(1 << UserProfile.Interest.values().length))
+                .explorationType(random.nextInt(5) == 0 ? null : types[random.nextInt(types.length)])
+                .totalDistanceKm(random.nextInt(10) == 0 ? null : random.nextDouble() * 8_000)
+                .totalElevationGainM(random.nextDouble() * 250_000)
+                .totalTrailsCompleted(random.nextInt(1_500))
+                .build();
+    }
+}
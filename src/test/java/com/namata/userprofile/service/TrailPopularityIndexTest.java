@@ -0,0 +1,143 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.entity.TrailPopularity;
+import com.namata.userprofile.repository.TrailPopularityRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TrailPopularityIndexTest {
+
+    private final TrailPopularityRepository repository = mock(TrailPopularityRepository.class);
+    private final FakeTransactionManager transactionManager = new FakeTransactionManager();
+    private final TrailPopularityIndex index = new TrailPopularityIndex(repository, transactionManager, 168);
+    private final UUID trailId = UUID.randomUUID();
+
+    @Test
+    void flushWritesInsideATransaction() {
+        index.recordSaved(trailId);
+
+        index.flush();
+
+        verify(repository).addDeltas(eq(trailId), eq(1L), anyDouble(), any(), anyDouble());
+        assertThat(transactionManager.commits).isEqualTo(1);
+    }
+
+    @Test
+    void rolledBackDeltasAreWrittenAgainOnce() {
+        index.recordSaved(trailId);
+        when(repository.addDeltas(any(), anyLong(), anyDouble(), any(), anyDouble()))
+                .thenThrow(new IllegalStateException("falha"))
+                .thenReturn(1);
+
+        assertThatThrownBy(index::flush).isInstanceOf(IllegalStateException.class);
+        index.recordSaved(trailId);
+        index.flush();
+
+        verify(repository).addDeltas(eq(trailId), eq(2L), anyDouble(), any(), anyDouble());
+    }
+
+    @Test
+    void deltasAreKeptWhenTheTransactionCannotStart() {
+        index.recordSaved(trailId);
+        transactionManager.failBegin = true;
+
+        assertThatThrownBy(index::flush).isInstanceOf(CannotCreateTransactionException.class);
+        transactionManager.failBegin = false;
+        index.flush();
+
+        verify(repository).addDeltas(eq(trailId), eq(1L), anyDouble(), any(), anyDouble());
+    }
+
+    @Test
+    void deltasAreNotRequeuedWhenTheCommitOutcomeIsUnknown() {
+        index.recordSaved(trailId);
+        transactionManager.failCommit = true;
+
+        assertThatThrownBy(index::flush).isInstanceOf(TransactionSystemException.class);
+        transactionManager.failCommit = false;
+        clearInvocations(repository);
+        index.flush();
+
+        // Regravar poderia contar duas vezes; a releitura periódica corrige se o commit não valeu
+        verify(repository, never()).addDeltas(any(), anyLong(), anyDouble(), any(), anyDouble());
+    }
+
+    @Test
+    void refreshReplacesTotalsWithTheTableAndKeepsUnflushedDeltas() {
+        UUID savedElsewhere = UUID.randomUUID();
+        index.recordSaved(trailId);
+        when(repository.findAll()).thenReturn(List.of(
+                popularity(trailId, 5), popularity(savedElsewhere, 3)));
+
+        index.refresh();
+        index.recordSaved(trailId);
+
+        assertThat(index.getSavedCounts(List.of(trailId, savedElsewhere)))
+                .isEqualTo(Map.of(trailId, 6L, savedElsewhere, 3L));
+        assertThat(index.getTopTrending(10)).extracting("trailId").contains(trailId, savedElsewhere);
+    }
+
+    private static TrailPopularity popularity(UUID trailId, long savedCount) {
+        return TrailPopularity.builder()
+                .trailId(trailId)
+                .savedCount(savedCount)
+                .trendingScore((double) savedCount)
+                .scoreUpdatedAt(LocalDateTime.now())
+                .build();
+    }
+
+    /**
+     * Gerenciador sem recursos: só o ciclo de vida e as sincronizações do Spring, com falhas simuláveis.
+     */
+    private static final class FakeTransactionManager extends AbstractPlatformTransactionManager {
+
+        boolean failBegin;
+        boolean failCommit;
+        int commits;
+
+        @Override
+        protected Object doGetTransaction() {
+            return new Object();
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+            if (failBegin) {
+                throw new CannotCreateTransactionException("sem conexão");
+            }
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            if (failCommit) {
+                throw new TransactionSystemException("conexão perdida no commit");
+            }
+            commits++;
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
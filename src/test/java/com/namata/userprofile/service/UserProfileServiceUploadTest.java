@@ -0,0 +1,186 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.client.AuthServiceClient;
+import com.namata.userprofile.dto.UserProfileDTO;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.repository.StatisticsRepository;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Confere que o upload da foto de perfil não segura conexão do pool enquanto o arquivo é copiado.
+ * O repositório é simulado, mas cada chamada a ele usa de fato uma conexão do pool (H2 em memória),
+ * e o serviço passa pelo proxy transacional do Spring como em produção.
+ */
+@SpringJUnitConfig(UserProfileServiceUploadTest.TestConfig.class)
+class UserProfileServiceUploadTest {
+
+    private static final String PICTURE_URL = "/uploads/profile-pictures/abc.jpg";
+
+    @TempDir
+    static Path uploadDir;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("app.upload.profile-pictures.directory", uploadDir::toString);
+    }
+
+    @Autowired
+    private UserProfileService userProfileService;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private ProfilePictureStore profilePictureStore;
+
+    @Autowired
+    private HikariDataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final UUID userId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        reset(userProfileRepository, profilePictureStore);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        // Cada chamada ao repositório executa um comando, obtendo conexão como o Spring Data faria
+        when(userProfileRepository.existsByUserId(userId))
+                .thenAnswer(invocation -> jdbc.queryForObject("SELECT TRUE", Boolean.class));
+        when(userProfileRepository.updateProfilePictureUrl(eq(userId), eq(PICTURE_URL), any()))
+                .thenAnswer(invocation -> jdbc.queryForObject("SELECT 1", Integer.class));
+        when(userProfileRepository.findByUserId(userId)).thenAnswer(invocation -> {
+            UserProfile profile = new UserProfile();
+            profile.setUserId(userId);
+            profile.setProfilePictureUrl(PICTURE_URL);
+            profile.setIsActive(true);
+            return Optional.of(profile);
+        });
+        when(profilePictureStore.store(any(), any())).thenReturn(PICTURE_URL);
+    }
+
+    @Test
+    void holdsNoConnectionWhileTheUploadIsBeingCopied() throws Exception {
+        CountDownLatch copying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        MockMultipartFile slowUpload = new MockMultipartFile("file", "photo.jpg", "image/jpeg", new byte[64 * 1024]) {
+            @Override
+            public InputStream getInputStream() throws IOException {
+                return new FilterInputStream(super.getInputStream()) {
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        copying.countDown();
+                        awaitQuietly(release);
+                        return super.read(buffer, offset, length);
+                    }
+                };
+            }
+        };
+
+        CompletableFuture<UserProfileDTO> upload =
+                CompletableFuture.supplyAsync(() -> userProfileService.updateProfilePicture(userId, slowUpload));
+        try {
+            assertThat(copying.await(10, TimeUnit.SECONDS)).isTrue();
+            assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+        } finally {
+            release.countDown();
+        }
+
+        assertThat(upload.get(10, TimeUnit.SECONDS).getProfilePictureUrl()).isEqualTo(PICTURE_URL);
+        assertThat(dataSource.getHikariPoolMXBean().getActiveConnections()).isZero();
+    }
+
+    @Test
+    void activeConnectionCountSeesAConnectionHeldByATransaction() {
+        // Controle: a métrica usada acima enxerga uma conexão presa a uma transação aberta
+        Integer active = new TransactionTemplate(transactionManager).execute(status -> {
+            new JdbcTemplate(dataSource).queryForObject("SELECT 1", Integer.class);
+            return dataSource.getHikariPoolMXBean().getActiveConnections();
+        });
+
+        assertThat(active).isEqualTo(1);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(10, TimeUnit.SECONDS)) {
+                throw new IOException("Tempo esgotado aguardando liberação do upload");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TestConfig {
+
+        @Bean(destroyMethod = "close")
+        HikariDataSource dataSource() {
+            HikariConfig config = new HikariConfig();
+            config.setJdbcUrl("jdbc:h2:mem:upload-test;DB_CLOSE_DELAY=-1");
+            config.setMaximumPoolSize(2);
+            config.setMinimumIdle(0);
+            return new HikariDataSource(config);
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager(HikariDataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+
+        @Bean
+        UserProfileRepository userProfileRepository() {
+            return mock(UserProfileRepository.class);
+        }
+
+        @Bean
+        ProfilePictureStore profilePictureStore() {
+            return mock(ProfilePictureStore.class);
+        }
+
+        @Bean
+        UserProfileService userProfileService(UserProfileRepository userProfileRepository,
+                                              ProfilePictureStore profilePictureStore) {
+            return new UserProfileService(userProfileRepository, mock(StatisticsRepository.class),
+                    mock(DisplayNameIndex.class), mock(SimilarProfileIndex.class), profilePictureStore,
+                    mock(ProfilePictureProcessor.class), mock(AuthServiceClient.class));
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.namata.userprofile.service;
+
+import com.namata.userprofile.client.TrailCatalogClient;
+import com.namata.userprofile.dto.SaveTrailRequest;
+import com.namata.userprofile.dto.TrailSummaryDTO;
+import com.namata.userprofile.dto.UserSavedTrailDTO;
+import com.namata.userprofile.entity.UserProfile;
+import com.namata.userprofile.entity.UserSavedTrail;
+import com.namata.userprofile.repository.UserProfileRepository;
+import com.namata.userprofile.repository.UserSavedTrailRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.when;
+
+/**
+ * Confere, pelos proxies transacionais reais, que o catálogo remoto de trilhas só é consultado fora de transação.
+ */
+@SpringJUnitConfig(UserSavedTrailServiceTest.TestConfig.class)
+class UserSavedTrailServiceTest {
+
+    @Autowired
+    private UserSavedTrailService userSavedTrailService;
+
+    @Autowired
+    private UserSavedTrailRepository userSavedTrailRepository;
+
+    @Autowired
+    private UserProfileRepository userProfileRepository;
+
+    @Autowired
+    private TrailCatalogClient trailCatalogClient;
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID trailId = UUID.randomUUID();
+    private final List<Boolean> catalogCalledInTransaction = new ArrayList<>();
+    private final List<Boolean> repositoryCalledInTransaction = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        reset(userSavedTrailRepository, userProfileRepository, trailCatalogClient);
+        UserProfile profile = new UserProfile();
+        profile.setUserId(userId);
+        profile.setDisplayName("Ana");
+        when(userProfileRepository.findByUserId(userId)).thenAnswer(invocation -> {
+            repositoryCalledInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return Optional.of(profile);
+        });
+        UserSavedTrail savedTrail = UserSavedTrail.builder().userProfile(profile).trailId(trailId).isActive(true).build();
+        when(userSavedTrailRepository.findByUserProfileAndIsActiveTrueOrderBySavedAtDesc(profile))
+                .thenReturn(List.of(savedTrail));
+        when(userSavedTrailRepository.findByUserProfileAndTrailIdAndIsActiveTrue(profile, trailId))
+                .thenReturn(Optional.of(savedTrail));
+
+        TrailSummaryDTO trail = new TrailSummaryDTO();
+        trail.setName("Pico da Bandeira");
+        when(trailCatalogClient.getTrails(anyCollection())).thenAnswer(invocation -> {
+            catalogCalledInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return Map.of(trailId, trail);
+        });
+        when(trailCatalogClient.getTrail(any())).thenAnswer(invocation -> {
+            catalogCalledInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return Optional.of(trail);
+        });
+    }
+
+    @Test
+    void listsSavedTrailsWithDetailsFetchedAfterTheTransaction() {
+        List<UserSavedTrailDTO> savedTrails = userSavedTrailService.getSavedTrails(userId);
+
+        assertThat(savedTrails).extracting(UserSavedTrailDTO::getTrailName).containsExactly("Pico da Bandeira");
+        assertThat(savedTrails).extracting(UserSavedTrailDTO::getUserDisplayName).containsExactly("Ana");
+        assertThat(repositoryCalledInTransaction).containsExactly(true);
+        assertThat(catalogCalledInTransaction).containsExactly(false);
+    }
+
+    @Test
+    void savedTrailDetailsAreFetchedAfterTheTransaction() {
+        Optional<UserSavedTrailDTO> savedTrail = userSavedTrailService.getSavedTrailDetails(userId, trailId);
+
+        assertThat(savedTrail).map(UserSavedTrailDTO::getTrailName).contains("Pico da Bandeira");
+        assertThat(repositoryCalledInTransaction).containsExactly(true);
+        assertThat(catalogCalledInTransaction).containsExactly(false);
+    }
+
+    @Test
+    void savingATrailFetchesItsDetailsAfterTheCommit() {
+        UserSavedTrailRepository.SavedTrailRow row = mock(UserSavedTrailRepository.SavedTrailRow.class);
+        when(row.getTrailId()).thenReturn(trailId);
+        when(userSavedTrailRepository.upsertActive(any(), any(), any(), any())).thenAnswer(invocation -> {
+            repositoryCalledInTransaction.add(TransactionSynchronizationManager.isActualTransactionActive());
+            return Optional.of(row);
+        });
+        SaveTrailRequest request = new SaveTrailRequest();
+        request.setTrailId(trailId);
+
+        UserSavedTrailDTO saved = userSavedTrailService.saveTrail(userId, request);
+
+        assertThat(saved.getTrailName()).isEqualTo("Pico da Bandeira");
+        assertThat(repositoryCalledInTransaction).containsExactly(true);
+        assertThat(catalogCalledInTransaction).containsExactly(false);
+    }
+
+    @Configuration
+    @EnableTransactionManagement
+    static class TestConfig {
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            return new DataSourceTransactionManager(new DriverManagerDataSource("jdbc:h2:mem:saved-trails-test"));
+        }
+
+        @Bean
+        UserSavedTrailRepository userSavedTrailRepository() {
+            return mock(UserSavedTrailRepository.class);
+        }
+
+        @Bean
+        UserProfileRepository userProfileRepository() {
+            return mock(UserProfileRepository.class);
+        }
+
+        @Bean
+        TrailCatalogClient trailCatalogClient() {
+            return mock(TrailCatalogClient.class);
+        }
+
+        @Bean
+        SavedTrailIndex savedTrailIndex() {
+            return mock(SavedTrailIndex.class);
+        }
+
+        @Bean
+        UserSavedTrailDataService userSavedTrailDataService(UserSavedTrailRepository userSavedTrailRepository,
+                                                            UserProfileRepository userProfileRepository,
+                                                            SavedTrailIndex savedTrailIndex) {
+            return new UserSavedTrailDataService(userSavedTrailRepository, userProfileRepository,
+                    savedTrailIndex, mock(TrailPopularityIndex.class));
+        }
+
+        @Bean
+        UserSavedTrailService userSavedTrailService(UserSavedTrailDataService userSavedTrailDataService,
+                                                    SavedTrailIndex savedTrailIndex,
+                                                    TrailCatalogClient trailCatalogClient) {
+            return new UserSavedTrailService(userSavedTrailDataService, savedTrailIndex, trailCatalogClient);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.namata.userprofile.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiringCacheTest {
+
+    private static final Duration LONG = Duration.ofMinutes(5);
+
+    @Test
+    void expiredEntriesAreNotServedButRemainKnown() {
+        ExpiringCache<String, String> cache = new ExpiringCache<>(10);
+        cache.put("a", "valor", Duration.ZERO);
+
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.getIncludingExpired("a")).isEqualTo("valor");
+    }
+
+    @Test
+    void evictsTheOldestWriteAboveCapacity() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(3);
+        for (int i = 0; i < 5; i++) {
+            cache.put(i, i, LONG);
+        }
+
+        assertThat(cache.size()).isEqualTo(3);
+        assertThat(cache.get(0)).isNull();
+        assertThat(cache.get(1)).isNull();
+        assertThat(cache.get(4)).isEqualTo(4);
+    }
+
+    @Test
+    void rewritingAKeyKeepsOnlyItsLatestValue() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(2);
+        cache.put(1, 10, LONG);
+        cache.put(2, 20, LONG);
+        cache.put(1, 11, LONG);
+
+        // O nó antigo da chave 1 sai primeiro sem derrubar a gravação mais recente
+        assertThat(cache.get(1)).isEqualTo(11);
+        assertThat(cache.size()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void sizeStaysBoundedUnderRepeatedRewrites() {
+        ExpiringCache<Integer, Integer> cache = new ExpiringCache<>(100);
+        for (int i = 0; i < 100_000; i++) {
+            cache.put(i % 150, i, LONG);
+            cache.updateIfPresent(i % 7, value -> value + 1);
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    void updateIfPresentKeepsExpiryAndIgnoresMissingOrExpiredEntries() {
+        ExpiringCache<String, Integer> cache = new ExpiringCache<>(10);
+        cache.put("valido", 1, LONG);
+        cache.put("expirado", 1, Duration.ZERO);
+
+        cache.updateIfPresent("valido", value -> value + 1);
+        cache.updateIfPresent("expirado", value -> value + 1);
+        cache.updateIfPresent("ausente", value -> value + 1);
+
+        assertThat(cache.get("valido")).isEqualTo(2);
+        assertThat(cache.getIncludingExpired("expirado")).isEqualTo(1);
+        assertThat(cache.getIncludingExpired("ausente")).isNull();
+    }
+}
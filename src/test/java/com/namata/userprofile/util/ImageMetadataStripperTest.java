@@ -0,0 +1,168 @@
+package com.namata.userprofile.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ImageMetadataStripperTest {
+
+    private static final String SECRET = "GPS -23.5505,-46.6333";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void removesExifAndCommentFromJpegKeepingTheImage() throws IOException {
+        byte[] jpeg = encode("jpeg");
+        byte[] exif = segment(0xE1, ("Exif\0\0" + SECRET).getBytes(StandardCharsets.ISO_8859_1));
+        byte[] comment = segment(0xFE, SECRET.getBytes(StandardCharsets.ISO_8859_1));
+        Path file = write("photo.jpg", insertAt(jpeg, 2, concat(exif, comment)));
+
+        assertThat(ImageMetadataStripper.strip(file)).isTrue();
+
+        byte[] stripped = Files.readAllBytes(file);
+        assertThat(new String(stripped, StandardCharsets.ISO_8859_1)).doesNotContain(SECRET);
+        assertThat(stripped).isEqualTo(jpeg);
+        assertDecodes(file);
+    }
+
+    @Test
+    void keepsOnlyTheOrientationFromTheExif() throws IOException {
+        byte[] jpeg = encode("jpeg");
+        Path file = write("photo.jpg", insertAt(jpeg, 2, exifSegment(6, SECRET)));
+
+        assertThat(ImageMetadataStripper.strip(file)).isTrue();
+
+        byte[] stripped = Files.readAllBytes(file);
+        assertThat(new String(stripped, StandardCharsets.ISO_8859_1)).doesNotContain(SECRET);
+        assertThat(ImageMetadataStripper.jpegOrientation(file)).isEqualTo(6);
+        // Só o APP1 mínimo (4 + 32 bytes) foi acrescentado à imagem original
+        assertThat(stripped).hasSize(jpeg.length + 36);
+        assertDecodes(file);
+    }
+
+    @Test
+    void dropsANormalOrientation() throws IOException {
+        byte[] jpeg = encode("jpeg");
+        Path file = write("photo.jpg", insertAt(jpeg, 2, exifSegment(1, SECRET)));
+
+        ImageMetadataStripper.strip(file);
+
+        assertThat(Files.readAllBytes(file)).isEqualTo(jpeg);
+        assertThat(ImageMetadataStripper.jpegOrientation(file)).isEqualTo(ImageMetadataStripper.ORIENTATION_NORMAL);
+    }
+
+    @Test
+    void removesTextChunksFromPng() throws IOException {
+        byte[] png = encode("png");
+        byte[] text = chunk("tEXt", ("Comment\0" + SECRET).getBytes(StandardCharsets.ISO_8859_1));
+        // Depois da assinatura (8 bytes) e do IHDR (4 + 4 + 13 + 4 bytes)
+        Path file = write("photo.png", insertAt(png, 33, text));
+
+        assertThat(ImageMetadataStripper.strip(file)).isTrue();
+
+        byte[] stripped = Files.readAllBytes(file);
+        assertThat(new String(stripped, StandardCharsets.ISO_8859_1)).doesNotContain(SECRET);
+        assertThat(stripped).isEqualTo(png);
+        assertDecodes(file);
+    }
+
+    @Test
+    void leavesUnknownFormatsUntouched() throws IOException {
+        byte[] content = "GIF89a qualquer coisa".getBytes(StandardCharsets.ISO_8859_1);
+        Path file = write("photo.gif", content);
+
+        assertThat(ImageMetadataStripper.strip(file)).isFalse();
+        assertThat(Files.readAllBytes(file)).isEqualTo(content);
+    }
+
+    @Test
+    void rejectsTruncatedJpeg() throws IOException {
+        byte[] jpeg = encode("jpeg");
+        byte[] exif = segment(0xE1, ("Exif\0\0" + SECRET).getBytes(StandardCharsets.ISO_8859_1));
+        byte[] truncated = insertAt(jpeg, 2, exif);
+        Path file = write("photo.jpg", Arrays.copyOf(truncated, 2 + exif.length - 4));
+
+        assertThatThrownBy(() -> ImageMetadataStripper.strip(file)).isInstanceOf(IOException.class);
+    }
+
+    private static byte[] encode(String format) throws IOException {
+        BufferedImage image = new BufferedImage(32, 16, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(3, 4, 0xFF0000);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        ImageIO.write(image, format, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * APP1 EXIF little-endian como o de uma câmera: IFD0 com Make, Orientation e um texto no fim.
+     */
+    private static byte[] exifSegment(int orientation, String text) {
+        byte[] textBytes = (text + "\0").getBytes(StandardCharsets.ISO_8859_1);
+        int entries = 3;
+        int dataOffset = 8 + 2 + entries * 12 + 4;
+        ByteBuffer tiff = ByteBuffer.allocate(dataOffset + textBytes.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        tiff.put((byte) 'I').put((byte) 'I').putShort((short) 42).putInt(8);
+        tiff.putShort((short) entries);
+        tiff.putShort((short) 0x010F).putShort((short) 2).putInt(4).put("Cam\0".getBytes(StandardCharsets.ISO_8859_1));
+        tiff.putShort((short) 0x0112).putShort((short) 3).putInt(1).putShort((short) orientation).putShort((short) 0);
+        tiff.putShort((short) 0x010E).putShort((short) 2).putInt(textBytes.length).putInt(dataOffset);
+        tiff.putInt(0);
+        tiff.put(textBytes);
+        return segment(0xE1, concat("Exif\0\0".getBytes(StandardCharsets.ISO_8859_1), tiff.array()));
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        return ByteBuffer.allocate(4 + payload.length)
+                .put((byte) 0xFF).put((byte) marker).putShort((short) (payload.length + 2)).put(payload)
+                .array();
+    }
+
+    private static byte[] chunk(String type, byte[] data) {
+        byte[] typeBytes = type.getBytes(StandardCharsets.ISO_8859_1);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data);
+        return ByteBuffer.allocate(12 + data.length)
+                .putInt(data.length).put(typeBytes).put(data).putInt((int) crc.getValue())
+                .array();
+    }
+
+    private static byte[] insertAt(byte[] source, int offset, byte[] inserted) {
+        return concat(Arrays.copyOf(source, offset), inserted,
+                Arrays.copyOfRange(source, offset, source.length));
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            output.writeBytes(part);
+        }
+        return output.toByteArray();
+    }
+
+    private Path write(String name, byte[] content) throws IOException {
+        return Files.write(dir.resolve(name), content);
+    }
+
+    private static void assertDecodes(Path file) throws IOException {
+        BufferedImage decoded = ImageIO.read(file.toFile());
+        assertThat(decoded).isNotNull();
+        assertThat(decoded.getWidth()).isEqualTo(32);
+        assertThat(decoded.getHeight()).isEqualTo(16);
+    }
+}
@@ -0,0 +1,77 @@
+package com.namata.userprofile.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UuidV7GeneratorTest {
+
+    // Mesma ordem do tipo uuid do PostgreSQL: bytes sem sinal, do mais significativo ao menos significativo
+    private static final Comparator<UUID> POSTGRES_ORDER = Comparator
+            .comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    @Test
+    void setsVersionAndVariant() {
+        UUID uuid = UuidV7Generator.generate();
+
+        assertThat(uuid.version()).isEqualTo(7);
+        assertThat(uuid.variant()).isEqualTo(2);
+    }
+
+    @Test
+    void carriesTheCreationTimeInTheFirst48Bits() {
+        long before = System.currentTimeMillis();
+        UUID uuid = UuidV7Generator.generate();
+        long after = System.currentTimeMillis();
+
+        // O contador esgotado pode adiantar o timestamp em 1 ms
+        assertThat(uuid.getMostSignificantBits() >>> 16).isBetween(before, after + 1);
+    }
+
+    @Test
+    void sequentialIdsAreStrictlyIncreasing() {
+        UUID previous = UuidV7Generator.generate();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = UuidV7Generator.generate();
+            assertThat(POSTGRES_ORDER.compare(next, previous)).isPositive();
+            previous = next;
+        }
+    }
+
+    @Test
+    void concurrentIdsAreUniqueAndIncreasingPerThread() throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        List<Future<List<UUID>>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                results.add(executor.submit(() -> {
+                    List<UUID> ids = new ArrayList<>(perThread);
+                    for (int i = 0; i < perThread; i++) {
+                        ids.add(UuidV7Generator.generate());
+                    }
+                    return ids;
+                }));
+            }
+        }
+
+        Set<UUID> all = new HashSet<>();
+        for (Future<List<UUID>> result : results) {
+            List<UUID> ids = result.get();
+            assertThat(ids).isSortedAccordingTo(POSTGRES_ORDER);
+            all.addAll(ids);
+        }
+        assertThat(all).hasSize(threads * perThread);
+    }
+}